@@ -0,0 +1,178 @@
+package com.example.bench;
+
+import com.example.JsonToJavaGenerator;
+import com.example.engine.generated.engines.EngineGas;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loads the output of {@link JsonToJavaGenerator} for a synthetic catalog: the generator runs and
+ * its sources are compiled once per trial, then the benchmarks measure initializing the Aggregator
+ * in a fresh class loader, loading every instance, and steady-state lookups through the
+ * Aggregator-backed {@code com.example.EngineService}. Instances are either embedded in the
+ * generated classes or read from the generator's Smile snapshot.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class AggregatorBenchmark {
+    private static final String GENERATED_PACKAGE = "com.example.generated.json.";
+    private static final String SERVICE_CLASS = "com.example.EngineService";
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"embedded", "snapshot"})
+    public String instances;
+
+    private URL[] classPath;
+    private MethodHandle getEngineForCar;
+    private String[] carUuids;
+    private int next;
+    private ClassLoader freshLoader;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        SyntheticCatalog catalog = SyntheticCatalog.create(size);
+        Path sourcesDir = Files.createTempDirectory("aggregator-src");
+        Path classesDir = Files.createTempDirectory("aggregator-classes");
+
+        // The generator prints a line per class; keep that out of the benchmark log
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try (URLClassLoader resources = new URLClassLoader(new URL[]{catalog.root().toUri().toURL()}, null)) {
+            JsonToJavaGenerator.generate(resources, sourcesDir, false, instances.equals("snapshot") ? classesDir : null);
+        } finally {
+            System.setOut(out);
+        }
+        compile(sourcesDir, classesDir);
+
+        URL serviceLocation = Class.forName(SERVICE_CLASS).getProtectionDomain().getCodeSource().getLocation();
+        classPath = new URL[]{classesDir.toUri().toURL(), serviceLocation};
+        Class<?> service = Class.forName(SERVICE_CLASS, true, new GeneratedClassLoader(classPath));
+        getEngineForCar = MethodHandles.publicLookup().findStatic(service, "getEngineForCar",
+                MethodType.methodType(Optional.class, String.class, Class.class));
+
+        SplittableRandom random = new SplittableRandom(42);
+        carUuids = new String[4096];
+        for (int i = 0; i < carUuids.length; i++) {
+            carUuids[i] = catalog.carUuid(random.nextInt(catalog.carCount()));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newClassLoader() {
+        freshLoader = new GeneratedClassLoader(classPath);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Class<?> initializeAggregator() throws ClassNotFoundException {
+        return Class.forName(GENERATED_PACKAGE + "Aggregator", true, freshLoader);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public int loadInstances() throws ReflectiveOperationException {
+        List<?> loaded = (List<?>) Class.forName(GENERATED_PACKAGE + "Aggregator", true, freshLoader).getField("INSTANCES").get(null);
+        int fields = 0;
+        for (Object instance : loaded) {
+            fields += ((JsonNode) instance).size();
+        }
+        return fields;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Object getEngineForCar() throws Throwable {
+        String carUuid = carUuids[next++ & (carUuids.length - 1)];
+        return (Optional<?>) getEngineForCar.invokeExact(carUuid, (Class<?>) EngineGas.class);
+    }
+
+    private static void compile(Path sourcesDir, Path classesDir) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("AggregatorBenchmark needs a JDK, not a JRE");
+        }
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-nowarn",
+                "-cp", System.getProperty("java.class.path"), "-d", classesDir.toString()));
+        try (Stream<Path> sources = Files.list(sourcesDir)) {
+            sources.map(Path::toString).filter(source -> source.endsWith(".java")).forEach(arguments::add);
+        }
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Failed to compile generated sources in " + sourcesDir);
+        }
+    }
+
+    /**
+     * Loads the generated classes and snapshot, and the service that reads them, from the synthetic
+     * output instead of the application class path; everything else is delegated to the parent.
+     */
+    private static class GeneratedClassLoader extends URLClassLoader {
+        GeneratedClassLoader(URL[] urls) {
+            super(urls, AggregatorBenchmark.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(GENERATED_PACKAGE) && !name.equals(SERVICE_CLASS)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    loaded = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            // The snapshot, like the classes, must come from the synthetic output
+            URL snapshot = name.equals(JsonToJavaGenerator.SNAPSHOT_RESOURCE) ? findResource(name) : null;
+            return snapshot != null ? snapshot : super.getResource(name);
+        }
+    }
+}
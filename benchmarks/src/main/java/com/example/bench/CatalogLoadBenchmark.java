@@ -0,0 +1,49 @@
+package com.example.bench;
+
+import com.example.engine.CatalogLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build an engine catalog from a directory of JSON instances and from a memory-mapped
+ * binary catalog. Each invocation is a full load, so results are single-shot times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CatalogLoadBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private SyntheticCatalog catalog;
+
+    @Setup
+    public void setup() throws IOException {
+        catalog = SyntheticCatalog.create(size);
+    }
+
+    @Benchmark
+    public CatalogLoader.Result loadFromDirectory() {
+        return CatalogLoader.loadFromDirectory(catalog.instancesDir(), catalog.relationshipsFile());
+    }
+
+    @Benchmark
+    public CatalogLoader.Result loadMapped() {
+        return CatalogLoader.loadMapped(catalog.catalogFile());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bench;
+
+import com.example.engine.EngineService;
+import com.example.engine.generated.compact.CompactEngineGas;
+import com.example.engine.generated.engines.EngineGas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state {@link EngineService#getEngineForCar} over a synthetic catalog loaded from disk,
+ * returning jsonschema2pojo or compact models. Each fork loads one catalog size, since the service
+ * keeps its catalog in static state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineLookupBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"generated", "compact"})
+    public String model;
+
+    private Class<?> engineClass;
+
+    private String[] carUuids;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticCatalog catalog = SyntheticCatalog.create(size);
+        // Loaded without a watcher, so no watcher thread runs beside the measured lookups
+        EngineService.load(catalog.instancesDir(), catalog.relationshipsFile());
+
+        // Random cars, so lookups are not served from a few hot cache lines
+        SplittableRandom random = new SplittableRandom(42);
+        carUuids = new String[4096];
+        for (int i = 0; i < carUuids.length; i++) {
+            carUuids[i] = catalog.carUuid(random.nextInt(catalog.carCount()));
+        }
+        engineClass = model.equals("compact") ? CompactEngineGas.class : EngineGas.class;
+        // Resolve the engine class outside the measurement
+        EngineService.getEngineForCar(carUuids[0], engineClass);
+    }
+
+    @Benchmark
+    public Optional<?> getEngineForCar() {
+        String carUuid = carUuids[next++ & (carUuids.length - 1)];
+        return EngineService.getEngineForCar(carUuid, engineClass);
+    }
+}
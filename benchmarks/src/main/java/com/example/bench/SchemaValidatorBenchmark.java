@@ -0,0 +1,67 @@
+package com.example.bench;
+
+import com.example.engine.InstanceValidator;
+import com.example.engine.SchemaRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates one parsed engine and one parsed car instance with the validators
+ * {@link SchemaRegistry} hands out: the specialized ones from the schema compiler, or networknt's
+ * interpreter. Parsing and file access are left out so only validation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaValidatorBenchmark {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Param({"compiled", "interpreted"})
+    public String validator;
+
+    private InstanceValidator engineValidator;
+    private InstanceValidator carValidator;
+    private JsonNode engine;
+    private JsonNode car;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticCatalog catalog = SyntheticCatalog.create(1000);
+        SchemaRegistry schemas = new SchemaRegistry(catalog.schemasDir(),
+                JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7), validator.equals("compiled"));
+        engineValidator = schemas.get("engines", "engine-gas");
+        carValidator = schemas.get("cars", "car-sedan");
+        engine = mapper.readTree(catalog.instancesDir().resolve("engines").resolve("engine-gas-0.json").toFile());
+        car = mapper.readTree(catalog.instancesDir().resolve("cars").resolve("car-sedan-0.json").toFile());
+    }
+
+    @Benchmark
+    public List<InstanceValidator.Violation> validateEngine() {
+        return engineValidator.validate(engine);
+    }
+
+    @Benchmark
+    public List<InstanceValidator.Violation> validateCar() {
+        return carValidator.validate(car);
+    }
+}
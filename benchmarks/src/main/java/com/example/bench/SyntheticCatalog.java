@@ -0,0 +1,192 @@
+package com.example.bench;
+
+import com.example.engine.BinaryCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A deterministic synthetic catalog of {@code size} instances, half engines and half cars, laid out
+ * like {@code src/main/resources}: {@code schemas/}, {@code instances/engines}, {@code instances/cars}
+ * and {@code generated/} with relationships.json and engines.catalog. Car {@code i} uses engines
+ * {@code 2i} and {@code 2i + 1} (modulo the engine count) and every engine lists its cars, so both
+ * relationship directions are populated.
+ *
+ * <p>Catalogs are written once per size under {@code java.io.tmpdir/car-engine-bench} and reused
+ * by later forks and runs. The completion marker names the layout, so catalogs written in an older
+ * binary format are rewritten.
+ */
+public final class SyntheticCatalog {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String COMPLETE_MARKER = "complete-v2";
+    private static final String[] ENGINE_TYPES = {"engine-gas", "engine-electric", "engine-hybrid"};
+    private static final String[] SCHEMAS = {
+            "schemas/engines/engine-gas.json", "schemas/engines/engine-electric.json", "schemas/engines/engine-hybrid.json",
+            "schemas/cars/car-sedan.json", "schemas/cars/car-suv.json"
+    };
+
+    private final Path root;
+    private final int engineCount;
+    private final int carCount;
+
+    private SyntheticCatalog(Path root, int size) {
+        this.root = root;
+        this.engineCount = Math.max(1, size / 2);
+        this.carCount = Math.max(1, size - engineCount);
+    }
+
+    public static synchronized SyntheticCatalog create(int size) throws IOException {
+        Path root = Paths.get(System.getProperty("java.io.tmpdir"), "car-engine-bench", Integer.toString(size));
+        SyntheticCatalog catalog = new SyntheticCatalog(root, size);
+        // The marker is written last, so a catalog interrupted half way is rewritten
+        if (!Files.exists(root.resolve(COMPLETE_MARKER))) {
+            catalog.write();
+        }
+        return catalog;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Path schemasDir() {
+        return root.resolve("schemas");
+    }
+
+    public Path instancesDir() {
+        return root.resolve("instances");
+    }
+
+    public Path relationshipsFile() {
+        return root.resolve("generated").resolve("relationships.json");
+    }
+
+    public Path catalogFile() {
+        return root.resolve("generated").resolve("engines.catalog");
+    }
+
+    public int engineCount() {
+        return engineCount;
+    }
+
+    public int carCount() {
+        return carCount;
+    }
+
+    public String engineUuid(int engine) {
+        return String.format("%08x-0000-4000-8000-%012x", 0xE, engine);
+    }
+
+    public String carUuid(int car) {
+        return String.format("%08x-0000-4000-8000-%012x", 0xC, car);
+    }
+
+    private int[] enginesOf(int car) {
+        return new int[]{(2 * car) % engineCount, (2 * car + 1) % engineCount};
+    }
+
+    private void write() throws IOException {
+        for (String schema : SCHEMAS) {
+            try (InputStream is = SyntheticCatalog.class.getClassLoader().getResourceAsStream(schema)) {
+                if (is == null) {
+                    throw new IOException("Schema not found on the classpath: " + schema);
+                }
+                Path target = root.resolve(schema);
+                Files.createDirectories(target.getParent());
+                Files.write(target, is.readAllBytes());
+            }
+        }
+
+        List<List<Integer>> carsByEngine = new ArrayList<>(engineCount);
+        for (int engine = 0; engine < engineCount; engine++) {
+            carsByEngine.add(new ArrayList<>(2));
+        }
+        Map<String, List<String>> relationships = new LinkedHashMap<>();
+        Path carDir = Files.createDirectories(instancesDir().resolve("cars"));
+        for (int car = 0; car < carCount; car++) {
+            List<String> engineUuids = new ArrayList<>(2);
+            for (int engine : enginesOf(car)) {
+                if (!carsByEngine.get(engine).contains(car)) {
+                    carsByEngine.get(engine).add(car);
+                    engineUuids.add(engineUuid(engine));
+                }
+            }
+            relationships.put(carUuid(car), engineUuids);
+            String schemaType = car % 2 == 0 ? "car-sedan" : "car-suv";
+            Files.write(carDir.resolve(schemaType + "-" + car + ".json"), mapper.writeValueAsBytes(carDocument(car, schemaType, engineUuids)));
+        }
+
+        List<BinaryCatalog.Entry> entries = new ArrayList<>(engineCount);
+        Path engineDir = Files.createDirectories(instancesDir().resolve("engines"));
+        for (int engine = 0; engine < engineCount; engine++) {
+            String schemaType = ENGINE_TYPES[engine % ENGINE_TYPES.length];
+            byte[] json = mapper.writeValueAsBytes(engineDocument(engine, schemaType, carsByEngine.get(engine)));
+            Files.write(engineDir.resolve(schemaType + "-" + engine + ".json"), json);
+            UUID[] carUuids = carsByEngine.get(engine).stream().map(car -> UUID.fromString(carUuid(car))).toArray(UUID[]::new);
+            entries.add(new BinaryCatalog.Entry(UUID.fromString(engineUuid(engine)), schemaType, json, carUuids));
+        }
+
+        Files.createDirectories(relationshipsFile().getParent());
+        mapper.writeValue(relationshipsFile().toFile(), relationships);
+        BinaryCatalog.write(catalogFile(), entries);
+        Files.writeString(root.resolve(COMPLETE_MARKER), Integer.toString(engineCount + carCount));
+    }
+
+    private ObjectNode carDocument(int car, String schemaType, List<String> engineUuids) {
+        ObjectNode document = mapper.createObjectNode();
+        document.put("name", schemaType + "-" + car);
+        document.put("uuid", carUuid(car));
+        document.put("model", "Model" + car % 100);
+        document.put("maxSpeed", 100 + car % 80);
+        document.putArray("features").add("feature-" + car % 10);
+        if (schemaType.equals("car-sedan")) {
+            ArrayNode engineRelationships = document.putArray("engineRelationships");
+            for (String engineUuid : engineUuids) {
+                engineRelationships.addObject()
+                        .put("engineUuid", engineUuid)
+                        .put("validFrom", "2020-01-01T00:00:00Z");
+            }
+        } else {
+            ArrayNode engineUuidsNode = document.putArray("engineUuids");
+            engineUuids.forEach(engineUuidsNode::add);
+        }
+        return document;
+    }
+
+    private ObjectNode engineDocument(int engine, String schemaType, List<Integer> cars) {
+        ObjectNode document = mapper.createObjectNode();
+        document.put("name", schemaType + "-" + engine);
+        document.put("uuid", engineUuid(engine));
+        switch (schemaType) {
+            case "engine-gas" -> {
+                document.put("horsepower", 100 + engine % 400);
+                document.put("fuelEfficiency", 10 + engine % 40 + 0.5);
+                document.putArray("fuelTypes").add("regular").add("premium");
+            }
+            case "engine-electric" -> {
+                document.put("batteryCapacity", 50 + engine % 150);
+                document.put("rangeMiles", 100 + engine % 400);
+                document.putArray("chargingTypes").add("ccs");
+            }
+            default -> {
+                document.put("horsepower", 150 + engine % 250);
+                document.put("batteryCapacity", 10 + engine % 40);
+                document.put("fuelEfficiency", 30 + engine % 40 + 0.5);
+            }
+        }
+        ArrayNode carUuids = document.putArray("carUuids");
+        cars.forEach(car -> carUuids.add(carUuid(car)));
+        return document;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bench;
+
+import com.example.engine.EngineValidation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for {@link EngineValidation#validate} to validate a synthetic catalog and write its
+ * generated files. Output goes to a scratch directory so the catalog's own files are untouched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private SyntheticCatalog catalog;
+    private File relationshipsFile;
+
+    @Setup
+    public void setup() throws IOException {
+        catalog = SyntheticCatalog.create(size);
+        relationshipsFile = catalog.root().resolve("validated").resolve("relationships.json").toFile();
+    }
+
+    @Benchmark
+    public File validate() throws Exception {
+        EngineValidation.validate(catalog.schemasDir().toFile(), catalog.instancesDir().toFile(), relationshipsFile);
+        return relationshipsFile;
+    }
+}
@@ -0,0 +1,423 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Generates compact, immutable models for the engine schemas, as an alternative to the
+ * jsonschema2pojo classes in {@code com.example.engine.generated}. Those use {@code Long},
+ * {@code BigDecimal} and {@code LinkedHashSet<UUID>}, so one engine is a few dozen small objects.
+ * A compact model keeps integers as {@code long}, numbers as {@code double}, UUIDs as their two
+ * {@code long} halves and UUID arrays as one {@code long[]}, with a bit per property recording
+ * which optional ones are present. Models read themselves from a {@code JsonParser} through
+ * {@link com.example.engine.CompactReader}, and {@code CompactModels} maps each to its schema type
+ * so {@link com.example.engine.EngineService} can serve them in place of the jsonschema2pojo ones.
+ *
+ * <p>Supported property types are string (optionally {@code "format": "uuid"}), integer, number,
+ * boolean, and arrays of strings or UUID strings; any other property fails generation.
+ */
+public class CompactModelGenerator {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String TARGET_PACKAGE = "com.example.engine.generated.compact";
+
+    public static void main(String[] args) throws IOException {
+        Path schemasDir = args.length > 0 ? Paths.get(args[0]) : Paths.get("src/main/resources/schemas/engines");
+        Path targetDir = args.length > 1 ? Paths.get(args[1]) : Paths.get("src/main/java/com/example/engine/generated/compact");
+        generate(schemasDir, targetDir);
+    }
+
+    /**
+     * Generates a model per schema in {@code schemasDir}, plus {@code CompactModels}, into
+     * {@code targetDir}, and deletes models of schemas that no longer exist.
+     */
+    public static void generate(Path schemasDir, Path targetDir) throws IOException {
+        Files.createDirectories(targetDir);
+        List<Path> schemaFiles;
+        try (Stream<Path> files = Files.list(schemasDir)) {
+            schemaFiles = files.filter(file -> file.toString().endsWith(".json")).sorted().toList();
+        }
+
+        Set<String> written = new HashSet<>();
+        List<String> classNames = new ArrayList<>();
+        for (Path schemaFile : schemaFiles) {
+            String schemaType = schemaFile.getFileName().toString().replace(".json", "");
+            String className = "Compact" + camelCase(schemaType);
+            Files.writeString(targetDir.resolve(className + ".java"), generateModel(className, schemaType, schemaFile));
+            written.add(className + ".java");
+            classNames.add(className);
+            System.out.println("Generated: " + targetDir.resolve(className + ".java"));
+        }
+        Files.writeString(targetDir.resolve("CompactModels.java"), generateRegistry(classNames));
+        written.add("CompactModels.java");
+
+        try (Stream<Path> files = Files.list(targetDir)) {
+            for (Path file : files.filter(file -> !written.contains(file.getFileName().toString())).toList()) {
+                Files.delete(file);
+                System.out.println("Removed: " + file);
+            }
+        }
+        System.out.println("Generated " + classNames.size() + " compact models in " + targetDir);
+    }
+
+    private static String generateModel(String className, String schemaType, Path schemaFile) throws IOException {
+        JsonNode schema = mapper.readTree(schemaFile.toFile());
+        Set<String> required = new HashSet<>();
+        schema.path("required").forEach(name -> required.add(name.asText()));
+        List<Property> properties = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : schema.path("properties").properties()) {
+            properties.add(new Property(entry.getKey(), kind(schemaFile, entry.getKey(), entry.getValue()), required.contains(entry.getKey()),
+                    properties.size()));
+        }
+        if (properties.size() > 31) {
+            throw new IllegalArgumentException(schemaFile + " has more than 31 properties, which a compact model cannot track");
+        }
+
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        javaCode.append("import com.example.engine.CompactReader;\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonParser;\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonToken;\n");
+        javaCode.append("import java.io.IOException;\n");
+        javaCode.append("import java.util.ArrayList;\n");
+        javaCode.append("import java.util.Arrays;\n");
+        javaCode.append("import java.util.List;\n");
+        javaCode.append("import java.util.NoSuchElementException;\n");
+        javaCode.append("import java.util.Objects;\n");
+        javaCode.append("import java.util.UUID;\n");
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * Compact, immutable model of one {@code ").append(schemaType).append("} instance.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.CompactModelGenerator\")\n");
+        javaCode.append("public final class ").append(className).append(" {\n");
+        javaCode.append("    public static final String SCHEMA_TYPE = \"").append(schemaType).append("\";\n\n");
+        javaCode.append("    // Bit i of present is set when the instance has property i\n");
+        StringBuilder requiredMask = new StringBuilder();
+        StringBuilder names = new StringBuilder();
+        for (Property property : properties) {
+            javaCode.append("    private static final int ").append(property.bit()).append(" = 1 << ").append(property.index()).append(";\n");
+            if (property.required()) {
+                requiredMask.append(requiredMask.length() == 0 ? "" : " | ").append(property.bit());
+            }
+            names.append(names.length() == 0 ? "\"" : ", \"").append(property.name()).append("\"");
+        }
+        javaCode.append("    private static final int REQUIRED = ").append(requiredMask.length() == 0 ? "0" : requiredMask).append(";\n");
+        javaCode.append("    private static final String[] PROPERTIES = {").append(names).append("};\n\n");
+
+        for (Property property : properties) {
+            switch (property.kind()) {
+                case STRING -> javaCode.append("    private final String ").append(property.field()).append(";\n");
+                case UUID -> {
+                    javaCode.append("    private final long ").append(property.field()).append("Msb;\n");
+                    javaCode.append("    private final long ").append(property.field()).append("Lsb;\n");
+                }
+                case INTEGER -> javaCode.append("    private final long ").append(property.field()).append(";\n");
+                case NUMBER -> javaCode.append("    private final double ").append(property.field()).append(";\n");
+                case BOOLEAN -> javaCode.append("    private final boolean ").append(property.field()).append(";\n");
+                case STRINGS -> javaCode.append("    private final String[] ").append(property.field()).append(";\n");
+                case UUIDS -> {
+                    javaCode.append("    // Most and least significant bits of each UUID in turn\n");
+                    javaCode.append("    private final long[] ").append(property.field()).append(";\n");
+                }
+            }
+        }
+        javaCode.append("    private final int present;\n\n");
+
+        // Constructor
+        List<String> parameters = new ArrayList<>();
+        for (Property property : properties) {
+            switch (property.kind()) {
+                case STRING -> parameters.add("String " + property.field());
+                case UUID -> {
+                    parameters.add("long " + property.field() + "Msb");
+                    parameters.add("long " + property.field() + "Lsb");
+                }
+                case INTEGER -> parameters.add("long " + property.field());
+                case NUMBER -> parameters.add("double " + property.field());
+                case BOOLEAN -> parameters.add("boolean " + property.field());
+                case STRINGS -> parameters.add("String[] " + property.field());
+                case UUIDS -> parameters.add("long[] " + property.field());
+            }
+        }
+        parameters.add("int present");
+        javaCode.append("    private ").append(className).append("(").append(String.join(", ", parameters)).append(") {\n");
+        for (String parameter : parameters) {
+            String name = parameter.substring(parameter.indexOf(' ') + 1);
+            javaCode.append("        this.").append(name).append(" = ").append(name).append(";\n");
+        }
+        javaCode.append("    }\n\n");
+
+        // Readers
+        javaCode.append("    public static ").append(className).append(" read(byte[] json) throws IOException {\n");
+        javaCode.append("        try (JsonParser parser = CompactReader.parser(json)) {\n");
+        javaCode.append("            return read(parser);\n");
+        javaCode.append("        }\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    /**\n");
+        javaCode.append("     * Reads one instance, starting at its {@code START_OBJECT} token or before it. Unknown properties are\n");
+        javaCode.append("     * skipped, and a null value counts as absent.\n");
+        javaCode.append("     */\n");
+        javaCode.append("    public static ").append(className).append(" read(JsonParser parser) throws IOException {\n");
+        javaCode.append("        CompactReader.startObject(parser, SCHEMA_TYPE);\n");
+        for (Property property : properties) {
+            switch (property.kind()) {
+                case STRING -> javaCode.append("        String ").append(property.field()).append(" = null;\n");
+                case UUID -> {
+                    javaCode.append("        long ").append(property.field()).append("Msb = 0;\n");
+                    javaCode.append("        long ").append(property.field()).append("Lsb = 0;\n");
+                }
+                case INTEGER -> javaCode.append("        long ").append(property.field()).append(" = 0;\n");
+                case NUMBER -> javaCode.append("        double ").append(property.field()).append(" = 0;\n");
+                case BOOLEAN -> javaCode.append("        boolean ").append(property.field()).append(" = false;\n");
+                case STRINGS -> javaCode.append("        String[] ").append(property.field()).append(" = CompactReader.noStrings();\n");
+                case UUIDS -> javaCode.append("        long[] ").append(property.field()).append(" = CompactReader.noUuids();\n");
+            }
+        }
+        javaCode.append("        int present = 0;\n");
+        javaCode.append("        while (parser.nextToken() == JsonToken.FIELD_NAME) {\n");
+        javaCode.append("            String property = parser.currentName();\n");
+        javaCode.append("            if (parser.nextToken() == JsonToken.VALUE_NULL) {\n");
+        javaCode.append("                continue;\n");
+        javaCode.append("            }\n");
+        javaCode.append("            switch (property) {\n");
+        for (Property property : properties) {
+            String name = "\"" + property.name() + "\"";
+            javaCode.append("                case ").append(name).append(" -> {\n");
+            switch (property.kind()) {
+                case STRING -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.string(parser, ").append(name).append(");\n");
+                case UUID -> {
+                    javaCode.append("                    long[] bits = CompactReader.uuid(parser, ").append(name).append(");\n");
+                    javaCode.append("                    ").append(property.field()).append("Msb = bits[0];\n");
+                    javaCode.append("                    ").append(property.field()).append("Lsb = bits[1];\n");
+                }
+                case INTEGER -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.integer(parser, ").append(name).append(");\n");
+                case NUMBER -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.number(parser, ").append(name).append(");\n");
+                case BOOLEAN -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.bool(parser, ").append(name).append(");\n");
+                case STRINGS -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.strings(parser, ").append(name).append(");\n");
+                case UUIDS -> javaCode.append("                    ").append(property.field()).append(" = CompactReader.uuids(parser, ").append(name).append(");\n");
+            }
+            javaCode.append("                    present |= ").append(property.bit()).append(";\n");
+            javaCode.append("                }\n");
+        }
+        javaCode.append("                default -> parser.skipChildren();\n");
+        javaCode.append("            }\n");
+        javaCode.append("        }\n");
+        javaCode.append("        CompactReader.checkRequired(parser, SCHEMA_TYPE, present, REQUIRED, PROPERTIES);\n");
+        List<String> arguments = new ArrayList<>();
+        parameters.forEach(parameter -> arguments.add(parameter.substring(parameter.indexOf(' ') + 1)));
+        javaCode.append("        return new ").append(className).append("(").append(String.join(", ", arguments)).append(");\n");
+        javaCode.append("    }\n\n");
+
+        // Accessors
+        for (Property property : properties) {
+            String field = property.field();
+            if (!property.required()) {
+                javaCode.append("    public boolean has").append(Character.toUpperCase(field.charAt(0))).append(field.substring(1)).append("() {\n");
+                javaCode.append("        return (present & ").append(property.bit()).append(") != 0;\n");
+                javaCode.append("    }\n\n");
+            }
+            switch (property.kind()) {
+                case STRING -> {
+                    javaCode.append("    public String ").append(field).append("() {\n");
+                    javaCode.append("        return ").append(field).append(";\n");
+                }
+                case UUID -> {
+                    javaCode.append("    public UUID ").append(field).append("() {\n");
+                    javaCode.append("        return (present & ").append(property.bit()).append(") != 0 ? new UUID(")
+                            .append(field).append("Msb, ").append(field).append("Lsb) : null;\n");
+                }
+                case INTEGER, NUMBER, BOOLEAN -> {
+                    String type = property.kind() == Kind.INTEGER ? "long" : property.kind() == Kind.NUMBER ? "double" : "boolean";
+                    javaCode.append("    public ").append(type).append(" ").append(field).append("() {\n");
+                    if (!property.required()) {
+                        javaCode.append("        if ((present & ").append(property.bit()).append(") == 0) {\n");
+                        javaCode.append("            throw new NoSuchElementException(\"").append(property.name()).append(" is not set\");\n");
+                        javaCode.append("        }\n");
+                    }
+                    javaCode.append("        return ").append(field).append(";\n");
+                }
+                case STRINGS -> {
+                    javaCode.append("    public List<String> ").append(field).append("() {\n");
+                    javaCode.append("        return List.of(").append(field).append(");\n");
+                }
+                case UUIDS -> {
+                    javaCode.append("    public int ").append(field).append("Count() {\n");
+                    javaCode.append("        return ").append(field).append(".length / 2;\n");
+                    javaCode.append("    }\n\n");
+                    javaCode.append("    public UUID ").append(field).append("(int index) {\n");
+                    javaCode.append("        Objects.checkIndex(index, ").append(field).append(".length / 2);\n");
+                    javaCode.append("        return new UUID(").append(field).append("[2 * index], ").append(field).append("[2 * index + 1]);\n");
+                    javaCode.append("    }\n\n");
+                    javaCode.append("    /**\n");
+                    javaCode.append("     * Materializes the UUIDs; prefer {@link #").append(field).append("(int)} to avoid the allocations.\n");
+                    javaCode.append("     */\n");
+                    javaCode.append("    public List<UUID> ").append(field).append("() {\n");
+                    javaCode.append("        List<UUID> uuids = new ArrayList<>(").append(field).append(".length / 2);\n");
+                    javaCode.append("        for (int i = 0; i < ").append(field).append(".length; i += 2) {\n");
+                    javaCode.append("            uuids.add(new UUID(").append(field).append("[i], ").append(field).append("[i + 1]));\n");
+                    javaCode.append("        }\n");
+                    javaCode.append("        return uuids;\n");
+                }
+            }
+            javaCode.append("    }\n\n");
+        }
+
+        // toString, equals, hashCode
+        javaCode.append("    @Override\n");
+        javaCode.append("    public String toString() {\n");
+        javaCode.append("        StringBuilder sb = new StringBuilder(\"").append(className).append("[\");\n");
+        for (Property property : properties) {
+            javaCode.append("        if ((present & ").append(property.bit()).append(") != 0) {\n");
+            javaCode.append("            sb.append(\"").append(property.name()).append("=\").append(").append(property.field()).append("()).append(',');\n");
+            javaCode.append("        }\n");
+        }
+        javaCode.append("        if (sb.charAt(sb.length() - 1) == ',') {\n");
+        javaCode.append("            sb.setLength(sb.length() - 1);\n");
+        javaCode.append("        }\n");
+        javaCode.append("        return sb.append(']').toString();\n");
+        javaCode.append("    }\n\n");
+
+        List<String> comparisons = new ArrayList<>();
+        List<String> hashes = new ArrayList<>();
+        comparisons.add("present == other.present");
+        hashes.add("Integer.hashCode(present)");
+        for (Property property : properties) {
+            String field = property.field();
+            switch (property.kind()) {
+                case STRING -> {
+                    comparisons.add("Objects.equals(" + field + ", other." + field + ")");
+                    hashes.add("Objects.hashCode(" + field + ")");
+                }
+                case UUID -> {
+                    comparisons.add(field + "Msb == other." + field + "Msb && " + field + "Lsb == other." + field + "Lsb");
+                    hashes.add("Long.hashCode(" + field + "Msb ^ " + field + "Lsb)");
+                }
+                case INTEGER, BOOLEAN -> {
+                    comparisons.add(field + " == other." + field);
+                    hashes.add((property.kind() == Kind.INTEGER ? "Long" : "Boolean") + ".hashCode(" + field + ")");
+                }
+                case NUMBER -> {
+                    comparisons.add("Double.compare(" + field + ", other." + field + ") == 0");
+                    hashes.add("Double.hashCode(" + field + ")");
+                }
+                case STRINGS, UUIDS -> {
+                    comparisons.add("Arrays.equals(" + field + ", other." + field + ")");
+                    hashes.add("Arrays.hashCode(" + field + ")");
+                }
+            }
+        }
+        javaCode.append("    @Override\n");
+        javaCode.append("    public boolean equals(Object o) {\n");
+        javaCode.append("        if (o == this) {\n");
+        javaCode.append("            return true;\n");
+        javaCode.append("        }\n");
+        javaCode.append("        if (!(o instanceof ").append(className).append(" other)) {\n");
+        javaCode.append("            return false;\n");
+        javaCode.append("        }\n");
+        javaCode.append("        return ").append(String.join("\n                && ", comparisons)).append(";\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    @Override\n");
+        javaCode.append("    public int hashCode() {\n");
+        javaCode.append("        int result = ").append(hashes.get(0)).append(";\n");
+        for (String hash : hashes.subList(1, hashes.size())) {
+            javaCode.append("        result = 31 * result + ").append(hash).append(";\n");
+        }
+        javaCode.append("        return result;\n");
+        javaCode.append("    }\n");
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+
+    private static String generateRegistry(List<String> classNames) {
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonParser;\n");
+        javaCode.append("import java.io.IOException;\n");
+        javaCode.append("import java.util.Map;\n");
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * The compact models and their schema types.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.CompactModelGenerator\")\n");
+        javaCode.append("public final class CompactModels {\n");
+        javaCode.append("    public static final Map<Class<?>, String> SCHEMA_TYPES = Map.ofEntries(");
+        for (int i = 0; i < classNames.size(); i++) {
+            javaCode.append(i == 0 ? "\n" : ",\n").append("            Map.entry(").append(classNames.get(i)).append(".class, ")
+                    .append(classNames.get(i)).append(".SCHEMA_TYPE)");
+        }
+        javaCode.append(");\n\n");
+        javaCode.append("    private CompactModels() {\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    public static Object read(Class<?> modelClass, JsonParser parser) throws IOException {\n");
+        for (String className : classNames) {
+            javaCode.append("        if (modelClass == ").append(className).append(".class) {\n");
+            javaCode.append("            return ").append(className).append(".read(parser);\n");
+            javaCode.append("        }\n");
+        }
+        javaCode.append("        throw new IllegalArgumentException(\"Not a compact model: \" + modelClass.getName());\n");
+        javaCode.append("    }\n");
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+
+    private static Kind kind(Path schemaFile, String name, JsonNode property) {
+        String type = property.path("type").asText();
+        boolean uuid = property.path("format").asText().equals("uuid");
+        switch (type) {
+            case "string":
+                return uuid ? Kind.UUID : Kind.STRING;
+            case "integer":
+                return Kind.INTEGER;
+            case "number":
+                return Kind.NUMBER;
+            case "boolean":
+                return Kind.BOOLEAN;
+            case "array":
+                JsonNode items = property.path("items");
+                if (items.path("type").asText().equals("string")) {
+                    return items.path("format").asText().equals("uuid") ? Kind.UUIDS : Kind.STRINGS;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Unsupported property " + name + " in " + schemaFile + ": " + property);
+    }
+
+    private static String camelCase(String schemaType) {
+        StringBuilder camelCase = new StringBuilder();
+        for (String part : schemaType.split("[^A-Za-z0-9]+")) {
+            if (!part.isEmpty()) {
+                camelCase.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+        return camelCase.toString();
+    }
+
+    private enum Kind {
+        STRING, UUID, INTEGER, NUMBER, BOOLEAN, STRINGS, UUIDS
+    }
+
+    private record Property(String name, Kind kind, boolean required, int index) {
+        String field() {
+            String field = name.replaceAll("[^A-Za-z0-9_]", "_");
+            return Character.isJavaIdentifierStart(field.charAt(0)) ? field : "_" + field;
+        }
+
+        String bit() {
+            return "HAS_" + field().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+        }
+    }
+}
@@ -1,34 +1,51 @@
 package com.example;
 
 
+import com.example.engine.SchemaTypeMapping;
+import com.example.engine.generated.codec.ModelsModule;
+import com.example.engine.generated.compact.CompactModels;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.generated.json.Aggregator;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 public class EngineService {
-    private static final Map<String, Object> UUID_TO_TYPED_INSTANCE = Aggregator.UUID_TO_TYPED_INSTANCE;
-    private static final Map<String, String> UUID_TO_SCHEMA_TYPE = Aggregator.UUID_TO_SCHEMA_TYPE;
-    private static final Map<String, Set<String>> CAR_UUID_TO_ENGINE_UUIDS = Aggregator.CAR_UUID_TO_ENGINE_UUIDS;
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final List<JsonNode> INSTANCES = Aggregator.INSTANCES;
+    private static final List<String> SCHEMA_TYPES = Aggregator.SCHEMA_TYPES;
+    private static final List<int[]> CAR_ENGINE_IDS = Aggregator.CAR_ENGINE_IDS;
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new ModelsModule());
 
     public static <T> Optional<T> getEngineForCar(String carUuid, Class<T> engineClass) {
-        Set<String> engineUuids = CAR_UUID_TO_ENGINE_UUIDS.getOrDefault(carUuid, new HashSet<>());
-        String schemaType = engineClass.getSimpleName().toLowerCase().replace("engine", "");
-        Set<String> matchingEngineUuids = engineUuids.stream()
-                .filter(uuid -> UUID_TO_SCHEMA_TYPE.getOrDefault(uuid, "").equals(schemaType))
-                .collect(Collectors.toSet());
+        String schemaType = SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.get(engineClass);
+        int carId = Aggregator.id(carUuid);
+        int[] engineIds = carId < 0 || CAR_ENGINE_IDS.get(carId) == null ? new int[0] : CAR_ENGINE_IDS.get(carId);
 
-        if (matchingEngineUuids.size() > 1) {
+        int first = -1;
+        int matches = 0;
+        for (int engineId : engineIds) {
+            if (SCHEMA_TYPES.get(engineId).equals(schemaType)) {
+                first = matches++ == 0 ? engineId : first;
+            }
+        }
+
+        if (matches > 1) {
             System.err.println("Warning: Multiple " + schemaType + " instances found for Car UUID: " + carUuid + "; selecting first");
         }
+        if (first < 0) {
+            return Optional.empty();
+        }
 
-        return matchingEngineUuids.stream()
-                .map(uuid -> (T) UUID_TO_TYPED_INSTANCE.get(uuid))
-                .findFirst();
+        try {
+            // Compact models read the tree's tokens themselves rather than through databind
+            if (CompactModels.SCHEMA_TYPES.containsKey(engineClass)) {
+                return Optional.of(engineClass.cast(CompactModels.read(engineClass, INSTANCES.get(first).traverse())));
+            }
+            return Optional.of(mapper.treeToValue(INSTANCES.get(first), engineClass));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert " + schemaType + " instance for Car UUID: " + carUuid, e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,34 @@
 package com.example;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+import com.example.engine.PackedTable;
+import com.example.engine.UuidIndex;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ScanResult;
@@ -19,47 +37,153 @@ public class JsonToJavaGenerator {
 
     private static final ObjectMapper mapper = new ObjectMapper();
     private static final String TARGET_PACKAGE = "com.example.generated.json";
+    // Target instances per Aggregator shard, and the most one may hold
+    private static final int SHARD_SIZE = 512;
+    private static final int MAX_SHARD_SIZE = 2048;
+    private static final String MANIFEST_FILE = "generator-manifest.json";
+    // Bump whenever the generated code changes, so classes from an older generator are rewritten
+    private static final int MANIFEST_VERSION = 5;
+    // Statements per generated tree-building method, far below the JVM's 64 KB limit on a method
+    private static final int TREE_STATEMENTS_PER_METHOD = 1000;
+    /**
+     * Where the instance snapshot is written, relative to the resources directory, and read from
+     * the class path.
+     */
+    public static final String SNAPSHOT_RESOURCE = "generated/catalog.smile";
 
     public static void main(String[] args) throws Exception {
-        Path targetDir = args.length > 0 ? Paths.get(args[0]) : Paths.get("src/main/java/com/example/generated/json");
+        // "--full" regenerates every class instead of only those whose resource changed, and
+        // "--snapshot" writes the instances to src/main/resources rather than into the classes
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean incremental = !arguments.remove("--full");
+        Path resourcesDir = arguments.remove("--snapshot") ? Paths.get("src/main/resources") : null;
+        Path targetDir = !arguments.isEmpty() ? Paths.get(arguments.get(0)) : Paths.get("src/main/java/com/example/generated/json");
+        generate(JsonToJavaGenerator.class.getClassLoader(), targetDir, incremental, resourcesDir);
+    }
+
+    /**
+     * Generates a class per schema and instance document found under {@code /schemas} and
+     * {@code /instances} in {@code resources}, plus the Aggregator, into {@code targetDir}.
+     */
+    public static void generate(ClassLoader resources, Path targetDir) throws Exception {
+        generate(resources, targetDir, true);
+    }
+
+    /**
+     * Like {@link #generate(ClassLoader, Path)}. Classes are generated in parallel, and
+     * {@value #MANIFEST_FILE} in {@code targetDir} records a content hash per generated class.
+     * When {@code incremental}, a class whose resource hash is unchanged is not rewritten, and the
+     * Aggregator and its shards are only rewritten when the instances they index change, so their
+     * timestamps stay put and the compiler has nothing to rebuild. Either way, classes of resources that no longer
+     * exist are deleted.
+     */
+    public static void generate(ClassLoader resources, Path targetDir, boolean incremental) throws Exception {
+        generate(resources, targetDir, incremental, null);
+    }
+
+    /**
+     * Like {@link #generate(ClassLoader, Path, boolean)}, but if {@code resourcesDir} is not null
+     * the instances are not embedded in the generated classes. They are written, in Aggregator id
+     * order, as one Smile-encoded array to {@value #SNAPSHOT_RESOURCE} under {@code resourcesDir},
+     * which the Aggregator reads in a single pass the first time an instance is needed. Smile
+     * writes each field name and repeated short value once, so the snapshot is a fraction of the
+     * escaped string constants' size, and reading it skips building the UTF-16 strings and
+     * parsing text.
+     */
+    public static void generate(ClassLoader resources, Path targetDir, boolean incremental, Path resourcesDir) throws Exception {
         Files.createDirectories(targetDir);
+        Path manifestFile = targetDir.resolve(MANIFEST_FILE);
+        Manifest previous = readManifest(manifestFile);
+        boolean snapshot = resourcesDir != null;
+        // Switching between embedding and the snapshot changes every instance class
+        incremental &= previous.snapshot() == snapshot;
 
         List<String> jsonPaths = new ArrayList<>();
-        try (ScanResult scanResult = new ClassGraph().acceptPaths("/schemas", "/instances").enableAllInfo().scan()) {
+        try (ScanResult scanResult = new ClassGraph().overrideClassLoaders(resources).acceptPaths("/schemas", "/instances").enableAllInfo().scan()) {
             scanResult.getResourcesWithExtension("json").forEach(resource -> {
                 jsonPaths.add(resource.getPath());
             });
         }
+        // Path order rather than scan order, so the Aggregator's ids do not depend on the class path
+        jsonPaths.sort(null);
 
-        List<String> generatedClasses = new ArrayList<>();
+        // An ordered parallel stream keeps results in path order, whichever thread finishes first
+        Map<String, String> previousClasses = incremental ? previous.classes() : Map.of();
+        List<GeneratedClass> generatedClasses = jsonPaths.parallelStream()
+                .map(jsonPath -> generateJavaClass(resources, jsonPath, targetDir, previousClasses,
+                        !(snapshot && jsonPath.startsWith("instances/"))))
+                .filter(Objects::nonNull)
+                .toList();
+
+        Map<String, String> classes = new TreeMap<>();
+        // Instance documents only, in path order
+        List<InstanceClass> instanceClasses = new ArrayList<>();
+        int written = 0;
+        for (GeneratedClass generated : generatedClasses) {
+            classes.put(generated.className(), generated.hash());
+            written += generated.written() ? 1 : 0;
+            if (generated.jsonPath().startsWith("instances/")) {
+                String fileName = generated.jsonPath().substring(generated.jsonPath().lastIndexOf('/') + 1);
+                instanceClasses.add(new InstanceClass(generated.className(), fileName.substring(0, fileName.lastIndexOf('-')),
+                        generated.document()));
+            }
+        }
 
-        for (String jsonPath : jsonPaths) {
-            String className = generateJavaClass(jsonPath, targetDir);
-            if (className != null) {
-                generatedClasses.add(className);
+        int removed = 0;
+        for (String className : previous.classes().keySet()) {
+            if (!classes.containsKey(className) && Files.deleteIfExists(targetDir.resolve(className + ".java"))) {
+                System.out.println("Removed: " + targetDir.resolve(className + ".java"));
+                removed++;
             }
         }
 
-        generateAggregator(targetDir, generatedClasses);
+        String aggregatorHash = aggregatorHash(instanceClasses);
+        boolean aggregatorChanged = !incremental || !aggregatorHash.equals(previous.aggregator())
+                || !Files.exists(targetDir.resolve("Aggregator.java"));
+        if (aggregatorChanged) {
+            generateAggregator(targetDir, instanceClasses, snapshot);
+        }
+        // Any edit to an instance changes the snapshot, not just those the Aggregator hash covers
+        if (snapshot) {
+            writeSnapshot(resourcesDir.resolve(SNAPSHOT_RESOURCE), instanceClasses);
+        }
+        Files.write(manifestFile, mapper.writeValueAsBytes(new Manifest(MANIFEST_VERSION, classes, aggregatorHash, snapshot)));
 
-        System.out.println("Generated " + jsonPaths.size() + " Java classes with embedded JSON in " + targetDir + ". Aggregator generated.");
+        System.out.println("Generated " + written + " of " + generatedClasses.size() + " Java classes" + (snapshot ? "" : " with embedded JSON")
+                + " in " + targetDir
+                + " (" + (generatedClasses.size() - written) + " unchanged, " + removed + " removed). Aggregator "
+                + (aggregatorChanged ? "generated." : "unchanged."));
     }
 
-    private static String generateJavaClass(String jsonPath, Path targetDir) throws Exception {
+    /**
+     * Generates the class for one resource, or only parses it if {@code previousClasses} records
+     * the same content hash and the class still exists. The class holds the document as a
+     * {@code JSON} constant if {@code embedJson}; an instance's class then also gets a
+     * {@code tree()} method building the document, which the Aggregator uses instead of parsing
+     * the constant. Returns null if the resource is unreadable.
+     */
+    private static GeneratedClass generateJavaClass(ClassLoader resources, String jsonPath, Path targetDir,
+                                                    Map<String, String> previousClasses, boolean embedJson) {
         // Sanitize class name from path
         String className = jsonPath.replaceAll("[/.-]", "_").replaceAll("^_", "");
         className = Character.toUpperCase(className.charAt(0)) + className.substring(1);
 
         // Read JSON content
-        try (InputStream is = JsonToJavaGenerator.class.getClassLoader().getResourceAsStream(jsonPath)) {
+        try (InputStream is = resources.getResourceAsStream(jsonPath)) {
             if (is == null) {
                 throw new IOException("Resource not found: " + jsonPath);
             }
-            String jsonContent = new Scanner(is, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
-            jsonContent = jsonContent.replace("\"", "\\\"").replace("\n", "\\n");
+            byte[] content = is.readAllBytes();
+            String hash = hash(content);
+            String jsonContent = new String(content, StandardCharsets.UTF_8);
 
-            // Parse JSON to extract fields for POJO constants
+            // Parse JSON to extract fields for POJO constants, before escaping it for the JSON constant
             JsonNode instance = mapper.readTree(jsonContent);
+            Path javaFile = targetDir.resolve(className + ".java");
+            if (hash.equals(previousClasses.get(className)) && Files.exists(javaFile)) {
+                return new GeneratedClass(jsonPath, className, hash, instance, false);
+            }
+            jsonContent = jsonContent.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "").replace("\n", "\\n");
             StringBuilder fieldsCode = new StringBuilder();
             instance.fields().forEachRemaining(field -> {
                 String fieldName = field.getKey().toUpperCase().replace("-", "_");
@@ -105,24 +229,140 @@ public class JsonToJavaGenerator {
             });
 
             // Generate Java code
+            boolean buildTree = embedJson && jsonPath.startsWith("instances/");
             StringBuilder javaCode = new StringBuilder();
             javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+            if (buildTree) {
+                javaCode.append("import com.fasterxml.jackson.databind.JsonNode;\n");
+                javaCode.append("import com.fasterxml.jackson.databind.node.ArrayNode;\n");
+                javaCode.append("import com.fasterxml.jackson.databind.node.JsonNodeFactory;\n");
+                javaCode.append("import com.fasterxml.jackson.databind.node.ObjectNode;\n\n");
+            }
             javaCode.append("public class ").append(className).append(" {\n");
-            javaCode.append("    public static final String JSON = \"").append(jsonContent).append("\";\n\n");
+            if (embedJson) {
+                javaCode.append("    public static final String JSON = \"").append(jsonContent).append("\";\n\n");
+            }
             javaCode.append(fieldsCode);
+            if (buildTree) {
+                appendTree(javaCode, instance);
+            }
             javaCode.append("}\n");
 
             // Write to file
-            Path javaFile = targetDir.resolve(className + ".java");
             Files.writeString(javaFile, javaCode.toString());
             System.out.println("Generated: " + javaFile);
-            return className;
+            return new GeneratedClass(jsonPath, className, hash, instance, true);
         } catch (IOException e) {
             System.err.println("Failed to generate class for " + jsonPath + ": " + e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Appends {@code tree()}, which builds {@code document} with {@link JsonNodeFactory} calls, so
+     * the Aggregator has the instance without parsing JSON at run time. Containers are kept in
+     * {@code objects} and {@code arrays} rather than locals, so a large document's statements can
+     * be split over as many methods as it needs.
+     */
+    private static void appendTree(StringBuilder javaCode, JsonNode document) {
+        List<String> statements = new ArrayList<>();
+        int[] counts = new int[2];
+        String root = appendContainer(document, "JsonNodeFactory.instance." + (document.isArray() ? "arrayNode()" : "objectNode()"),
+                counts, statements);
+        int methods = (statements.size() + TREE_STATEMENTS_PER_METHOD - 1) / TREE_STATEMENTS_PER_METHOD;
+        javaCode.append("\n");
+        javaCode.append("    // Builds the document JSON holds, without parsing it; the Aggregator calls this when the instance is first needed\n");
+        javaCode.append("    static JsonNode tree() {\n");
+        javaCode.append("        ObjectNode[] objects = new ObjectNode[").append(counts[0]).append("];\n");
+        javaCode.append("        ArrayNode[] arrays = new ArrayNode[").append(counts[1]).append("];\n");
+        for (int method = 0; method < methods; method++) {
+            javaCode.append("        tree").append(method).append("(objects, arrays);\n");
+        }
+        javaCode.append("        return ").append(root).append(";\n");
+        javaCode.append("    }\n");
+        for (int method = 0; method < methods; method++) {
+            javaCode.append("\n");
+            javaCode.append("    private static void tree").append(method).append("(ObjectNode[] objects, ArrayNode[] arrays) {\n");
+            for (String statement : statements.subList(method * TREE_STATEMENTS_PER_METHOD,
+                    Math.min(statements.size(), (method + 1) * TREE_STATEMENTS_PER_METHOD))) {
+                javaCode.append("        ").append(statement).append("\n");
+            }
+            javaCode.append("    }\n");
+        }
+    }
+
+    /**
+     * Adds the statements creating {@code container} with {@code creation} and filling it, and
+     * returns the element of {@code objects} or {@code arrays} holding it.
+     */
+    private static String appendContainer(JsonNode container, String creation, int[] counts, List<String> statements) {
+        String variable = container.isArray() ? "arrays[" + counts[1]++ + "]" : "objects[" + counts[0]++ + "]";
+        statements.add(variable + " = " + creation + ";");
+        if (container.isArray()) {
+            container.forEach(element -> appendValue(variable, null, element, counts, statements));
+        } else {
+            container.fields().forEachRemaining(field -> appendValue(variable, field.getKey(), field.getValue(), counts, statements));
+        }
+        return variable;
+    }
+
+    /**
+     * Adds the statements putting {@code value} into {@code container} under {@code key}, or
+     * adding it to the array {@code container} if {@code key} is null.
+     */
+    private static void appendValue(String container, String key, JsonNode value, int[] counts, List<String> statements) {
+        String keyArgument = key == null ? "" : javaString(key);
+        if (value.isContainerNode()) {
+            String method = (key == null ? ".add" : ".put") + (value.isArray() ? "Array(" : "Object(");
+            appendContainer(value, container + method + keyArgument + ")", counts, statements);
+        } else if (value.isNull()) {
+            statements.add(container + (key == null ? ".addNull(" : ".putNull(") + keyArgument + ");");
+        } else {
+            statements.add(container + (key == null ? ".add(" : ".put(" + keyArgument + ", ") + literal(value) + ");");
+        }
+    }
+
+    /**
+     * Returns the Java expression for a scalar, typed so that the node built from it equals the
+     * one Jackson parses.
+     */
+    private static String literal(JsonNode value) {
+        if (value.isTextual()) {
+            return javaString(value.textValue());
+        } else if (value.isBoolean()) {
+            return String.valueOf(value.booleanValue());
+        } else if (value.isInt()) {
+            return String.valueOf(value.intValue());
+        } else if (value.isLong()) {
+            return value.longValue() + "L";
+        } else if (value.isBigInteger()) {
+            return "new java.math.BigInteger(\"" + value.bigIntegerValue() + "\")";
+        } else if (value.isBigDecimal()) {
+            return "new java.math.BigDecimal(\"" + value.decimalValue() + "\")";
+        } else if (value.isFloat()) {
+            return value.floatValue() + "f";
+        } else if (value.isDouble()) {
+            return String.valueOf(value.doubleValue());
+        }
+        throw new IllegalArgumentException("Unsupported JSON value: " + value.getNodeType());
+    }
+
+    private static String javaString(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                // Octal rather than a unicode escape, which javac would translate before lexing the literal
+                default -> literal.append(c < 0x20 ? String.format("\\%03o", (int) c) : String.valueOf(c));
+            }
+        }
+        return literal.append('"').toString();
+    }
+
     private static String generateSubClassCode(String subClassName, JsonNode objectNode) {
         StringBuilder subCode = new StringBuilder();
         subCode.append("    public static class ").append(subClassName).append(" {\n");
@@ -172,55 +412,396 @@ public class JsonToJavaGenerator {
         return "Object";
     }
 
-    private static void generateAggregator(Path targetDir, List<String> generatedClasses) throws Exception {
+    /**
+     * Generates the Aggregator and its shards. Every table it needs is computed here, at build
+     * time, and packed into string constants with {@link PackedTable}: per id the UUID, the schema
+     * type, the shard that builds it and, for cars, the engine ids. Class initialization therefore
+     * only unpacks numbers. An embedded instance's tree is built on first access by its class's
+     * generated {@code tree()} method, which allocates the nodes directly instead of parsing JSON.
+     */
+    private static void generateAggregator(Path targetDir, List<InstanceClass> instanceClasses, boolean snapshot) throws Exception {
+        UuidIndex index = new UuidIndex(instanceClasses.size());
+        List<InstanceClass> byId = assignIds(instanceClasses, index);
+
+        int size = byId.size();
+        long[] uuids = new long[2 * size];
+        List<String> schemaTypeNames = new ArrayList<>();
+        int[] schemaTypes = new int[size];
+        int[] carEngineOffsets = new int[size + 1];
+        List<Integer> carEngines = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            InstanceClass instanceClass = byId.get(id);
+            uuids[2 * id] = index.mostSignificantBits(id);
+            uuids[2 * id + 1] = index.leastSignificantBits(id);
+            if (!schemaTypeNames.contains(instanceClass.schemaType())) {
+                schemaTypeNames.add(instanceClass.schemaType());
+            }
+            schemaTypes[id] = schemaTypeNames.indexOf(instanceClass.schemaType());
+
+            // Resolved once every instance has an id, so cars can reference engines declared after them
+            if (instanceClass.schemaType().startsWith("car-")) {
+                engineRefs(instanceClass.document()).stream()
+                        .mapToInt(index::get)
+                        .filter(engineId -> engineId >= 0)
+                        .distinct()
+                        .forEach(carEngines::add);
+            }
+            carEngineOffsets[id + 1] = carEngines.size();
+        }
+
+        // Shards group instances by schema type, then by UUID hash bucket, and each shard's JSON
+        // constants live in its own holder class; a lookup only loads the shards it touches, and
+        // no class or method grows with the size of the catalog. With a snapshot there are none
+        Map<String, List<Integer>> idsByType = new LinkedHashMap<>();
+        if (!snapshot) {
+            for (int id = 0; id < size; id++) {
+                idsByType.computeIfAbsent(byId.get(id).schemaType(), k -> new ArrayList<>()).add(id);
+            }
+        }
+        List<Shard> shards = new ArrayList<>();
+        int[] locations = new int[size];
+        for (Map.Entry<String, List<Integer>> entry : idsByType.entrySet()) {
+            int buckets = (entry.getValue().size() + SHARD_SIZE - 1) / SHARD_SIZE;
+            List<List<Integer>> bucketIds = new ArrayList<>();
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                bucketIds.add(new ArrayList<>());
+            }
+            for (int id : entry.getValue()) {
+                bucketIds.get(Math.floorMod(index.uuid(id).hashCode(), buckets)).add(id);
+            }
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                // An unlucky bucket is split rather than allowed to outgrow a method
+                List<Integer> ids = bucketIds.get(bucket);
+                for (int part = 0; part * MAX_SHARD_SIZE < ids.size(); part++) {
+                    List<Integer> shardIds = ids.subList(part * MAX_SHARD_SIZE, Math.min(ids.size(), (part + 1) * MAX_SHARD_SIZE));
+                    String shardClass = "AggregatorShard_" + entry.getKey().replaceAll("[^A-Za-z0-9]", "_") + "_" + bucket
+                            + (part > 0 ? "_" + part : "");
+                    for (int local = 0; local < shardIds.size(); local++) {
+                        locations[shardIds.get(local)] = shards.size() << 16 | local;
+                    }
+                    shards.add(new Shard(shardClass, shardIds));
+                }
+            }
+        }
+        generateShards(targetDir, shards, byId);
+
         StringBuilder javaCode = new StringBuilder();
         javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        javaCode.append("import com.example.engine.PackedTable;\n");
+        javaCode.append("import com.example.engine.UuidIndex;\n");
+        javaCode.append("import com.example.engine.ValuePool;\n");
         javaCode.append("import com.fasterxml.jackson.databind.JsonNode;\n");
-        javaCode.append("import com.fasterxml.jackson.databind.ObjectMapper;\n");
-        javaCode.append("import java.util.HashMap;\n");
-        javaCode.append("import java.util.HashSet;\n");
-        javaCode.append("import java.util.Map;\n");
-        javaCode.append("import java.util.Set;\n");
-        javaCode.append("import java.util.stream.StreamSupport;\n\n");
+        if (snapshot) {
+            javaCode.append("import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;\n");
+            javaCode.append("import java.io.IOException;\n");
+            javaCode.append("import java.io.InputStream;\n");
+            javaCode.append("import java.io.UncheckedIOException;\n");
+            javaCode.append("import java.util.ArrayList;\n");
+        }
+        javaCode.append("import java.util.AbstractList;\n");
+        javaCode.append("import java.util.Arrays;\n");
+        javaCode.append("import java.util.Collections;\n");
+        javaCode.append("import java.util.List;\n");
+        javaCode.append("import java.util.Objects;\n");
+        javaCode.append("import java.util.UUID;\n");
+        if (!snapshot) {
+            javaCode.append("import java.util.concurrent.atomic.AtomicReferenceArray;\n");
+        }
+        javaCode.append("\n");
         javaCode.append("public class Aggregator {\n");
-        javaCode.append("    public static final Map<String, JsonNode> UUID_TO_INSTANCE = new HashMap<>();\n");
-        javaCode.append("    public static final Map<String, String> UUID_TO_SCHEMA_TYPE = new HashMap<>();\n");
-        javaCode.append("    public static final Map<String, Set<String>> CAR_UUID_TO_ENGINE_UUIDS = new HashMap<>();\n");
-        javaCode.append("    private static final ObjectMapper mapper = new ObjectMapper();\n\n");
+        javaCode.append("    private static final int SIZE = ").append(size).append(";\n");
+        javaCode.append("    // Tables computed by JsonToJavaGenerator and packed as hex by PackedTable\n");
+        appendTable(javaCode, "SCHEMA_TYPE_NAMES", schemaTypeNames);
+        appendTable(javaCode, "UUID_TABLE", PackedTable.pack(uuids, 16));
+        appendTable(javaCode, "SCHEMA_TYPE_TABLE", PackedTable.pack(schemaTypes, 4));
+        appendTable(javaCode, "CAR_ENGINE_OFFSETS", PackedTable.pack(carEngineOffsets, 8));
+        appendTable(javaCode, "CAR_ENGINE_TABLE", PackedTable.pack(carEngines.stream().mapToInt(Integer::intValue).toArray(), 8));
+        if (!snapshot) {
+            // Per id, the shard number in the high 16 bits and the index within the shard in the low 16
+            appendTable(javaCode, "LOCATION_TABLE", PackedTable.pack(locations, 8));
+            javaCode.append("    private static final int[] LOCATIONS = PackedTable.unpackInts(LOCATION_TABLE, 8, SIZE);\n");
+        }
+        javaCode.append("\n");
+        javaCode.append("    // Instances are addressed by the dense int ids UUID_INDEX assigns; the lists below are indexed by id.\n");
+        javaCode.append("    // Private, so nothing can add ids that the lists do not have\n");
+        javaCode.append("    private static final UuidIndex UUID_INDEX = new UuidIndex(SIZE);\n");
+        if (snapshot) {
+            javaCode.append("    // Read from the catalog snapshot, all at once, on first access\n");
+            javaCode.append("    public static final List<JsonNode> INSTANCES = new SnapshotInstances();\n");
+        } else {
+            javaCode.append("    // Built by the instance's generated code on first access, without parsing JSON\n");
+            javaCode.append("    public static final List<JsonNode> INSTANCES = new LazyInstances();\n");
+        }
+        javaCode.append("    public static final List<String> SCHEMA_TYPES;\n");
+        javaCode.append("    // Engine ids for car instances, null for every other instance\n");
+        javaCode.append("    public static final List<int[]> CAR_ENGINE_IDS;\n");
+        javaCode.append("\n");
         javaCode.append("    static {\n");
+        javaCode.append("        long[] uuids = PackedTable.unpackLongs(UUID_TABLE, 16, 2 * SIZE);\n");
+        javaCode.append("        int[] types = PackedTable.unpackInts(SCHEMA_TYPE_TABLE, 4, SIZE);\n");
+        javaCode.append("        int[] offsets = PackedTable.unpackInts(CAR_ENGINE_OFFSETS, 8, SIZE + 1);\n");
+        javaCode.append("        int[] engines = PackedTable.unpackInts(CAR_ENGINE_TABLE, 8, offsets[SIZE]);\n");
+        javaCode.append("        String[] schemaTypes = new String[SIZE];\n");
+        javaCode.append("        int[][] carEngineIds = new int[SIZE][];\n");
+        javaCode.append("        for (int id = 0; id < SIZE; id++) {\n");
+        javaCode.append("            UUID_INDEX.add(uuids[2 * id], uuids[2 * id + 1]);\n");
+        javaCode.append("            schemaTypes[id] = SCHEMA_TYPE_NAMES[types[id]];\n");
+        javaCode.append("            if (schemaTypes[id].startsWith(\"car-\")) {\n");
+        javaCode.append("                carEngineIds[id] = Arrays.copyOfRange(engines, offsets[id], offsets[id + 1]);\n");
+        javaCode.append("            }\n");
+        javaCode.append("        }\n");
+        javaCode.append("        SCHEMA_TYPES = List.of(schemaTypes);\n");
+        javaCode.append("        CAR_ENGINE_IDS = Collections.unmodifiableList(Arrays.asList(carEngineIds));\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    /**\n");
+        javaCode.append("     * Returns the id of the instance with the given UUID, or -1 if there is none.\n");
+        javaCode.append("     */\n");
+        javaCode.append("    public static int id(String uuid) {\n");
+        javaCode.append("        return UUID_INDEX.get(uuid);\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    public static int id(UUID uuid) {\n");
+        javaCode.append("        return UUID_INDEX.get(uuid);\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    public static UUID uuid(int id) {\n");
+        javaCode.append("        return UUID_INDEX.uuid(id);\n");
+        javaCode.append("    }\n\n");
+        if (snapshot) {
+            appendSnapshotInstances(javaCode);
+        } else {
+            appendLazyInstances(javaCode, shards);
+        }
+        javaCode.append("}\n");
+
+        Path aggregatorFile = targetDir.resolve("Aggregator.java");
+        if (writeIfChanged(aggregatorFile, javaCode.toString())) {
+            System.out.println("Generated Aggregator: " + aggregatorFile);
+        }
+    }
 
-        // Load all generated classes
-        for (String className : generatedClasses) {
-            javaCode.append("        loadInstance(").append(className).append(".JSON);\n");
+    private static void appendLazyInstances(StringBuilder javaCode, List<Shard> shards) {
+        javaCode.append("    private static final class LazyInstances extends AbstractList<JsonNode> {\n");
+        javaCode.append("        private final AtomicReferenceArray<JsonNode> built = new AtomicReferenceArray<>(SIZE);\n\n");
+        javaCode.append("        @Override\n");
+        javaCode.append("        public JsonNode get(int id) {\n");
+        javaCode.append("            JsonNode instance = built.get(Objects.checkIndex(id, SIZE));\n");
+        javaCode.append("            if (instance == null) {\n");
+        javaCode.append("                // Instances are kept once built, so their repeating values come from the catalog's pool\n");
+        javaCode.append("                instance = ValuePool.CATALOG.values(tree(id));\n");
+        javaCode.append("                // Threads racing on a first access keep whichever tree won\n");
+        javaCode.append("                if (!built.compareAndSet(id, null, instance)) {\n");
+        javaCode.append("                    instance = built.get(id);\n");
+        javaCode.append("                }\n");
+        javaCode.append("            }\n");
+        javaCode.append("            return instance;\n");
+        javaCode.append("        }\n\n");
+        javaCode.append("        @Override\n");
+        javaCode.append("        public int size() {\n");
+        javaCode.append("            return SIZE;\n");
+        javaCode.append("        }\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    private static JsonNode tree(int id) {\n");
+        javaCode.append("        int local = LOCATIONS[id] & 0xFFFF;\n");
+        javaCode.append("        switch (LOCATIONS[id] >>> 16) {\n");
+        for (int shard = 0; shard < shards.size(); shard++) {
+            javaCode.append("            case ").append(shard).append(": return ").append(shards.get(shard).className()).append(".tree(local);\n");
         }
+        javaCode.append("        }\n");
+        javaCode.append("        throw new IndexOutOfBoundsException(id);\n");
+        javaCode.append("    }\n");
+    }
 
+    private static void appendSnapshotInstances(StringBuilder javaCode) {
+        javaCode.append("    private static final class SnapshotInstances extends AbstractList<JsonNode> {\n");
+        javaCode.append("        @Override\n");
+        javaCode.append("        public JsonNode get(int id) {\n");
+        javaCode.append("            return Snapshot.DOCUMENTS.get(Objects.checkIndex(id, SIZE));\n");
+        javaCode.append("        }\n\n");
+        javaCode.append("        @Override\n");
+        javaCode.append("        public int size() {\n");
+        javaCode.append("            return SIZE;\n");
+        javaCode.append("        }\n");
         javaCode.append("    }\n\n");
-        javaCode.append("    private static void loadInstance(String json) {\n");
-        javaCode.append("        try {\n");
-        javaCode.append("            JsonNode instance = mapper.readTree(json);\n");
-        javaCode.append("            String uuid = instance.path(\"uuid\").asText();\n");
-        javaCode.append("            if (uuid.isEmpty()) return;\n");
-        javaCode.append("            UUID_TO_INSTANCE.put(uuid, instance);\n");
-        javaCode.append("            String schemaType = uuid.split(\":\")[0];\n");
-        javaCode.append("            UUID_TO_SCHEMA_TYPE.put(uuid, schemaType);\n");
-        javaCode.append("            if (schemaType.equals(\"car\")) {\n");
-        javaCode.append("                JsonNode rels = instance.path(\"engineRelationships\");\n");
-        javaCode.append("                Set<String> engineUuids = new HashSet<>();\n");
-        javaCode.append("                if (rels.isArray()) {\n");
-        javaCode.append("                    StreamSupport.stream(rels.spliterator(), false).forEach(rel -> {\n");
-        javaCode.append("                        engineUuids.add(rel.path(\"engineUuid\").asText());\n");
-        javaCode.append("                    });\n");
+        javaCode.append("    // Initialized, and the snapshot read, when the first instance is needed rather than with the Aggregator\n");
+        javaCode.append("    private static final class Snapshot {\n");
+        javaCode.append("        static final List<JsonNode> DOCUMENTS = read();\n\n");
+        javaCode.append("        private static List<JsonNode> read() {\n");
+        javaCode.append("            try (InputStream is = Aggregator.class.getResourceAsStream(\"/").append(SNAPSHOT_RESOURCE).append("\")) {\n");
+        javaCode.append("                if (is == null) {\n");
+        javaCode.append("                    throw new IllegalStateException(\"Catalog snapshot not found: ").append(SNAPSHOT_RESOURCE).append("\");\n");
+        javaCode.append("                }\n");
+        javaCode.append("                JsonNode documents = new SmileMapper().readTree(is.readAllBytes());\n");
+        javaCode.append("                if (documents.size() != SIZE) {\n");
+        javaCode.append("                    throw new IllegalStateException(\"Catalog snapshot holds \" + documents.size() + \" instances, expected \" + SIZE);\n");
         javaCode.append("                }\n");
-        javaCode.append("                CAR_UUID_TO_ENGINE_UUIDS.put(uuid, engineUuids);\n");
+        javaCode.append("                List<JsonNode> list = new ArrayList<>(SIZE);\n");
+        javaCode.append("                documents.forEach(document -> list.add(ValuePool.CATALOG.values(document)));\n");
+        javaCode.append("                return Collections.unmodifiableList(list);\n");
+        javaCode.append("            } catch (IOException e) {\n");
+        javaCode.append("                throw new UncheckedIOException(\"Failed to read catalog snapshot \" + \"").append(SNAPSHOT_RESOURCE).append("\", e);\n");
         javaCode.append("            }\n");
-        javaCode.append("        } catch (Exception e) {\n");
-        javaCode.append("            e.printStackTrace();\n");
         javaCode.append("        }\n");
         javaCode.append("    }\n");
-        javaCode.append("}\n");
+    }
 
-        Path aggregatorFile = targetDir.resolve("Aggregator.java");
-        Files.writeString(aggregatorFile, javaCode.toString());
-        System.out.println("Generated Aggregator: " + aggregatorFile);
+    /**
+     * Assigns Aggregator ids in first-seen order; a UUID seen again keeps its id and takes the
+     * later document. Returns the instance for each id.
+     */
+    private static List<InstanceClass> assignIds(List<InstanceClass> instanceClasses, UuidIndex index) {
+        List<InstanceClass> byId = new ArrayList<>();
+        for (InstanceClass instanceClass : instanceClasses) {
+            UUID uuid = UuidIndex.parse(instanceClass.document().path("uuid").asText());
+            if (uuid == null) {
+                continue;
+            }
+            int id = index.add(uuid);
+            if (id == byId.size()) {
+                byId.add(instanceClass);
+            } else {
+                byId.set(id, instanceClass);
+            }
+        }
+        return byId;
+    }
+
+    /**
+     * Writes the instance documents, in Aggregator id order, as one Smile array. Field names and
+     * short string values repeat across instances, so both are written once and back-referenced.
+     */
+    private static void writeSnapshot(Path file, List<InstanceClass> instanceClasses) throws IOException {
+        ArrayNode documents = mapper.createArrayNode();
+        assignIds(instanceClasses, new UuidIndex(instanceClasses.size())).forEach(instanceClass -> documents.add(instanceClass.document()));
+        SmileMapper smileMapper = SmileMapper.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+        byte[] content = smileMapper.writeValueAsBytes(documents);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (!Files.exists(file) || !Arrays.equals(Files.readAllBytes(file), content)) {
+            Files.write(file, content);
+            System.out.println("Generated catalog snapshot: " + file + " (" + content.length + " bytes)");
+        }
+    }
+
+    private static void generateShards(Path targetDir, List<Shard> shards, List<InstanceClass> byId) throws IOException {
+        // Shards of an earlier, larger catalog would otherwise still be compiled
+        Set<String> shardFiles = new HashSet<>();
+        shards.forEach(shard -> shardFiles.add(shard.className() + ".java"));
+        try (Stream<Path> files = Files.list(targetDir)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith("AggregatorShard_")).toList()) {
+                if (!shardFiles.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
+            }
+        }
+        int written = 0;
+        for (Shard shard : shards) {
+            StringBuilder javaCode = new StringBuilder();
+            javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+            javaCode.append("import com.fasterxml.jackson.databind.JsonNode;\n\n");
+            javaCode.append("// Builds the instances of one Aggregator shard; loaded when one of them is first needed\n");
+            javaCode.append("final class ").append(shard.className()).append(" {\n");
+            javaCode.append("    private ").append(shard.className()).append("() {\n");
+            javaCode.append("    }\n\n");
+            javaCode.append("    static JsonNode tree(int local) {\n");
+            javaCode.append("        switch (local) {\n");
+            for (int local = 0; local < shard.ids().size(); local++) {
+                javaCode.append("            case ").append(local).append(": return ")
+                        .append(byId.get(shard.ids().get(local)).className()).append(".tree();\n");
+            }
+            javaCode.append("        }\n");
+            javaCode.append("        throw new IndexOutOfBoundsException(local);\n");
+            javaCode.append("    }\n");
+            javaCode.append("}\n");
+            written += writeIfChanged(targetDir.resolve(shard.className() + ".java"), javaCode.toString()) ? 1 : 0;
+        }
+        if (!shards.isEmpty()) {
+            System.out.println("Generated " + written + " of " + shards.size() + " Aggregator shards in " + targetDir);
+        }
+    }
+
+    /**
+     * Writes {@code content} unless the file already holds exactly that, leaving its timestamp alone.
+     */
+    private static boolean writeIfChanged(Path file, String content) throws IOException {
+        if (Files.exists(file) && Files.readString(file).equals(content)) {
+            return false;
+        }
+        Files.writeString(file, content);
+        return true;
+    }
+
+    /**
+     * The engine UUIDs a car document references, in document order.
+     */
+    private static List<String> engineRefs(JsonNode document) {
+        List<String> engineRefs = new ArrayList<>();
+        document.path("engineRelationships").forEach(rel -> engineRefs.add(rel.path("engineUuid").asText()));
+        document.path("engineUuids").forEach(ref -> engineRefs.add(ref.asText()));
+        return engineRefs;
+    }
+
+    /**
+     * Hashes everything the Aggregator and its shards are generated from. Shards only call their
+     * instances' classes, so edits to other fields of an instance leave them alone.
+     */
+    private static String aggregatorHash(List<InstanceClass> instanceClasses) {
+        StringBuilder key = new StringBuilder();
+        for (InstanceClass instanceClass : instanceClasses) {
+            key.append(instanceClass.className()).append(' ').append(instanceClass.schemaType()).append(' ')
+                    .append(instanceClass.document().path("uuid").asText());
+            if (instanceClass.schemaType().startsWith("car-")) {
+                engineRefs(instanceClass.document()).forEach(ref -> key.append(' ').append(ref));
+            }
+            key.append('\n');
+        }
+        // The generator's own version, so a change to the generated code regenerates it
+        return MANIFEST_VERSION + ":" + hash(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Manifest readManifest(Path file) {
+        if (!Files.exists(file)) {
+            return Manifest.EMPTY;
+        }
+        try {
+            Manifest manifest = mapper.readValue(file.toFile(), Manifest.class);
+            return manifest.version() == MANIFEST_VERSION && manifest.classes() != null ? manifest : Manifest.EMPTY;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable generator manifest " + file + ": " + e.getMessage());
+            return Manifest.EMPTY;
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void appendTable(StringBuilder javaCode, String name, List<String> values) {
+        javaCode.append("    private static final String[] ").append(name).append(" = {");
+        for (int i = 0; i < values.size(); i++) {
+            javaCode.append(i == 0 ? "\"" : ", \"").append(values.get(i).replace("\"", "\\\"")).append("\"");
+        }
+        javaCode.append("};\n");
+    }
+
+    /**
+     * {@code written} is false if the class was unchanged and left alone.
+     */
+    private record GeneratedClass(String jsonPath, String className, String hash, JsonNode document, boolean written) {
+    }
+
+    /**
+     * What the last run generated: a content hash per class, keyed by class name, a hash of the
+     * Aggregator's inputs, and whether instances went to the snapshot instead of the classes.
+     */
+    record Manifest(int version, Map<String, String> classes, String aggregator, boolean snapshot) {
+        static final Manifest EMPTY = new Manifest(MANIFEST_VERSION, Map.of(), null, false);
+    }
+
+    private record Shard(String className, List<Integer> ids) {
+    }
+
+    private record InstanceClass(String className, String schemaType, JsonNode document) {
     }
 }
@@ -2,11 +2,15 @@ package com.example;
 
 import com.example.engine.EngineValidation;
 import com.example.engine.EngineService;
+import com.example.engine.ValidationDaemon;
+import com.example.engine.ValidationProfile;
 import com.example.engine.generated.engines.EngineGas;
 import com.example.engine.generated.engines.EngineElectric;
 import com.example.engine.generated.engines.EngineHybrid;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 public class Main {
@@ -14,13 +18,41 @@ public class Main {
         // Check for "validate" argument
         boolean validateOnly = args.length > 0 && args[0].equals("validate");
 
-        if (validateOnly) {
+        if (args.length > 0 && args[0].equals("daemon")) {
+            // "daemon [port]" serves validation requests on the loopback interface until killed
+            try {
+                int port = args.length > 1 ? Integer.parseInt(args[1]) : 8765;
+                ValidationDaemon daemon = ValidationDaemon.start(new File("src/main/resources/schemas"),
+                        new File("src/main/resources/instances"), port);
+                Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+                System.out.println("Validation daemon listening on http://127.0.0.1:" + daemon.port());
+            } catch (Exception e) {
+                System.err.println("Failed to start validation daemon: " + e.getMessage());
+                System.exit(1);
+            }
+        } else if (validateOnly) {
             // Step 1: Validate JSON schemas and instances
             try {
                 File schemasDir = new File("src/main/resources/schemas");
                 File instancesDir = new File("src/main/resources/instances");
                 File relationshipsFile = new File("src/main/resources/generated/relationships.json");
-                EngineValidation.validate(schemasDir, instancesDir, relationshipsFile);
+                List<String> options = Arrays.asList(args).subList(1, args.length);
+                // "--profile" writes where the time went to generated/validation-profile.json
+                ValidationProfile profile = options.contains("--profile") ? new ValidationProfile() : ValidationProfile.DISABLED;
+                int bulk = options.indexOf("--bulk");
+                if (bulk >= 0 && bulk + 1 >= options.size()) {
+                    System.err.println("Usage: validate --bulk <file> [--profile]");
+                    System.exit(2);
+                }
+                if (bulk >= 0) {
+                    // "validate --bulk <file>" validates an NDJSON or JSON array file of instances
+                    EngineValidation.validateBulk(schemasDir, new File(options.get(bulk + 1)), relationshipsFile,
+                            EngineValidation.BULK_WINDOW, profile);
+                } else {
+                    // "validate --full" ignores the manifest of the previous run and revalidates everything
+                    boolean full = options.contains("--full");
+                    EngineValidation.validate(schemasDir, instancesDir, relationshipsFile, !full, profile);
+                }
                 System.out.println("Validation succeeded. Run 'mvn generate-sources' to generate classes, then 'mvn compile' and 'mvn package'.");
             } catch (Exception e) {
                 System.err.println("Validation failed: " + e.getMessage());
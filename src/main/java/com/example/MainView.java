@@ -128,9 +128,10 @@ public class MainView extends VerticalLayout {
                                     }
                                     if (actualEngineIs != null) {
                                         JsonNode engine = mapper.readTree(actualEngineIs);
+                                        // Every car linking this engine gets its own row, so share the row's values between them
                                         Map<String, String> engineData = new HashMap<>();
-                                        engineData.put("UUID", engine.get("uuid").asText());
-                                        engineData.put("Name", engine.get("name").asText());
+                                        engineData.put("UUID", ValuePool.CATALOG.string(engine.get("uuid").asText()));
+                                        engineData.put("Name", ValuePool.CATALOG.string(engine.get("name").asText()));
                                         StringBuilder engineAttrs = new StringBuilder();
                                         engine.fields().forEachRemaining(field -> {
                                             if (!field.getKey().equals("uuid") && !field.getKey().equals("name")) {
@@ -138,9 +139,9 @@ public class MainView extends VerticalLayout {
                                                 engineAttrs.append(field.getKey()).append(": ").append(value).append("; ");
                                             }
                                         });
-                                        engineData.put("Attributes", engineAttrs.toString());
-                                        engineData.put("validFrom", rel.get("validFrom").asText());
-                                        engineData.put("validTo", rel.has("validTo") ? rel.get("validTo").asText() : "");
+                                        engineData.put("Attributes", ValuePool.CATALOG.string(engineAttrs.toString()));
+                                        engineData.put("validFrom", ValuePool.CATALOG.string(rel.get("validFrom").asText()));
+                                        engineData.put("validTo", rel.has("validTo") ? ValuePool.CATALOG.string(rel.get("validTo").asText()) : "");
                                         engines.add(engineData);
                                     }
                                 }
@@ -0,0 +1,458 @@
+package com.example;
+
+import com.example.engine.ValuePool;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Generates a Jackson deserializer and serializer per jsonschema2pojo model class, plus a
+ * {@code ModelsModule} registering them all and a {@code ModelCopies} class that copies models
+ * field by field, into {@code com.example.engine.generated.codec}.
+ * The generated code reads and writes each public field straight off parser and generator
+ * tokens, so reading a model involves no bean introspection or reflective field access.
+ *
+ * <p>Models are found as the sources under {@code engines} and {@code cars} of the generated
+ * package and inspected, once, through reflection here; run this after jsonschema2pojo with the
+ * compiled models on the class path. A token of an unexpected type, an unknown property or a
+ * malformed value is handed to the {@code DeserializationContext}, so errors and coercions match
+ * what databind would have done. Strings and UUIDs other than the instance's own identifiers are
+ * read into {@link ValuePool#CATALOG}, so models share them.
+ */
+public class ModelCodecGenerator {
+
+    private static final String MODEL_PACKAGE = "com.example.engine.generated";
+    private static final String TARGET_PACKAGE = "com.example.engine.generated.codec";
+    // Scalar field types the generated code reads and writes itself, with the name used in helper methods
+    private static final Map<Class<?>, String> SCALARS = Map.of(
+            String.class, "String",
+            UUID.class, "Uuid",
+            Long.class, "Long",
+            Integer.class, "Integer",
+            Double.class, "Double",
+            BigDecimal.class, "Decimal",
+            Boolean.class, "Boolean");
+    private static final String POOL = "ValuePool.CATALOG";
+
+    public static void main(String[] args) throws Exception {
+        Path modelsDir = args.length > 0 ? Paths.get(args[0]) : Paths.get("src/main/java/com/example/engine/generated");
+        Path targetDir = args.length > 1 ? Paths.get(args[1]) : Paths.get("src/main/java/com/example/engine/generated/codec");
+        generate(modelsDir, targetDir);
+    }
+
+    /**
+     * Generates codecs for the model classes whose sources are in the {@code engines} and
+     * {@code cars} subdirectories of {@code modelsDir}, into {@code targetDir}.
+     */
+    public static void generate(Path modelsDir, Path targetDir) throws Exception {
+        List<Class<?>> models = new ArrayList<>();
+        for (String subPackage : new String[]{"engines", "cars"}) {
+            try (Stream<Path> files = Files.list(modelsDir.resolve(subPackage))) {
+                for (Path file : files.filter(file -> file.toString().endsWith(".java")).sorted().toList()) {
+                    String className = file.getFileName().toString().replace(".java", "");
+                    models.add(Class.forName(MODEL_PACKAGE + "." + subPackage + "." + className));
+                }
+            }
+        }
+
+        Files.createDirectories(targetDir);
+        Set<String> written = new HashSet<>();
+        Map<Class<?>, List<Field>> fieldsByModel = new LinkedHashMap<>();
+        for (Class<?> model : models) {
+            List<Field> fields = fields(model);
+            fieldsByModel.put(model, fields);
+            write(targetDir, model.getSimpleName() + "Deserializer", generateDeserializer(model, fields), written);
+            write(targetDir, model.getSimpleName() + "Serializer", generateSerializer(model, fields), written);
+        }
+        write(targetDir, "ModelsModule", generateModule(models), written);
+        write(targetDir, "ModelCopies", generateCopies(fieldsByModel), written);
+
+        try (Stream<Path> files = Files.list(targetDir)) {
+            for (Path file : files.filter(file -> !written.contains(file.getFileName().toString())).toList()) {
+                Files.delete(file);
+                System.out.println("Removed: " + file);
+            }
+        }
+        System.out.println("Generated codecs for " + models.size() + " models in " + targetDir);
+    }
+
+    private static void write(Path targetDir, String className, String javaCode, Set<String> written) throws IOException {
+        Path javaFile = targetDir.resolve(className + ".java");
+        Files.writeString(javaFile, javaCode);
+        written.add(javaFile.getFileName().toString());
+        System.out.println("Generated: " + javaFile);
+    }
+
+    private static List<Field> fields(Class<?> model) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : model.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                scalar(field, elementType(field) != null ? elementType(field) : field.getType());
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * The element type of a {@code Set} or {@code List} field, or null for any other field.
+     */
+    private static Class<?> elementType(Field field) {
+        if ((field.getType() == Set.class || field.getType() == List.class)
+                && field.getGenericType() instanceof ParameterizedType parameterized) {
+            Type element = parameterized.getActualTypeArguments()[0];
+            if (element instanceof Class<?> elementClass) {
+                return elementClass;
+            }
+        }
+        return null;
+    }
+
+    private static String scalar(Field field, Class<?> type) {
+        String scalar = SCALARS.get(type);
+        if (scalar == null) {
+            throw new IllegalArgumentException("Unsupported type of " + field.getDeclaringClass().getName() + "." + field.getName()
+                    + ": " + field.getGenericType().getTypeName());
+        }
+        return scalar;
+    }
+
+    private static String generateDeserializer(Class<?> model, List<Field> fields) {
+        String name = model.getSimpleName();
+        Set<Class<?>> scalarsUsed = new LinkedHashSet<>();
+        // Collection reader methods used, by name: element type and collection interface
+        Map<String, Class<?>[]> collectionsUsed = new LinkedHashMap<>();
+
+        StringBuilder body = new StringBuilder();
+        body.append("    @Override\n");
+        body.append("    public ").append(name).append(" deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {\n");
+        body.append("        JsonToken token = p.currentToken();\n");
+        body.append("        if (token == JsonToken.START_OBJECT) {\n");
+        body.append("            token = p.nextToken();\n");
+        body.append("        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {\n");
+        body.append("            return (").append(name).append(") ctxt.handleUnexpectedToken(").append(name).append(".class, p);\n");
+        body.append("        }\n");
+        body.append("        ").append(name).append(" value = new ").append(name).append("();\n");
+        body.append("        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {\n");
+        body.append("            String property = p.currentName();\n");
+        body.append("            boolean isNull = p.nextToken() == JsonToken.VALUE_NULL;\n");
+        body.append("            switch (property) {\n");
+        for (Field field : fields) {
+            Class<?> element = elementType(field);
+            String reader;
+            if (element != null) {
+                String collection = field.getType().getSimpleName();
+                reader = "read" + scalar(field, element) + collection;
+                scalarsUsed.add(element);
+                collectionsUsed.put(reader, new Class<?>[]{element, field.getType()});
+            } else {
+                reader = "read" + scalar(field, field.getType());
+                scalarsUsed.add(field.getType());
+            }
+            String read = reader + "(p, ctxt)";
+            if (!ValuePool.IDENTIFIERS.contains(field.getName())) {
+                read = pooled(field.getType(), read);
+            }
+            body.append("                case \"").append(field.getName()).append("\" -> value.").append(field.getName())
+                    .append(" = isNull ? null : ").append(read).append(";\n");
+        }
+        body.append("                default -> ctxt.handleUnknownProperty(p, this, ").append(name).append(".class, property);\n");
+        body.append("            }\n");
+        body.append("        }\n");
+        body.append("        return value;\n");
+        body.append("    }\n");
+
+        for (Class<?> scalar : scalarsUsed) {
+            appendScalarReader(body, scalar);
+        }
+        for (Class<?>[] collection : collectionsUsed.values()) {
+            appendCollectionReader(body, collection[0], collection[1].getSimpleName());
+        }
+
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        javaCode.append("import com.example.engine.ValuePool;\n");
+        javaCode.append("import ").append(model.getName()).append(";\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonParser;\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonToken;\n");
+        javaCode.append("import com.fasterxml.jackson.databind.DeserializationContext;\n");
+        javaCode.append("import com.fasterxml.jackson.databind.deser.std.StdDeserializer;\n");
+        javaCode.append("import java.io.IOException;\n");
+        if (scalarsUsed.contains(BigDecimal.class)) {
+            javaCode.append("import java.math.BigDecimal;\n");
+        }
+        boolean lists = collectionsUsed.values().stream().anyMatch(collection -> collection[1] == List.class);
+        boolean sets = collectionsUsed.values().stream().anyMatch(collection -> collection[1] == Set.class);
+        if (lists) {
+            javaCode.append("import java.util.ArrayList;\n");
+        }
+        if (sets) {
+            javaCode.append("import java.util.LinkedHashSet;\n");
+        }
+        if (lists) {
+            javaCode.append("import java.util.List;\n");
+        }
+        if (sets) {
+            javaCode.append("import java.util.Set;\n");
+        }
+        if (scalarsUsed.contains(UUID.class)) {
+            javaCode.append("import java.util.UUID;\n");
+        }
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * Reads {@link ").append(name).append("} field by field from the token stream.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.ModelCodecGenerator\")\n");
+        javaCode.append("public final class ").append(name).append("Deserializer extends StdDeserializer<").append(name).append("> {\n");
+        javaCode.append("    public ").append(name).append("Deserializer() {\n");
+        javaCode.append("        super(").append(name).append(".class);\n");
+        javaCode.append("    }\n\n");
+        javaCode.append(body);
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+
+    /**
+     * Wraps the expression {@code read} so strings and UUIDs come from the pool.
+     */
+    private static String pooled(Class<?> type, String read) {
+        if (type == String.class) {
+            return POOL + ".string(" + read + ")";
+        } else if (type == UUID.class) {
+            return POOL + ".uuid(" + read + ")";
+        }
+        return read;
+    }
+
+    private static void appendScalarReader(StringBuilder body, Class<?> scalar) {
+        String type = scalar.getSimpleName();
+        body.append("\n    private static ").append(type).append(" read").append(SCALARS.get(scalar))
+                .append("(JsonParser p, DeserializationContext ctxt) throws IOException {\n");
+        if (scalar == UUID.class) {
+            // Databind's UUID deserializer also takes other forms, and reports malformed ones; leave those to it
+            body.append("        if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() == 36) {\n");
+            body.append("            String text = p.getText();\n");
+            body.append("            try {\n");
+            body.append("                return UUID.fromString(text);\n");
+            body.append("            } catch (IllegalArgumentException e) {\n");
+            body.append("                throw ctxt.weirdStringException(text, UUID.class, e.getMessage());\n");
+            body.append("            }\n");
+            body.append("        }\n");
+            body.append("        return ctxt.readValue(p, UUID.class);\n");
+            body.append("    }\n");
+            return;
+        }
+        String condition;
+        String value;
+        if (scalar == String.class) {
+            condition = "p.currentToken() == JsonToken.VALUE_STRING";
+            value = "p.getText()";
+        } else if (scalar == Long.class) {
+            condition = "p.currentToken() == JsonToken.VALUE_NUMBER_INT";
+            value = "p.getLongValue()";
+        } else if (scalar == Integer.class) {
+            condition = "p.currentToken() == JsonToken.VALUE_NUMBER_INT";
+            value = "p.getIntValue()";
+        } else if (scalar == Double.class) {
+            condition = "p.currentToken().isNumeric()";
+            value = "p.getDoubleValue()";
+        } else if (scalar == BigDecimal.class) {
+            condition = "p.currentToken().isNumeric()";
+            value = "p.getDecimalValue()";
+        } else {
+            condition = "p.currentToken().isBoolean()";
+            value = "p.getBooleanValue()";
+        }
+        body.append("        return ").append(condition).append(" ? ").append(value).append(" : ctxt.readValue(p, ")
+                .append(type).append(".class);\n");
+        body.append("    }\n");
+    }
+
+    private static void appendCollectionReader(StringBuilder body, Class<?> element, String collection) {
+        String elementType = element.getSimpleName();
+        String type = collection + "<" + elementType + ">";
+        body.append("\n    private static ").append(type).append(" read").append(SCALARS.get(element)).append(collection)
+                .append("(JsonParser p, DeserializationContext ctxt) throws IOException {\n");
+        body.append("        if (p.currentToken() != JsonToken.START_ARRAY) {\n");
+        body.append("            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(").append(collection)
+                .append(".class, ").append(elementType).append(".class));\n");
+        body.append("        }\n");
+        body.append("        ").append(type).append(" values = new ").append(collection.equals("Set") ? "LinkedHashSet" : "ArrayList")
+                .append("<>();\n");
+        body.append("        while (p.nextToken() != JsonToken.END_ARRAY) {\n");
+        String read = "read" + SCALARS.get(element) + "(p, ctxt)";
+        body.append("            values.add(p.currentToken() == JsonToken.VALUE_NULL ? null : ")
+                .append(pooled(element, read)).append(");\n");
+        body.append("        }\n");
+        body.append("        return values;\n");
+        body.append("    }\n");
+    }
+
+    private static String generateSerializer(Class<?> model, List<Field> fields) {
+        String name = model.getSimpleName();
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        javaCode.append("import ").append(model.getName()).append(";\n");
+        javaCode.append("import com.fasterxml.jackson.core.JsonGenerator;\n");
+        javaCode.append("import com.fasterxml.jackson.databind.SerializerProvider;\n");
+        javaCode.append("import com.fasterxml.jackson.databind.ser.std.StdSerializer;\n");
+        javaCode.append("import java.io.IOException;\n");
+        // Element types are named in the loops over collections
+        fields.stream().map(ModelCodecGenerator::elementType)
+                .filter(element -> element != null && !element.getPackageName().equals("java.lang"))
+                .map(Class::getName).distinct().sorted()
+                .forEach(element -> javaCode.append("import ").append(element).append(";\n"));
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * Writes {@link ").append(name).append("} field by field, nulls included, in declaration order.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.ModelCodecGenerator\")\n");
+        javaCode.append("public final class ").append(name).append("Serializer extends StdSerializer<").append(name).append("> {\n");
+        javaCode.append("    public ").append(name).append("Serializer() {\n");
+        javaCode.append("        super(").append(name).append(".class);\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    @Override\n");
+        javaCode.append("    public void serialize(").append(name).append(" value, JsonGenerator gen, SerializerProvider provider) throws IOException {\n");
+        javaCode.append("        gen.writeStartObject(value);\n");
+        for (Field field : fields) {
+            String access = "value." + field.getName();
+            javaCode.append("        gen.writeFieldName(\"").append(field.getName()).append("\");\n");
+            javaCode.append("        if (").append(access).append(" == null) {\n");
+            javaCode.append("            gen.writeNull();\n");
+            javaCode.append("        } else {\n");
+            Class<?> element = elementType(field);
+            if (element != null) {
+                javaCode.append("            gen.writeStartArray();\n");
+                javaCode.append("            for (").append(element.getSimpleName()).append(" element : ").append(access).append(") {\n");
+                javaCode.append("                if (element == null) {\n");
+                javaCode.append("                    gen.writeNull();\n");
+                javaCode.append("                } else {\n");
+                javaCode.append("                    ").append(write(element, "element")).append(";\n");
+                javaCode.append("                }\n");
+                javaCode.append("            }\n");
+                javaCode.append("            gen.writeEndArray();\n");
+            } else {
+                javaCode.append("            ").append(write(field.getType(), access)).append(";\n");
+            }
+            javaCode.append("        }\n");
+        }
+        javaCode.append("        gen.writeEndObject();\n");
+        javaCode.append("    }\n");
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+
+    private static String write(Class<?> type, String value) {
+        if (type == String.class) {
+            return "gen.writeString(" + value + ")";
+        } else if (type == UUID.class) {
+            return "gen.writeString(" + value + ".toString())";
+        } else if (type == Boolean.class) {
+            return "gen.writeBoolean(" + value + ")";
+        } else if (type == Long.class) {
+            return "gen.writeNumber(" + value + ".longValue())";
+        } else if (type == Integer.class) {
+            return "gen.writeNumber(" + value + ".intValue())";
+        } else if (type == Double.class) {
+            return "gen.writeNumber(" + value + ".doubleValue())";
+        }
+        return "gen.writeNumber(" + value + ")";
+    }
+
+    private static String generateModule(List<Class<?>> models) {
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        for (Class<?> model : models) {
+            javaCode.append("import ").append(model.getName()).append(";\n");
+        }
+        javaCode.append("import com.fasterxml.jackson.databind.module.SimpleModule;\n");
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * Registers the generated deserializer and serializer of every model.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.ModelCodecGenerator\")\n");
+        javaCode.append("public final class ModelsModule extends SimpleModule {\n");
+        javaCode.append("    public ModelsModule() {\n");
+        javaCode.append("        super(\"ModelsModule\");\n");
+        for (Class<?> model : models) {
+            String name = model.getSimpleName();
+            javaCode.append("        addDeserializer(").append(name).append(".class, new ").append(name).append("Deserializer());\n");
+            javaCode.append("        addSerializer(").append(name).append(".class, new ").append(name).append("Serializer());\n");
+        }
+        javaCode.append("    }\n");
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+
+    private static String generateCopies(Map<Class<?>, List<Field>> fieldsByModel) {
+        StringBuilder javaCode = new StringBuilder();
+        javaCode.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        for (Class<?> model : fieldsByModel.keySet()) {
+            javaCode.append("import ").append(model.getName()).append(";\n");
+        }
+        boolean lists = fieldsByModel.values().stream().flatMap(List::stream).anyMatch(field -> field.getType() == List.class);
+        boolean sets = fieldsByModel.values().stream().flatMap(List::stream).anyMatch(field -> field.getType() == Set.class);
+        if (lists) {
+            javaCode.append("import java.util.ArrayList;\n");
+        }
+        if (sets) {
+            javaCode.append("import java.util.LinkedHashSet;\n");
+        }
+        javaCode.append("import javax.annotation.processing.Generated;\n\n");
+        javaCode.append("/**\n");
+        javaCode.append(" * Copies models field by field. Scalar values are immutable and shared; collections are copied, so\n");
+        javaCode.append(" * nothing done to a copy is visible through the original.\n");
+        javaCode.append(" */\n");
+        javaCode.append("@Generated(\"com.example.ModelCodecGenerator\")\n");
+        javaCode.append("public final class ModelCopies {\n");
+        javaCode.append("    private ModelCopies() {\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    /**\n");
+        javaCode.append("     * Copies any generated model; other values are not supported.\n");
+        javaCode.append("     */\n");
+        javaCode.append("    public static Object copy(Object model) {\n");
+        javaCode.append("        return switch (model) {\n");
+        for (Class<?> model : fieldsByModel.keySet()) {
+            javaCode.append("            case ").append(model.getSimpleName()).append(" value -> copy(value);\n");
+        }
+        javaCode.append("            default -> throw new IllegalArgumentException(\"Not a generated model: \" + model.getClass().getName());\n");
+        javaCode.append("        };\n");
+        javaCode.append("    }\n");
+        fieldsByModel.forEach((model, fields) -> {
+            String name = model.getSimpleName();
+            javaCode.append("\n    public static ").append(name).append(" copy(").append(name).append(" value) {\n");
+            javaCode.append("        ").append(name).append(" copy = new ").append(name).append("();\n");
+            for (Field field : fields) {
+                String access = "value." + field.getName();
+                String copied = access;
+                if (field.getType() == Set.class) {
+                    copied = access + " == null ? null : new LinkedHashSet<>(" + access + ")";
+                } else if (field.getType() == List.class) {
+                    copied = access + " == null ? null : new ArrayList<>(" + access + ")";
+                }
+                javaCode.append("        copy.").append(field.getName()).append(" = ").append(copied).append(";\n");
+            }
+            javaCode.append("        return copy;\n");
+            javaCode.append("    }\n");
+        });
+        javaCode.append("}\n");
+        return javaCode.toString();
+    }
+}
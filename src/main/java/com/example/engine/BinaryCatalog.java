@@ -0,0 +1,392 @@
+package com.example.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only binary catalog of instance documents, opened through {@link FileChannel#map} so
+ * documents are paged in on demand and the page cache is shared by every JVM mapping the file.
+ *
+ * <p>Layout (big-endian): a header with magic, version, entry count, largest document length, link
+ * count and the schema type names; an index of fixed-size entries sorted by UUID (msb, lsb, data
+ * offset, length, type, first link, link count); the car UUIDs each engine lists in its
+ * {@code carUuids}, as msb/lsb pairs; and the UTF-8 documents back to back. Lookups binary-search
+ * the mapped index, so opening a catalog does not read or copy any document, and the engine-car
+ * links can be indexed without parsing one. Every section is mapped in segments of at most
+ * {@value #SEGMENT_SIZE} bytes, so a catalog may hold up to {@value Writer#MAX_ENTRIES} entries
+ * and {@link Integer#MAX_VALUE} links whatever their total size.
+ */
+public class BinaryCatalog {
+    private static final int MAGIC = 0x45434154; // "ECAT"
+    private static final int VERSION = 2;
+    private static final int ENTRY_SIZE = 40;
+    private static final int LINK_SIZE = 16;
+    // Data is mapped in segments of this size, each extended by the largest document length so
+    // that a document starting in a segment always ends inside the same mapping
+    private static final long SEGMENT_SIZE = 1L << 30;
+    // Index entries and links are mapped in segments of whole records, so none straddles two mappings
+    private static final int ENTRIES_PER_SEGMENT = (int) (SEGMENT_SIZE / ENTRY_SIZE);
+    private static final int LINKS_PER_SEGMENT = (int) (SEGMENT_SIZE / LINK_SIZE);
+
+    private final MappedByteBuffer[] index;
+    private final MappedByteBuffer[] links;
+    private final MappedByteBuffer[] segments;
+    private final String[] schemaTypes;
+    private final int size;
+
+    private BinaryCatalog(MappedByteBuffer[] index, MappedByteBuffer[] links, MappedByteBuffer[] segments, String[] schemaTypes,
+                          int size) {
+        this.index = index;
+        this.links = links;
+        this.segments = segments;
+        this.schemaTypes = schemaTypes;
+        this.size = size;
+    }
+
+    public static BinaryCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Mappings stay valid after the channel is closed
+            long fileSize = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, 64 * 1024));
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a binary catalog: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog version " + version + " in " + file);
+            }
+            int size = header.getInt();
+            int maxDocumentLength = header.getInt();
+            int linkCount = header.getInt();
+            String[] schemaTypes = new String[header.getInt()];
+            for (int i = 0; i < schemaTypes.length; i++) {
+                byte[] name = new byte[header.getShort()];
+                header.get(name);
+                schemaTypes[i] = new String(name, StandardCharsets.UTF_8);
+            }
+
+            long indexOffset = header.position();
+            long linksOffset = indexOffset + (long) size * ENTRY_SIZE;
+            long dataOffset = linksOffset + (long) linkCount * LINK_SIZE;
+            MappedByteBuffer[] index = mapRecords(channel, indexOffset, size, ENTRY_SIZE, ENTRIES_PER_SEGMENT);
+            MappedByteBuffer[] links = mapRecords(channel, linksOffset, linkCount, LINK_SIZE, LINKS_PER_SEGMENT);
+
+            long dataSize = fileSize - dataOffset;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) Math.max(1, (dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(SEGMENT_SIZE + maxDocumentLength, dataSize - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + start, Math.max(0, length));
+            }
+            return new BinaryCatalog(index, links, segments, schemaTypes, size);
+        }
+    }
+
+    private static MappedByteBuffer[] mapRecords(FileChannel channel, long offset, int count, int recordSize,
+                                                 int recordsPerSegment) throws IOException {
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(count + recordsPerSegment - 1) / recordsPerSegment];
+        for (int i = 0; i < mapped.length; i++) {
+            long first = (long) i * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, count - first);
+            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * recordSize, records * recordSize);
+        }
+        return mapped;
+    }
+
+    /**
+     * Writes the entries to {@code file}, replacing it atomically. UUIDs must be unique.
+     */
+    public static void write(Path file, List<Entry> entries) throws IOException {
+        try (Writer writer = writer(file)) {
+            for (Entry entry : entries) {
+                writer.add(entry);
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Returns a writer that streams entries to {@code file}, for catalogs too large to hold in
+     * memory. Entries may be added in any order.
+     */
+    public static Writer writer(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the given UUID in the catalog, or -1 if it is not present.
+     */
+    public int find(long msb, long lsb) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mostSignificantBits(mid), leastSignificantBits(mid), msb, lsb);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int find(UUID uuid) {
+        return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public long mostSignificantBits(int position) {
+        return entries(position).getLong(entryOffset(position));
+    }
+
+    public long leastSignificantBits(int position) {
+        return entries(position).getLong(entryOffset(position) + 8);
+    }
+
+    public UUID uuid(int position) {
+        return new UUID(mostSignificantBits(position), leastSignificantBits(position));
+    }
+
+    public String schemaType(int position) {
+        return schemaTypes[entries(position).getInt(entryOffset(position) + 28)];
+    }
+
+    /**
+     * Copies the document at the given position out of the mapping.
+     */
+    public byte[] documentBytes(int position) {
+        long offset = entries(position).getLong(entryOffset(position) + 16);
+        int length = entries(position).getInt(entryOffset(position) + 24);
+        byte[] bytes = new byte[length];
+        segments[(int) (offset / SEGMENT_SIZE)].get((int) (offset % SEGMENT_SIZE), bytes);
+        return bytes;
+    }
+
+    public String document(int position) {
+        return new String(documentBytes(position), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the car UUIDs the engine at the given position lists, read from the links section
+     * rather than its document.
+     */
+    public UUID[] carUuids(int position) {
+        int first = entries(position).getInt(entryOffset(position) + 32);
+        UUID[] carUuids = new UUID[entries(position).getInt(entryOffset(position) + 36)];
+        for (int i = 0; i < carUuids.length; i++) {
+            long link = (long) first + i;
+            ByteBuffer segment = links[(int) (link / LINKS_PER_SEGMENT)];
+            int offset = (int) (link % LINKS_PER_SEGMENT) * LINK_SIZE;
+            carUuids[i] = new UUID(segment.getLong(offset), segment.getLong(offset + 8));
+        }
+        return carUuids;
+    }
+
+    private ByteBuffer entries(int position) {
+        return index[position / ENTRIES_PER_SEGMENT];
+    }
+
+    private static int entryOffset(int position) {
+        return position % ENTRIES_PER_SEGMENT * ENTRY_SIZE;
+    }
+
+    private static int compare(long msb1, long lsb1, long msb2, long lsb2) {
+        // Same ordering as UUID.compareTo, which the writer sorts by
+        int cmp = Long.compare(msb1, msb2);
+        return cmp != 0 ? cmp : Long.compare(lsb1, lsb2);
+    }
+
+    /**
+     * Streams entries into a catalog file. Documents and car links are appended to temporary files
+     * as they are added, and only a fixed-size index record per entry (UUID, offsets, lengths and
+     * type) stays in memory; {@link #finish} sorts those records by UUID and assembles the catalog
+     * next to its target, then moves it into place atomically. Closing an unfinished writer
+     * discards what it wrote.
+     */
+    public static final class Writer implements Closeable {
+        /**
+         * The most entries a catalog holds; the writer keeps four int fields per entry in one array.
+         */
+        public static final int MAX_ENTRIES = (Integer.MAX_VALUE - 8) / 4;
+
+        private final Path file;
+        private final Path dataFile;
+        private final Path linksFile;
+        private final DataOutputStream data;
+        private final DataOutputStream links;
+        private final List<String> schemaTypes = new ArrayList<>();
+        // Index record of each entry in the order added: msb, lsb and data offset; then length,
+        // type, first link and link count
+        private long[] keys = new long[3 * 64];
+        private int[] fields = new int[4 * 64];
+        private int size;
+        private long dataLength;
+        private long linkCount;
+        private int maxDocumentLength;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.dataFile = Files.createTempFile(parent, file.getFileName().toString(), ".data.tmp");
+            this.linksFile = Files.createTempFile(parent, file.getFileName().toString(), ".links.tmp");
+            this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)));
+            this.links = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(linksFile)));
+        }
+
+        public void add(Entry entry) throws IOException {
+            if (size == MAX_ENTRIES) {
+                throw new IllegalArgumentException("Too many entries for one catalog: at most " + MAX_ENTRIES + " are supported");
+            }
+            // Links are numbered by int in the index
+            if (linkCount + entry.carUuids().length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many car links for one catalog: " + (linkCount + entry.carUuids().length)
+                        + ", at most " + Integer.MAX_VALUE + " are supported");
+            }
+            if (size == fields.length / 4) {
+                int capacity = (int) Math.min(2L * size, MAX_ENTRIES);
+                keys = Arrays.copyOf(keys, 3 * capacity);
+                fields = Arrays.copyOf(fields, 4 * capacity);
+            }
+            int type = schemaTypes.indexOf(entry.schemaType());
+            if (type < 0) {
+                type = schemaTypes.size();
+                schemaTypes.add(entry.schemaType());
+            }
+            keys[3 * size] = entry.uuid().getMostSignificantBits();
+            keys[3 * size + 1] = entry.uuid().getLeastSignificantBits();
+            keys[3 * size + 2] = dataLength;
+            fields[4 * size] = entry.json().length;
+            fields[4 * size + 1] = type;
+            fields[4 * size + 2] = (int) linkCount;
+            fields[4 * size + 3] = entry.carUuids().length;
+            size++;
+
+            data.write(entry.json());
+            dataLength += entry.json().length;
+            maxDocumentLength = Math.max(maxDocumentLength, entry.json().length);
+            for (UUID carUuid : entry.carUuids()) {
+                links.writeLong(carUuid.getMostSignificantBits());
+                links.writeLong(carUuid.getLeastSignificantBits());
+            }
+            linkCount += entry.carUuids().length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes the catalog and replaces {@code file} with it. UUIDs must be unique.
+         */
+        public void finish() throws IOException {
+            data.close();
+            links.close();
+            int[] order = sortedByUuid();
+            for (int i = 1; i < order.length; i++) {
+                if (compare(order[i - 1], order[i]) == 0) {
+                    throw new IllegalArgumentException("Duplicate UUID in catalog: "
+                            + new UUID(keys[3 * order[i]], keys[3 * order[i] + 1]));
+                }
+            }
+
+            Path parent = file.toAbsolutePath().getParent();
+            Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (OutputStream stream = Files.newOutputStream(tempFile);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(size);
+                out.writeInt(maxDocumentLength);
+                out.writeInt((int) linkCount);
+                out.writeInt(schemaTypes.size());
+                for (String schemaType : schemaTypes) {
+                    byte[] name = schemaType.getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(name.length);
+                    out.write(name);
+                }
+                for (int entry : order) {
+                    out.writeLong(keys[3 * entry]);
+                    out.writeLong(keys[3 * entry + 1]);
+                    out.writeLong(keys[3 * entry + 2]);
+                    for (int field = 0; field < 4; field++) {
+                        out.writeInt(fields[4 * entry + field]);
+                    }
+                }
+                // Links and documents stay in the order added; index entries point into them
+                Files.copy(linksFile, out);
+                Files.copy(dataFile, out);
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+            links.close();
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(linksFile);
+        }
+
+        /**
+         * Returns the entries in the order UUID.compareTo sorts their UUIDs, by a merge sort over
+         * entry numbers so no object is allocated per entry.
+         */
+        private int[] sortedByUuid() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size - width; low += 2 * width) {
+                    int mid = low + width;
+                    int high = Math.min(low + 2 * width, size);
+                    int left = low;
+                    int right = mid;
+                    for (int i = low; i < high; i++) {
+                        buffer[i] = right >= high || (left < mid && compare(order[left], order[right]) <= 0)
+                                ? order[left++] : order[right++];
+                    }
+                    System.arraycopy(buffer, low, order, low, high - low);
+                }
+            }
+            return order;
+        }
+
+        private int compare(int first, int second) {
+            return BinaryCatalog.compare(keys[3 * first], keys[3 * first + 1], keys[3 * second], keys[3 * second + 1]);
+        }
+    }
+
+    /**
+     * A catalog document, with the car UUIDs from its {@code carUuids}.
+     */
+    public record Entry(UUID uuid, String schemaType, byte[] json, UUID[] carUuids) {
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Bidirectional adjacency between engines and the cars listed in their {@code carUuids}, stored in
+ * compressed sparse row form: the rows of every {@value PagedArray#PAGE_SIZE} consecutive ids form
+ * one page with a flat array of neighbour ids plus an offsets array, so the neighbours of the
+ * {@code r}th engine of a page are {@code ids[offsets[r]..offsets[r + 1])}. Rows are sorted and
+ * free of duplicates, which keeps paging through a high fan-out engine a pair of array reads per car.
+ *
+ * <p>The car-to-engine direction is the transpose of the engine-to-car one and is built alongside
+ * it in linear time. Instances are immutable; {@link #withRows} replaces some engines' rows and
+ * rebuilds only the pages holding those engines and the cars gained or lost, sharing every other
+ * page with the old graph.
+ */
+public class CarEngineGraph {
+    private static final int[] NO_IDS = new int[0];
+    private static final Page EMPTY_PAGE = new Page(new int[1], NO_IDS);
+
+    private final Page[] enginePages;
+    private final Page[] carPages;
+
+    private CarEngineGraph(Page[] enginePages, Page[] carPages) {
+        this.enginePages = enginePages;
+        this.carPages = carPages;
+    }
+
+    /**
+     * Builds the graph from each engine's car ids; {@code carIdsForEngine} may return null for an
+     * engine without cars, and rows need not be sorted.
+     */
+    public static CarEngineGraph build(int engineCount, int carCount, IntFunction<int[]> carIdsForEngine) {
+        int[][] engineRows = new int[engineCount][];
+        int[] carDegrees = new int[carCount];
+        for (int engineId = 0; engineId < engineCount; engineId++) {
+            int[] row = carIdsForEngine.apply(engineId);
+            engineRows[engineId] = row == null ? NO_IDS : sortedDistinct(row);
+            for (int carId : engineRows[engineId]) {
+                carDegrees[carId]++;
+            }
+        }
+
+        // Transpose with a counting sort; filling in engine id order leaves every car row sorted
+        int[][] carRows = new int[carCount][];
+        for (int carId = 0; carId < carCount; carId++) {
+            carRows[carId] = carDegrees[carId] == 0 ? NO_IDS : new int[carDegrees[carId]];
+        }
+        int[] next = new int[carCount];
+        for (int engineId = 0; engineId < engineCount; engineId++) {
+            for (int carId : engineRows[engineId]) {
+                carRows[carId][next[carId]++] = engineId;
+            }
+        }
+        return new CarEngineGraph(toPages(engineRows), toPages(carRows));
+    }
+
+    /**
+     * Returns a graph with {@code engineCount} engines and {@code carCount} cars, at least as many
+     * as this one has, in which each engine in {@code carIdsByEngine} has the given cars (null for
+     * none) and every other engine keeps its row. Costs the rows of the pages it rebuilds rather
+     * than the whole graph.
+     */
+    public CarEngineGraph withRows(int engineCount, int carCount, Map<Integer, int[]> carIdsByEngine) {
+        Map<Integer, int[]> engineRows = new HashMap<>();
+        // Cars gaining or losing an engine -> engine id -> whether it is gained
+        Map<Integer, Map<Integer, Boolean>> carChanges = new HashMap<>();
+        carIdsByEngine.forEach((engineId, carIds) -> {
+            int[] oldRow = carIds(engineId);
+            int[] newRow = carIds == null ? NO_IDS : sortedDistinct(carIds);
+            engineRows.put(engineId, newRow);
+            for (int carId : oldRow) {
+                if (Arrays.binarySearch(newRow, carId) < 0) {
+                    carChanges.computeIfAbsent(carId, k -> new TreeMap<>()).put(engineId, false);
+                }
+            }
+            for (int carId : newRow) {
+                if (Arrays.binarySearch(oldRow, carId) < 0) {
+                    carChanges.computeIfAbsent(carId, k -> new TreeMap<>()).put(engineId, true);
+                }
+            }
+        });
+        Map<Integer, int[]> carRows = new HashMap<>();
+        carChanges.forEach((carId, changes) -> carRows.put(carId, applyChanges(engineIds(carId), changes)));
+        return new CarEngineGraph(replaceRows(enginePages, engineCount, engineRows),
+                replaceRows(carPages, carCount, carRows));
+    }
+
+    public int carCount(int engineId) {
+        return rowLength(enginePages, engineId);
+    }
+
+    /**
+     * Returns up to {@code limit} of the engine's car ids, in id order, starting at {@code offset}.
+     */
+    public int[] carIds(int engineId, int offset, int limit) {
+        int count = carCount(engineId);
+        if (offset >= count || limit <= 0) {
+            return NO_IDS;
+        }
+        Page page = enginePages[engineId >>> PagedArray.PAGE_BITS];
+        int start = page.offsets()[engineId & PagedArray.PAGE_MASK] + offset;
+        return Arrays.copyOfRange(page.ids(), start, start + Math.min(limit, count - offset));
+    }
+
+    public int[] carIds(int engineId) {
+        return carIds(engineId, 0, carCount(engineId));
+    }
+
+    public int engineCount(int carId) {
+        return rowLength(carPages, carId);
+    }
+
+    /**
+     * Returns the ids of the engines that list the car, in id order.
+     */
+    public int[] engineIds(int carId) {
+        int count = engineCount(carId);
+        if (count == 0) {
+            return NO_IDS;
+        }
+        Page page = carPages[carId >>> PagedArray.PAGE_BITS];
+        int start = page.offsets()[carId & PagedArray.PAGE_MASK];
+        return Arrays.copyOfRange(page.ids(), start, start + count);
+    }
+
+    private static int rowLength(Page[] pages, int id) {
+        if (id < 0 || (id >>> PagedArray.PAGE_BITS) >= pages.length) {
+            return 0;
+        }
+        int[] offsets = pages[id >>> PagedArray.PAGE_BITS].offsets();
+        int row = id & PagedArray.PAGE_MASK;
+        return row + 1 >= offsets.length ? 0 : offsets[row + 1] - offsets[row];
+    }
+
+    private static Page[] toPages(int[][] rows) {
+        Page[] pages = new Page[(rows.length + PagedArray.PAGE_MASK) >>> PagedArray.PAGE_BITS];
+        for (int page = 0; page < pages.length; page++) {
+            int start = page << PagedArray.PAGE_BITS;
+            pages[page] = Page.of(Arrays.copyOfRange(rows, start, Math.min(rows.length, start + PagedArray.PAGE_SIZE)));
+        }
+        return pages;
+    }
+
+    /**
+     * Returns a copy of {@code pages} covering {@code count} ids with the given rows replaced.
+     * Pages without a replaced row are shared, except a partly filled last page that has to grow.
+     */
+    private static Page[] replaceRows(Page[] pages, int count, Map<Integer, int[]> rows) {
+        int pageCount = (count + PagedArray.PAGE_MASK) >>> PagedArray.PAGE_BITS;
+        Page[] next = Arrays.copyOf(pages, pageCount);
+        Set<Integer> touchedPages = new HashSet<>();
+        rows.keySet().forEach(id -> touchedPages.add(id >>> PagedArray.PAGE_BITS));
+        for (int page = 0; page < next.length; page++) {
+            int length = Math.min(PagedArray.PAGE_SIZE, count - (page << PagedArray.PAGE_BITS));
+            Page old = page < pages.length ? pages[page] : EMPTY_PAGE;
+            if (!touchedPages.contains(page) && old.rowCount() == length) {
+                continue;
+            }
+            int[][] pageRows = new int[length][];
+            for (int row = 0; row < pageRows.length; row++) {
+                int id = (page << PagedArray.PAGE_BITS) + row;
+                pageRows[row] = rows.containsKey(id) ? rows.get(id) : old.row(row);
+            }
+            next[page] = Page.of(pageRows);
+        }
+        return next;
+    }
+
+    private static int[] applyChanges(int[] row, Map<Integer, Boolean> changes) {
+        int[] merged = Arrays.copyOf(row, row.length + changes.size());
+        int size = row.length;
+        for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+            if (change.getValue()) {
+                merged[size++] = change.getKey();
+            }
+        }
+        int[] sorted = sortedDistinct(Arrays.copyOf(merged, size));
+        return Arrays.stream(sorted).filter(id -> changes.getOrDefault(id, true)).toArray();
+    }
+
+    private static int[] sortedDistinct(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * The rows of up to one page of consecutive ids, in compressed sparse row form.
+     */
+    private record Page(int[] offsets, int[] ids) {
+        static Page of(int[][] rows) {
+            int[] offsets = new int[rows.length + 1];
+            for (int row = 0; row < rows.length; row++) {
+                offsets[row + 1] = offsets[row] + (rows[row] == null ? 0 : rows[row].length);
+            }
+            int[] ids = new int[offsets[rows.length]];
+            for (int row = 0; row < rows.length; row++) {
+                if (rows[row] != null) {
+                    System.arraycopy(rows[row], 0, ids, offsets[row], rows[row].length);
+                }
+            }
+            return new Page(offsets, ids);
+        }
+
+        int rowCount() {
+            return offsets.length - 1;
+        }
+
+        int[] row(int row) {
+            return row + 1 >= offsets.length ? NO_IDS : Arrays.copyOfRange(ids, offsets[row], offsets[row + 1]);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ScanResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link EngineCatalog} from the engine instances on the classpath, from an instances
+ * directory on disk, or from a mapped {@link BinaryCatalog} when the {@code engine.catalog} system
+ * property names one, and times each loading phase. Documents are read on virtual threads and
+ * parsed on the common ForkJoin pool; ids are then assigned sequentially in path order so they do
+ * not depend on scheduling.
+ */
+public class CatalogLoader {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final UUID[] NO_UUIDS = new UUID[0];
+    private static final TypeReference<Map<String, List<Map<String, String>>>> INTERVALS_TYPE = new TypeReference<>() {
+    };
+
+    public static Result load() {
+        String catalogFile = System.getProperty("engine.catalog");
+        Result result = catalogFile != null ? loadMapped(Paths.get(catalogFile)) : loadFromClasspath();
+        System.out.println("Loaded " + result.catalog().engineCount() + " engines and " + result.catalog().carCount()
+                + " cars: " + result.timings());
+        return result;
+    }
+
+    public static Result loadFromClasspath() {
+        long start = System.nanoTime();
+        List<RawDocument> rawDocuments;
+        long scanned;
+        try (ScanResult scanResult = new ClassGraph().acceptPaths("/instances/engines").scan()) {
+            List<Resource> resources = new ArrayList<>(scanResult.getResourcesWithExtension("json"));
+            resources.sort(Comparator.comparing(Resource::getPath));
+            scanned = System.nanoTime();
+            // Resources must be read before the scan result is closed
+            rawDocuments = readAll(resources, resource -> {
+                try (InputStream is = resource.open()) {
+                    return new RawDocument(resource.getPath(), is.readAllBytes());
+                }
+            }, Resource::getPath);
+        }
+        return build(rawDocuments, CatalogLoader::loadRelationships, CatalogLoader::loadIntervals, 0, start, scanned);
+    }
+
+    /**
+     * Loads the engines under {@code instancesDir/engines} and the relationships from
+     * {@code relationshipsFile} on disk, plus the validity intervals in the
+     * {@code relationship-intervals.json} next to it, for catalogs that are watched for changes.
+     */
+    public static Result loadFromDirectory(Path instancesDir, Path relationshipsFile) {
+        return loadFromDirectory(instancesDir, relationshipsFile, 0);
+    }
+
+    /**
+     * Loads like {@link #loadFromDirectory(Path, Path)}, into a catalog of the given generation,
+     * so a full reload continues the generations, and engine revisions, of the catalog it replaces.
+     */
+    public static Result loadFromDirectory(Path instancesDir, Path relationshipsFile, long generation) {
+        long start = System.nanoTime();
+        List<Path> files = listEngineFiles(instancesDir);
+        long scanned = System.nanoTime();
+        List<RawDocument> rawDocuments = readAll(files, file -> readFile(instancesDir, file), Path::toString);
+        return build(rawDocuments, () -> readRelationships(relationshipsFile),
+                () -> readIntervals(intervalsFileFor(relationshipsFile)), generation, start, scanned);
+    }
+
+    public static Result loadMapped(Path catalogFile) {
+        long start = System.nanoTime();
+        BinaryCatalog mapped;
+        try {
+            mapped = BinaryCatalog.open(catalogFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open engine catalog: " + catalogFile, e);
+        }
+        long opened = System.nanoTime();
+
+        // Only the UUID index, types and car links are read up front; documents stay in the mapping
+        // and are not touched until an engine is looked up
+        UuidIndex engineIndex = new UuidIndex(mapped.size());
+        byte[] engineTypes = new byte[mapped.size()];
+        UUID[][] carUuidsByEngine = new UUID[mapped.size()][];
+        for (int position = 0; position < mapped.size(); position++) {
+            engineIndex.add(mapped.mostSignificantBits(position), mapped.leastSignificantBits(position));
+            engineTypes[position] = (byte) EngineCatalog.ENGINE_SCHEMA_TYPES.indexOf(mapped.schemaType(position));
+            carUuidsByEngine[position] = mapped.carUuids(position);
+        }
+        long indexed = System.nanoTime();
+
+        CarLinks links = linkCars(loadRelationships(), loadIntervals(), engineIndex, engineId -> engineTypes[engineId], carUuidsByEngine);
+        EngineCatalog catalog = new EngineCatalog(engineIndex, mapped, null, engineTypes, 0, links);
+        long linked = System.nanoTime();
+        return new Result(catalog, Map.of(), new PhaseTimings(opened - start, 0, 0, indexed - opened, linked - indexed));
+    }
+
+    private static Result build(List<RawDocument> rawDocuments, Supplier<Map<String, Set<String>>> relationships,
+                                Supplier<Map<String, List<TemporalIndex.Interval>>> intervals, long generation,
+                                long start, long scanned) {
+        long read = System.nanoTime();
+
+        List<ParsedDocument> parsedDocuments = rawDocuments.parallelStream()
+                .map(CatalogLoader::parse)
+                .filter(Objects::nonNull)
+                .toList();
+        long parsed = System.nanoTime();
+
+        UuidIndex engineIndex = new UuidIndex(parsedDocuments.size());
+        List<byte[]> documentsById = new ArrayList<>(parsedDocuments.size());
+        List<Integer> typeById = new ArrayList<>(parsedDocuments.size());
+        List<UUID[]> carUuidsById = new ArrayList<>(parsedDocuments.size());
+        Map<String, UUID> sources = new LinkedHashMap<>();
+        for (ParsedDocument document : parsedDocuments) {
+            int id = engineIndex.add(document.uuid());
+            if (id == documentsById.size()) {
+                documentsById.add(document.content());
+                typeById.add(document.type());
+                carUuidsById.add(document.carUuids());
+            } else {
+                documentsById.set(id, document.content());
+                typeById.set(id, document.type());
+                carUuidsById.set(id, document.carUuids());
+            }
+            sources.put(document.path(), document.uuid());
+        }
+        byte[] engineTypes = toTypeArray(typeById);
+        long indexed = System.nanoTime();
+
+        CarLinks links = linkCars(relationships.get(), intervals.get(), engineIndex, engineId -> engineTypes[engineId],
+                carUuidsById.toArray(new UUID[0][]));
+        EngineCatalog catalog = new EngineCatalog(engineIndex, null, documentsById.toArray(new byte[0][]), engineTypes,
+                generation, links);
+        long linked = System.nanoTime();
+        return new Result(catalog, sources, new PhaseTimings(scanned - start, read - scanned, parsed - read, indexed - parsed, linked - indexed));
+    }
+
+    static List<Path> listEngineFiles(Path instancesDir) {
+        try (Stream<Path> paths = Files.walk(instancesDir.resolve("engines"))) {
+            return paths.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list engine instances in " + instancesDir, e);
+        }
+    }
+
+    static RawDocument readFile(Path instancesDir, Path file) throws IOException {
+        // Relative to the instances directory, e.g. engines/engine-gas-prod.json
+        String path = instancesDir.relativize(file).toString().replace('\\', '/');
+        return new RawDocument(path, Files.readAllBytes(file));
+    }
+
+    private static <S> List<RawDocument> readAll(List<S> sources, DocumentReader<S> reader, Function<S, String> describe) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<RawDocument>> futures = new ArrayList<>(sources.size());
+            for (S source : sources) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return reader.read(source);
+                    } catch (IOException e) {
+                        System.err.println("Failed to load JSON document: " + describe.apply(source));
+                        return null;
+                    }
+                }));
+            }
+            List<RawDocument> documents = new ArrayList<>(futures.size());
+            for (Future<RawDocument> future : futures) {
+                RawDocument document = future.get();
+                if (document != null) {
+                    documents.add(document);
+                }
+            }
+            return documents;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reading engine documents", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to read engine documents", e.getCause());
+        }
+    }
+
+    static ParsedDocument parse(RawDocument document) {
+        String filePath = document.path();
+        try {
+            JsonNode jsonNode = objectMapper.readTree(document.content());
+            String name = jsonNode.get("name") != null ? jsonNode.get("name").asText() : null;
+            String uuid = jsonNode.get("uuid") != null ? jsonNode.get("uuid").asText() : null;
+            String schemaType = filePath.substring(filePath.lastIndexOf('/') + 1, filePath.lastIndexOf('-'));
+
+            if (name == null || uuid == null) {
+                System.err.println("Invalid JSON document: " + filePath + " - Missing name or uuid");
+                return null;
+            }
+            UUID parsedUuid = UuidIndex.parse(uuid);
+            int type = EngineCatalog.ENGINE_SCHEMA_TYPES.indexOf(schemaType);
+            if (parsedUuid == null || type < 0) {
+                System.err.println("Invalid JSON document: " + filePath + " - Malformed uuid or unknown schema type");
+                return null;
+            }
+            return new ParsedDocument(filePath, parsedUuid, type, document.content(), carUuids(jsonNode.path("carUuids")));
+        } catch (IOException e) {
+            System.err.println("Failed to load JSON document: " + filePath);
+            return null;
+        }
+    }
+
+    /**
+     * Indexes the cars in {@code carUuidToEngineUuids} with their engines, then adds the cars that
+     * only appear in an engine's {@code carUuids} (indexed by engine id) and builds the engine-car
+     * graph over both.
+     */
+    static CarLinks linkCars(Map<String, Set<String>> carUuidToEngineUuids, Map<String, List<TemporalIndex.Interval>> intervals,
+                             UuidIndex engineIndex, IntUnaryOperator engineType, UUID[][] carUuidsByEngine) {
+        // Index each car's engines, grouped by type, so lookups only touch the car's own fan-out
+        UuidIndex carIndex = new UuidIndex(carUuidToEngineUuids.size());
+        List<int[]> engineIdsByCar = new ArrayList<>(carUuidToEngineUuids.size());
+        carUuidToEngineUuids.forEach((carUuid, engineUuids) -> {
+            UUID parsedCarUuid = UuidIndex.parse(carUuid);
+            if (parsedCarUuid == null) {
+                System.err.println("Invalid relationship: malformed car uuid " + carUuid);
+                return;
+            }
+            int[] ids = linkEngines(engineUuids, engineIndex, engineType);
+            int carId = carIndex.add(parsedCarUuid);
+            if (carId == engineIdsByCar.size()) {
+                engineIdsByCar.add(ids);
+            } else {
+                engineIdsByCar.set(carId, ids);
+            }
+        });
+
+        int[][] carIdsByEngine = new int[carUuidsByEngine.length][];
+        for (int engineId = 0; engineId < carUuidsByEngine.length; engineId++) {
+            carIdsByEngine[engineId] = addCars(carUuidsByEngine[engineId], carIndex);
+        }
+        while (engineIdsByCar.size() < carIndex.size()) {
+            engineIdsByCar.add(new int[0]);
+        }
+        CarEngineGraph graph = CarEngineGraph.build(engineIndex.size(), carIndex.size(),
+                engineId -> engineId < carIdsByEngine.length ? carIdsByEngine[engineId] : null);
+        return new CarLinks(carIndex, engineIdsByCar.toArray(new int[0][]), TemporalIndex.build(carIndex, intervals), graph);
+    }
+
+    /**
+     * Returns the ids of the given cars, assigning new ids to cars not indexed yet.
+     */
+    static int[] addCars(UUID[] carUuids, UuidIndex carIndex) {
+        if (carUuids == null) {
+            return null;
+        }
+        int[] carIds = new int[carUuids.length];
+        for (int i = 0; i < carUuids.length; i++) {
+            carIds[i] = carIndex.add(carUuids[i]);
+        }
+        return carIds;
+    }
+
+    static int[] linkEngines(Collection<?> engineUuids, UuidIndex engineIndex, IntUnaryOperator engineType) {
+        if (engineUuids == null) {
+            return new int[0];
+        }
+        return engineUuids.stream()
+                .mapToInt(engineUuid -> engineIndex.get(String.valueOf(engineUuid)))
+                .filter(id -> id >= 0)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer id) -> engineType.applyAsInt(id)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Returns the well-formed UUIDs in an engine's {@code carUuids}.
+     */
+    static UUID[] carUuids(JsonNode carUuidsNode) {
+        List<UUID> carUuids = new ArrayList<>(carUuidsNode.size());
+        carUuidsNode.forEach(node -> {
+            UUID carUuid = UuidIndex.parse(node.asText(null));
+            if (carUuid != null) {
+                carUuids.add(carUuid);
+            }
+        });
+        return carUuids.isEmpty() ? NO_UUIDS : carUuids.toArray(NO_UUIDS);
+    }
+
+    private static Map<String, Set<String>> loadRelationships() {
+        // Load relationships from generated file
+        try (InputStream is = CatalogLoader.class.getClassLoader().getResourceAsStream("generated/relationships.json")) {
+            if (is == null) {
+                throw new RuntimeException("Relationships file not found");
+            }
+            return objectMapper.readValue(is,
+                    objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Set.class));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load relationships", e);
+        }
+    }
+
+    static Map<String, Set<String>> readRelationships(Path relationshipsFile) {
+        try {
+            return objectMapper.readValue(relationshipsFile.toFile(),
+                    objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Set.class));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load relationships from " + relationshipsFile, e);
+        }
+    }
+
+    private static Map<String, List<TemporalIndex.Interval>> loadIntervals() {
+        // Intervals are optional; without them every relationship is treated as always valid
+        try (InputStream is = CatalogLoader.class.getClassLoader().getResourceAsStream("generated/relationship-intervals.json")) {
+            return is == null ? Map.of() : toIntervals(objectMapper.readValue(is, INTERVALS_TYPE));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load relationship intervals", e);
+        }
+    }
+
+    static Map<String, List<TemporalIndex.Interval>> readIntervals(Path intervalsFile) {
+        if (!Files.exists(intervalsFile)) {
+            return Map.of();
+        }
+        try {
+            return toIntervals(objectMapper.readValue(intervalsFile.toFile(), INTERVALS_TYPE));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load relationship intervals from " + intervalsFile, e);
+        }
+    }
+
+    static Path intervalsFileFor(Path relationshipsFile) {
+        return relationshipsFile.resolveSibling("relationship-intervals.json");
+    }
+
+    private static Map<String, List<TemporalIndex.Interval>> toIntervals(Map<String, List<Map<String, String>>> raw) {
+        Map<String, List<TemporalIndex.Interval>> intervals = new HashMap<>();
+        raw.forEach((carUuid, relationships) -> {
+            List<TemporalIndex.Interval> carIntervals = new ArrayList<>(relationships.size());
+            for (Map<String, String> relationship : relationships) {
+                UUID engineUuid = UuidIndex.parse(relationship.get("engineUuid"));
+                if (engineUuid == null || relationship.get("validFrom") == null) {
+                    System.err.println("Invalid relationship interval for car " + carUuid + ": " + relationship);
+                    continue;
+                }
+                String validTo = relationship.get("validTo");
+                carIntervals.add(new TemporalIndex.Interval(engineUuid, toEpochMillis(relationship.get("validFrom")),
+                        validTo == null ? Long.MAX_VALUE : toEpochMillis(validTo)));
+            }
+            intervals.put(carUuid, carIntervals);
+        });
+        return intervals;
+    }
+
+    private static long toEpochMillis(String dateTime) {
+        return ZonedDateTime.parse(dateTime).toInstant().toEpochMilli();
+    }
+
+    private static byte[] toTypeArray(List<Integer> typeById) {
+        byte[] engineTypes = new byte[typeById.size()];
+        for (int i = 0; i < engineTypes.length; i++) {
+            engineTypes[i] = typeById.get(i).byteValue();
+        }
+        return engineTypes;
+    }
+
+    @FunctionalInterface
+    interface DocumentReader<S> {
+        RawDocument read(S source) throws IOException;
+    }
+
+    record RawDocument(String path, byte[] content) {
+    }
+
+    record ParsedDocument(String path, UUID uuid, int type, byte[] content, UUID[] carUuids) {
+    }
+
+    record CarLinks(UuidIndex carIndex, int[][] carEngineIds, TemporalIndex temporalIndex, CarEngineGraph carEngineGraph) {
+    }
+
+    /**
+     * Result of a load: the catalog, the engine UUID loaded from each document path, and how long
+     * each phase took.
+     */
+    public record Result(EngineCatalog catalog, Map<String, UUID> sources, PhaseTimings timings) {
+    }
+
+    public record PhaseTimings(long scanNanos, long readNanos, long parseNanos, long indexNanos, long relationshipsNanos) {
+        public long totalNanos() {
+            return scanNanos + readNanos + parseNanos + indexNanos + relationshipsNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("scan=%.1fms read=%.1fms parse=%.1fms index=%.1fms relationships=%.1fms total=%.1fms",
+                    scanNanos / 1e6, readNanos / 1e6, parseNanos / 1e6, indexNanos / 1e6, relationshipsNanos / 1e6, totalNanos() / 1e6);
+        }
+    }
+}
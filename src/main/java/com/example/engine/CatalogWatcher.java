@@ -0,0 +1,222 @@
+package com.example.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Watches an instances directory and the relationship files for changes and publishes a new
+ * {@link EngineCatalog} snapshot for each batch of changes. Only the engines whose files were
+ * added, changed or removed, and the cars that reference them, are re-indexed; everything else is
+ * shared with the previous snapshot. Snapshots are built on the watcher thread, so readers keep
+ * using the previous one until the new one is published.
+ */
+public class CatalogWatcher implements Closeable {
+    // Editors and build tools often write a file in several steps, so wait for events to settle
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path instancesDir;
+    private final Path engineDir;
+    private final Path relationshipsFile;
+    private final Path intervalsFile;
+    private final BiConsumer<EngineCatalog, Collection<UUID>> publisher;
+    private final WatchService watchService;
+    private final CatalogLoader.PhaseTimings initialTimings;
+    private final Map<Path, UUID> fileToUuid = new HashMap<>();
+    private Map<String, Set<String>> relationships;
+    private Map<UUID, List<String>> carsByEngine;
+    private EngineCatalog current;
+    // Generation of the next full reload, past every generation published before it
+    private long nextReloadGeneration;
+    private volatile boolean closed;
+
+    private CatalogWatcher(Path instancesDir, Path relationshipsFile, long generation,
+                           BiConsumer<EngineCatalog, Collection<UUID>> publisher) throws IOException {
+        this.instancesDir = instancesDir.toAbsolutePath();
+        this.engineDir = this.instancesDir.resolve("engines");
+        this.relationshipsFile = relationshipsFile.toAbsolutePath();
+        this.intervalsFile = CatalogLoader.intervalsFileFor(this.relationshipsFile);
+        this.publisher = publisher;
+        this.nextReloadGeneration = generation;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        engineDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.relationshipsFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        // Register before the initial load so no change made during it is missed
+        this.initialTimings = reloadAll();
+    }
+
+    /**
+     * Loads the catalog from {@code instancesDir} and {@code relationshipsFile}, hands it to
+     * {@code publisher}, and keeps publishing updated snapshots on a daemon thread until closed.
+     * The publisher also receives the UUIDs of the engines that changed since the previous snapshot.
+     */
+    public static CatalogWatcher start(Path instancesDir, Path relationshipsFile,
+                                       BiConsumer<EngineCatalog, Collection<UUID>> publisher) throws IOException {
+        return start(instancesDir, relationshipsFile, 0, publisher);
+    }
+
+    /**
+     * Starts watching like {@link #start(Path, Path, BiConsumer)}, with the first catalog at
+     * {@code generation}. A caller replacing a catalog it already serves passes a generation past
+     * that catalog's, so engine revisions, and whatever is keyed by them, never repeat.
+     */
+    public static CatalogWatcher start(Path instancesDir, Path relationshipsFile, long generation,
+                                       BiConsumer<EngineCatalog, Collection<UUID>> publisher) throws IOException {
+        CatalogWatcher watcher = new CatalogWatcher(instancesDir, relationshipsFile, generation, publisher);
+        Thread thread = new Thread(watcher::run, "engine-catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    public CatalogLoader.PhaseTimings getInitialTimings() {
+        return initialTimings;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+
+    private void run() {
+        while (!closed) {
+            Set<Path> changedFiles = new TreeSet<>();
+            boolean relationshipsChanged = false;
+            boolean overflow = false;
+            try {
+                WatchKey key = watchService.take();
+                do {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+                        Path file = dir.resolve((Path) event.context());
+                        if (file.equals(relationshipsFile) || file.equals(intervalsFile)) {
+                            relationshipsChanged = true;
+                        } else if (dir.equals(engineDir) && file.toString().endsWith(".json")) {
+                            changedFiles.add(file);
+                        }
+                    }
+                    key.reset();
+                } while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+
+            try {
+                if (overflow) {
+                    // Events were lost, so the only safe option is a full reload
+                    reloadAll();
+                } else {
+                    apply(changedFiles, relationshipsChanged);
+                }
+            } catch (RuntimeException e) {
+                // Keep serving the previous snapshot; the next change retries
+                System.err.println("Failed to reload engine catalog: " + e.getMessage());
+            }
+        }
+    }
+
+    private CatalogLoader.PhaseTimings reloadAll() {
+        // Every engine gets a revision no earlier snapshot used, so instances cached from those
+        // snapshots can never be served for the reloaded documents
+        CatalogLoader.Result result = CatalogLoader.loadFromDirectory(instancesDir, relationshipsFile, nextReloadGeneration);
+        Set<UUID> changed = new HashSet<>(fileToUuid.values());
+        fileToUuid.clear();
+        result.sources().forEach((path, uuid) -> fileToUuid.put(instancesDir.resolve(path), uuid));
+        changed.addAll(fileToUuid.values());
+        relationships = CatalogLoader.readRelationships(relationshipsFile);
+        carsByEngine = invert(relationships);
+        current = result.catalog();
+        nextReloadGeneration = current.generation() + 1;
+        publisher.accept(current, changed);
+        return result.timings();
+    }
+
+    private void apply(Set<Path> changedFiles, boolean relationshipsChanged) {
+        List<CatalogLoader.ParsedDocument> upserts = new ArrayList<>();
+        Set<UUID> removals = new LinkedHashSet<>();
+        for (Path file : changedFiles) {
+            UUID previous = fileToUuid.get(file);
+            if (Files.exists(file)) {
+                CatalogLoader.ParsedDocument document;
+                try {
+                    document = CatalogLoader.parse(CatalogLoader.readFile(instancesDir, file));
+                } catch (IOException e) {
+                    System.err.println("Failed to load JSON document: " + file);
+                    continue;
+                }
+                if (document == null) {
+                    // Invalid documents were already reported; keep serving the previous version
+                    continue;
+                }
+                if (previous != null && !previous.equals(document.uuid())) {
+                    removals.add(previous);
+                }
+                upserts.add(document);
+                fileToUuid.put(file, document.uuid());
+            } else if (previous != null) {
+                removals.add(previous);
+                fileToUuid.remove(file);
+            }
+        }
+
+        EngineCatalog next = current;
+        if (relationshipsChanged) {
+            relationships = CatalogLoader.readRelationships(relationshipsFile);
+            carsByEngine = invert(relationships);
+            next = next.withRelationships(relationships, CatalogLoader.readIntervals(intervalsFile));
+        }
+        if (!upserts.isEmpty() || !removals.isEmpty()) {
+            next = next.withChanges(upserts, removals, relationships, carsByEngine);
+        }
+        if (next == current) {
+            return;
+        }
+
+        Set<UUID> changed = new HashSet<>(removals);
+        upserts.forEach(document -> changed.add(document.uuid()));
+        current = next;
+        nextReloadGeneration = next.generation() + 1;
+        publisher.accept(next, changed);
+        System.out.println("Reloaded engine catalog generation " + next.generation() + ": " + upserts.size()
+                + " engines updated, " + removals.size() + " removed" + (relationshipsChanged ? ", relationships relinked" : ""));
+    }
+
+    private static Map<UUID, List<String>> invert(Map<String, Set<String>> relationships) {
+        Map<UUID, List<String>> carsByEngine = new HashMap<>();
+        relationships.forEach((carUuid, engineUuids) -> {
+            for (Object engineUuid : engineUuids) {
+                UUID parsed = UuidIndex.parse(String.valueOf(engineUuid));
+                if (parsed != null) {
+                    carsByEngine.computeIfAbsent(parsed, k -> new ArrayList<>()).add(carUuid);
+                }
+            }
+        });
+        return carsByEngine;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads property values for the compact models {@code com.example.CompactModelGenerator} emits.
+ * Each method expects the parser on the value's first token and leaves it on the value's last
+ * one. Values are read straight from the token stream, so a model is built without a tree or
+ * boxed intermediates; a token of the wrong type fails with the property's name. Strings of
+ * arrays are enumerated values that repeat across instances, so they come from
+ * {@link ValuePool#CATALOG}.
+ */
+public final class CompactReader {
+    private static final JsonFactory factory = new JsonFactory();
+    private static final String[] NO_STRINGS = new String[0];
+    private static final long[] NO_UUIDS = new long[0];
+
+    private CompactReader() {
+    }
+
+    public static JsonParser parser(byte[] json) throws IOException {
+        return factory.createParser(json);
+    }
+
+    /**
+     * Moves a parser that has not been read yet onto its first token, and checks that the value
+     * is an object.
+     */
+    public static void startObject(JsonParser parser, String schemaType) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a " + schemaType + " object, found " + parser.currentToken());
+        }
+    }
+
+    public static String string(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken() == JsonToken.VALUE_STRING, "a string");
+        return parser.getText();
+    }
+
+    public static long integer(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken() == JsonToken.VALUE_NUMBER_INT, "an integer");
+        return parser.getLongValue();
+    }
+
+    public static double number(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken().isNumeric(), "a number");
+        return parser.getDoubleValue();
+    }
+
+    public static boolean bool(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken().isBoolean(), "a boolean");
+        return parser.getBooleanValue();
+    }
+
+    /**
+     * Reads a UUID string as its two halves, most significant first.
+     */
+    public static long[] uuid(JsonParser parser, String property) throws IOException {
+        UUID uuid = UuidIndex.parse(string(parser, property));
+        expect(parser, property, uuid != null, "a UUID");
+        return new long[]{uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()};
+    }
+
+    /**
+     * Reads an array of UUID strings as one array of halves: most and least significant bits of
+     * each UUID in turn.
+     */
+    public static long[] uuids(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken() == JsonToken.START_ARRAY, "an array");
+        long[] bits = NO_UUIDS;
+        int length = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            UUID uuid = UuidIndex.parse(string(parser, property));
+            expect(parser, property, uuid != null, "an array of UUIDs");
+            if (length == bits.length) {
+                bits = Arrays.copyOf(bits, Math.max(8, 2 * bits.length));
+            }
+            bits[length++] = uuid.getMostSignificantBits();
+            bits[length++] = uuid.getLeastSignificantBits();
+        }
+        return length == bits.length ? bits : Arrays.copyOf(bits, length);
+    }
+
+    public static String[] strings(JsonParser parser, String property) throws IOException {
+        expect(parser, property, parser.currentToken() == JsonToken.START_ARRAY, "an array");
+        List<String> strings = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            strings.add(ValuePool.CATALOG.string(string(parser, property)));
+        }
+        return strings.isEmpty() ? NO_STRINGS : strings.toArray(NO_STRINGS);
+    }
+
+    public static long[] noUuids() {
+        return NO_UUIDS;
+    }
+
+    public static String[] noStrings() {
+        return NO_STRINGS;
+    }
+
+    /**
+     * Fails if a bit of {@code required} is not set in {@code present}, naming the first missing
+     * property; bit {@code i} stands for {@code properties[i]}.
+     */
+    public static void checkRequired(JsonParser parser, String schemaType, int present, int required, String[] properties)
+            throws IOException {
+        int missing = required & ~present;
+        if (missing != 0) {
+            throw new JsonParseException(parser, "Missing required property " + properties[Integer.numberOfTrailingZeros(missing)]
+                    + " in " + schemaType);
+        }
+    }
+
+    private static void expect(JsonParser parser, String property, boolean condition, String expected) throws IOException {
+        if (!condition) {
+            throw new JsonParseException(parser, "Expected " + expected + " for " + property + ", found " + parser.currentToken());
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.engine;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, fully indexed view of the engine instances and car relationships that
+ * {@link EngineService} answers lookups from. Engines and cars are addressed by the dense int ids
+ * their {@link UuidIndex} assigns; per-engine and per-car data is kept in {@link PagedArray}s
+ * indexed by id.
+ *
+ * <p>Updates never modify a catalog: {@link #withChanges} and {@link #withRelationships} return a
+ * new snapshot. {@link #withChanges} shares every page the update does not write to, so a batch of
+ * k changed engines costs the page tables plus the pages holding those engines and their cars,
+ * rather than a copy of the catalog. {@link #withRelationships} relinks every car and so costs the
+ * size of the relationships.
+ */
+public class EngineCatalog {
+    // Engine schema types in a fixed order; an engine's type is stored as its position in this list
+    public static final List<String> ENGINE_SCHEMA_TYPES = SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.values().stream()
+            .filter(schemaType -> schemaType.startsWith("engine-"))
+            .distinct()
+            .sorted()
+            .toList();
+    private static final int[] NO_ENGINES = new int[0];
+    private static final byte REMOVED = -1;
+
+    private final UuidIndex engineIndex;
+    // Engine documents live either in a mapped binary catalog, where ids are catalog positions, or on heap
+    private final BinaryCatalog mappedDocuments;
+    private final PagedArray.Objects<byte[]> documents;
+    private final PagedArray.Bytes engineTypes;
+    // Generation in which each engine's document last changed
+    private final PagedArray.Longs engineRevisions;
+    private final long generation;
+    private final UuidIndex carIndex;
+    // Car id -> engine ids, grouped by engine type; null for a car no relationship names
+    private final PagedArray.Objects<int[]> carEngineIds;
+    private final TemporalIndex temporalIndex;
+    // Engine <-> car adjacency from the engines' own carUuids
+    private final CarEngineGraph carEngineGraph;
+
+    /**
+     * Creates a catalog whose engines all have {@code generation} as their revision.
+     */
+    EngineCatalog(UuidIndex engineIndex, BinaryCatalog mappedDocuments, byte[][] documents, byte[] engineTypes,
+                  long generation, CatalogLoader.CarLinks links) {
+        this(engineIndex, mappedDocuments, documents == null ? null : PagedArray.Objects.of(documents),
+                PagedArray.Bytes.of(engineTypes), revisions(engineTypes.length, generation), generation,
+                links.carIndex(), PagedArray.Objects.of(links.carEngineIds()), links.temporalIndex(), links.carEngineGraph());
+    }
+
+    private EngineCatalog(UuidIndex engineIndex, BinaryCatalog mappedDocuments, PagedArray.Objects<byte[]> documents,
+                          PagedArray.Bytes engineTypes, PagedArray.Longs engineRevisions, long generation, UuidIndex carIndex,
+                          PagedArray.Objects<int[]> carEngineIds, TemporalIndex temporalIndex, CarEngineGraph carEngineGraph) {
+        this.engineIndex = engineIndex;
+        this.mappedDocuments = mappedDocuments;
+        this.documents = documents;
+        this.engineTypes = engineTypes;
+        this.engineRevisions = engineRevisions;
+        this.generation = generation;
+        this.carIndex = carIndex;
+        this.carEngineIds = carEngineIds;
+        this.temporalIndex = temporalIndex;
+        this.carEngineGraph = carEngineGraph;
+    }
+
+    public int engineCount() {
+        return engineIndex.size();
+    }
+
+    public int carCount() {
+        return carIndex.size();
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Returns the id of the engine with the given UUID, or -1 if there is none.
+     */
+    public int findEngine(String engineUuid) {
+        int engineId = engineIndex.get(engineUuid);
+        return engineId >= 0 && engineTypes.get(engineId) != REMOVED ? engineId : -1;
+    }
+
+    public UUID engineUuid(int engineId) {
+        return engineIndex.uuid(engineId);
+    }
+
+    public long engineMostSignificantBits(int engineId) {
+        return engineIndex.mostSignificantBits(engineId);
+    }
+
+    public long engineLeastSignificantBits(int engineId) {
+        return engineIndex.leastSignificantBits(engineId);
+    }
+
+    /**
+     * Returns the engine's position in {@link #ENGINE_SCHEMA_TYPES}, or -1 for an unknown or
+     * removed engine.
+     */
+    public int engineType(int engineId) {
+        return engineTypes.get(engineId);
+    }
+
+    public long engineRevision(int engineId) {
+        return engineRevisions.get(engineId);
+    }
+
+    public byte[] engineDocument(int engineId) {
+        return mappedDocuments != null ? mappedDocuments.documentBytes(engineId) : documents.get(engineId);
+    }
+
+    /**
+     * Returns the ids of the car's engines grouped by type, or an empty array for an unknown car.
+     */
+    public int[] engineIdsForCar(String carUuid) {
+        return carEngineIds(carIndex.get(carUuid));
+    }
+
+    public UUID carUuid(int carId) {
+        return carIndex.uuid(carId);
+    }
+
+    /**
+     * Returns the number of cars the engine lists in its {@code carUuids}.
+     */
+    public int carCountForEngine(int engineId) {
+        return carEngineGraph.carCount(engineId);
+    }
+
+    /**
+     * Returns up to {@code limit} of the ids of the cars the engine lists in its {@code carUuids},
+     * in car id order, skipping the first {@code offset}. Car ids, and so pages, stay stable across
+     * engine updates; relinking all relationships may renumber them.
+     */
+    public int[] carIdsForEngine(int engineId, int offset, int limit) {
+        return carEngineGraph.carIds(engineId, offset, limit);
+    }
+
+    /**
+     * Returns the ids of the engines whose {@code carUuids} list the car, in engine id order.
+     */
+    public int[] engineIdsListingCar(String carUuid) {
+        return carEngineGraph.engineIds(carIndex.get(carUuid));
+    }
+
+    /**
+     * Returns the ids of the car's engines valid at {@code at}, in order of validity start. Cars
+     * without recorded validity intervals are linked to all their engines at all times.
+     */
+    public int[] engineIdsForCarAt(String carUuid, long at) {
+        return engineIdsForCarBetween(carUuid, at, at + 1);
+    }
+
+    /**
+     * Returns the ids of the car's engines valid at any time in [{@code from}, {@code to}), in
+     * order of validity start, once per interval. Cars without recorded validity intervals are
+     * linked to all their engines at all times.
+     */
+    public int[] engineIdsForCarBetween(String carUuid, long from, long to) {
+        int carId = carIndex.get(carUuid);
+        if (carId < 0) {
+            return NO_ENGINES;
+        }
+        if (!temporalIndex.hasIntervals(carId)) {
+            return from < to ? carEngineIds(carId) : NO_ENGINES;
+        }
+        IntStream.Builder engineIds = IntStream.builder();
+        temporalIndex.forEachOverlapping(carId, from, to, (msb, lsb, validFrom, validTo) -> {
+            int engineId = engineIndex.get(msb, lsb);
+            if (engineId >= 0 && engineTypes.get(engineId) != REMOVED) {
+                engineIds.add(engineId);
+            }
+        });
+        return engineIds.build().toArray();
+    }
+
+    /**
+     * Returns a new snapshot with the given engines added or replaced and the removed ones dropped.
+     * Only the adjacency of cars that reference a changed engine is relinked, and only the graph
+     * pages holding changed engines and their cars are rebuilt. Removed engines keep their id as
+     * a tombstone so ids stay stable across snapshots.
+     */
+    EngineCatalog withChanges(Collection<CatalogLoader.ParsedDocument> upserts, Collection<UUID> removals,
+                              Map<String, Set<String>> relationships, Map<UUID, List<String>> carsByEngine) {
+        if (mappedDocuments != null) {
+            throw new IllegalStateException("A memory-mapped catalog cannot be updated in place");
+        }
+        long nextGeneration = generation + 1;
+        UuidIndex nextEngineIndex = engineIndex.copy();
+        PagedArray.Objects<byte[]> nextDocuments = documents.copy();
+        PagedArray.Bytes nextTypes = engineTypes.copy();
+        PagedArray.Longs nextRevisions = engineRevisions.copy();
+        Set<UUID> changed = new HashSet<>();
+        Map<Integer, int[]> changedCarIds = new HashMap<>();
+        UuidIndex nextCarIndex = carIndex.copy();
+
+        for (UUID uuid : removals) {
+            int engineId = nextEngineIndex.get(uuid);
+            if (engineId >= 0) {
+                nextDocuments.set(engineId, null);
+                nextTypes.set(engineId, REMOVED);
+                nextRevisions.set(engineId, nextGeneration);
+                changed.add(uuid);
+                changedCarIds.put(engineId, null);
+            }
+        }
+        for (CatalogLoader.ParsedDocument document : upserts) {
+            int engineId = nextEngineIndex.add(document.uuid());
+            nextDocuments.set(engineId, document.content());
+            nextTypes.set(engineId, (byte) document.type());
+            nextRevisions.set(engineId, nextGeneration);
+            changed.add(document.uuid());
+            changedCarIds.put(engineId, CatalogLoader.addCars(document.carUuids(), nextCarIndex));
+        }
+
+        // Cars first named by an updated engine get new ids after the existing ones, with no engines
+        // until a relationship names them
+        PagedArray.Objects<int[]> nextCarEngineIds = carEngineIds.copy();
+        for (UUID engineUuid : changed) {
+            for (String carUuid : carsByEngine.getOrDefault(engineUuid, List.of())) {
+                int carId = nextCarIndex.get(carUuid);
+                if (carId >= 0) {
+                    nextCarEngineIds.set(carId, CatalogLoader.linkEngines(relationships.get(carUuid), nextEngineIndex, nextTypes::get));
+                }
+            }
+        }
+        CarEngineGraph nextGraph = carEngineGraph.withRows(nextEngineIndex.size(), nextCarIndex.size(), changedCarIds);
+        return new EngineCatalog(nextEngineIndex, null, nextDocuments, nextTypes, nextRevisions, nextGeneration,
+                nextCarIndex, nextCarEngineIds, temporalIndex, nextGraph);
+    }
+
+    /**
+     * Returns a new snapshot with the same engines and every car relinked from {@code relationships}
+     * and {@code intervals}.
+     */
+    EngineCatalog withRelationships(Map<String, Set<String>> relationships, Map<String, List<TemporalIndex.Interval>> intervals) {
+        // Car ids are reassigned, so carry each engine's cars over by UUID
+        UUID[][] carUuidsByEngine = new UUID[engineCount()][];
+        for (int engineId = 0; engineId < carUuidsByEngine.length; engineId++) {
+            int[] carIds = carEngineGraph.carIds(engineId);
+            carUuidsByEngine[engineId] = new UUID[carIds.length];
+            for (int i = 0; i < carIds.length; i++) {
+                carUuidsByEngine[engineId][i] = carIndex.uuid(carIds[i]);
+            }
+        }
+        CatalogLoader.CarLinks links = CatalogLoader.linkCars(relationships, intervals, engineIndex, engineTypes::get, carUuidsByEngine);
+        return new EngineCatalog(engineIndex, mappedDocuments, documents, engineTypes, engineRevisions, generation + 1,
+                links.carIndex(), PagedArray.Objects.of(links.carEngineIds()), links.temporalIndex(), links.carEngineGraph());
+    }
+
+    private int[] carEngineIds(int carId) {
+        // Cars added by an update past the end of the array have no engines yet
+        int[] engineIds = carId < 0 || carId >= carEngineIds.capacity() ? null : carEngineIds.get(carId);
+        return engineIds == null ? NO_ENGINES : engineIds;
+    }
+
+    private static PagedArray.Longs revisions(int engineCount, long generation) {
+        PagedArray.Longs revisions = new PagedArray.Longs(engineCount);
+        if (generation != 0) {
+            for (int engineId = 0; engineId < engineCount; engineId++) {
+                revisions.set(engineId, generation);
+            }
+        }
+        return revisions;
+    }
+}
@@ -1,138 +1,386 @@
 
         package com.example.engine;
 
-import com.example.engine.generated.engines.EngineGas;
-import com.example.engine.generated.engines.EngineElectric;
-import com.example.engine.generated.engines.EngineHybrid;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.engine.generated.codec.ModelCopies;
+import com.example.engine.generated.codec.ModelsModule;
+import com.example.engine.generated.compact.CompactModels;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ScanResult;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 public class EngineService {
-    private static final Map<String, String> nameToJson = new ConcurrentHashMap<>();
-    private static final Map<String, String> uuidToJson = new ConcurrentHashMap<>();
-    private static final Map<String, String> nameToSchemaType = new ConcurrentHashMap<>();
-    private static final Map<String, Set<String>> carUuidToEngineUuids;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    static {
-        // Load relationships from generated file
-        try (InputStream is = EngineService.class.getClassLoader().getResourceAsStream("generated/relationships.json")) {
-            if (is == null) {
-                throw new RuntimeException("Relationships file not found");
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new ModelsModule());
+    private static final List<String> engineSchemaTypes = EngineCatalog.ENGINE_SCHEMA_TYPES;
+    // A reader per engine type, indexed like engineSchemaTypes, with the generated deserializer
+    // already resolved; null for a type without a jsonschema2pojo class
+    private static final ObjectReader[] engineReaders = createEngineReaders();
+    // Loaded on first use rather than during class initialization, so a failed load is reported
+    // to the caller and retried on the next lookup instead of poisoning the class. Readers take
+    // whichever snapshot is current; reloads publish a complete new one through this reference.
+    private static volatile EngineCatalog catalog;
+    private static volatile CatalogLoader.PhaseTimings loadTimings;
+    // Documents never change after loading, so each engine is deserialized at most once per cache entry.
+    // Cached instances are shared and never handed out as they are: jsonschema2pojo models are
+    // mutable, so callers get a copy of them, while compact models are immutable and shared as is.
+    private static final InstanceCache<CacheKey, Object> instanceCache = InstanceCache.fromSystemProperties();
+
+    public static <T> Optional<T> getEngineForCar(String carUuid, Class<T> engineClass) {
+        String schemaType = getEngineSchemaType(engineClass);
+        int type = engineSchemaTypes.indexOf(schemaType);
+        EngineCatalog catalog = getCatalog();
+        int[] engineIds = catalog.engineIdsForCar(carUuid);
+
+        int matches = 0;
+        for (int engineId : engineIds) {
+            if (catalog.engineType(engineId) == type) {
+                matches++;
             }
-            carUuidToEngineUuids = objectMapper.readValue(is,
-                    objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Set.class));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load relationships", e);
-        }
-
-        // Load JSON documents from engines subfolder
-        try (ScanResult scanResult = new ClassGraph().acceptPaths("/instances/engines").enableAllInfo().scan()) {
-            scanResult.getResourcesWithExtension("json").forEach(resource -> {
-                try (InputStream is = resource.open()) {
-                    String jsonContent = new String(is.readAllBytes());
-                    JsonNode jsonNode = objectMapper.readTree(jsonContent);
-                    String name = jsonNode.get("name") != null ? jsonNode.get("name").asText() : null;
-                    String uuid = jsonNode.get("uuid") != null ? jsonNode.get("uuid").asText() : null;
-                    String filePath = resource.getPath();
-                    String schemaType = filePath.substring(filePath.lastIndexOf('/') + 1, filePath.lastIndexOf('-'));
-
-                    if (name == null || uuid == null) {
-                        System.err.println("Invalid JSON document: " + filePath + " - Missing name or uuid");
-                        return;
-                    }
+        }
+        if (matches > 1) {
+            System.err.println("Warning: Multiple " + schemaType + " instances found for Car UUID: " + carUuid + "; selecting first");
+        }
 
-                    nameToJson.put(name, jsonContent);
-                    uuidToJson.put(uuid, jsonContent);
-                    nameToSchemaType.put(name, schemaType);
-                } catch (IOException e) {
-                    System.err.println("Failed to load JSON document: " + resource.getPath());
+        for (int engineId : engineIds) {
+            if (catalog.engineType(engineId) == type) {
+                Object engine = loadEngineInstance(catalog, engineId, engineClass);
+                if (engineClass.isInstance(engine)) {
+                    return Optional.of(engineClass.cast(engine));
                 }
-            });
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to initialize EngineService", e);
+            }
         }
+        return Optional.empty();
     }
 
-    public static <T> Optional<T> getEngineForCar(String carUuid, Class<T> engineClass) {
-        String schemaType = SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.get(engineClass);
-        if (schemaType == null || !schemaType.startsWith("engine-")) {
-            throw new IllegalArgumentException("Unknown or invalid engine class: " + engineClass.getName());
+    /**
+     * Returns the engine of the given class that was installed in the car at {@code at}. If several
+     * match, the one whose relationship started most recently wins. Cars without recorded validity
+     * intervals are treated as having had all their engines at all times.
+     */
+    public static <T> Optional<T> getEngineForCar(String carUuid, Class<T> engineClass, Instant at) {
+        String schemaType = getEngineSchemaType(engineClass);
+        int type = engineSchemaTypes.indexOf(schemaType);
+        EngineCatalog catalog = getCatalog();
+        int[] engineIds = catalog.engineIdsForCarAt(carUuid, at.toEpochMilli());
+
+        int match = -1;
+        int matches = 0;
+        for (int engineId : engineIds) {
+            if (catalog.engineType(engineId) == type) {
+                match = engineId;
+                matches++;
+            }
         }
-        String engineType = schemaType.substring("engine-".length());
-        Set<String> engineUuids = carUuidToEngineUuids.getOrDefault(carUuid, Set.of()).stream()
-                .filter(uuid -> nameToSchemaType.getOrDefault(
-                                nameToJson.entrySet().stream()
-                                        .filter(e -> e.getValue().equals(uuidToJson.get(uuid)))
-                                        .map(Map.Entry::getKey)
-                                        .findFirst()
-                                        .orElse(""), "")
-                        .equals(schemaType))
-                .collect(Collectors.toSet());
-
-        if (engineUuids.size() > 1) {
-            System.err.println("Warning: Multiple " + schemaType + " instances found for Car UUID: " + carUuid + "; selecting first");
+        if (matches > 1) {
+            System.err.println("Warning: Multiple " + schemaType + " instances found for Car UUID: " + carUuid
+                    + " at " + at + "; selecting most recent");
+        }
+        if (match < 0) {
+            return Optional.empty();
         }
+        Object engine = loadEngineInstance(catalog, match, engineClass);
+        return engineClass.isInstance(engine) ? Optional.of(engineClass.cast(engine)) : Optional.empty();
+    }
 
-        return engineUuids.stream()
-                .map(uuid -> getJsonDocumentByUuid(uuid))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .map(json -> createEngineInstance(json, schemaType, engineClass))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .findFirst();
+    /**
+     * Returns the engines of the given class that were installed in the car at any time in
+     * [{@code from}, {@code to}), in the order they were installed. An engine appears once per
+     * installation.
+     */
+    public static <T> List<T> getEnginesForCar(String carUuid, Class<T> engineClass, Instant from, Instant to) {
+        int type = engineSchemaTypes.indexOf(getEngineSchemaType(engineClass));
+        EngineCatalog catalog = getCatalog();
+        List<T> engines = new ArrayList<>();
+        for (int engineId : catalog.engineIdsForCarBetween(carUuid, from.toEpochMilli(), to.toEpochMilli())) {
+            if (catalog.engineType(engineId) == type) {
+                Object engine = loadEngineInstance(catalog, engineId, engineClass);
+                if (engineClass.isInstance(engine)) {
+                    engines.add(engineClass.cast(engine));
+                }
+            }
+        }
+        return engines;
     }
 
-    private static Optional<String> getJsonDocumentByUuid(String uuid) {
-        return Optional.ofNullable(uuidToJson.get(uuid));
+    /**
+     * Resolves the engine of the given class for each car in one pass over the relationship index.
+     * Cars without such an engine are left out of the result, which keeps the iteration order of
+     * {@code carUuids}. Engines shared between cars are deserialized once per call.
+     */
+    public static <T> Map<String, T> getEnginesForCars(Collection<String> carUuids, Class<T> engineClass) {
+        int type = engineSchemaTypes.indexOf(getEngineSchemaType(engineClass));
+        EngineCatalog catalog = getCatalog();
+        Map<CacheKey, Object> resolved = new HashMap<>();
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String carUuid : carUuids) {
+            Object engine = resolveFirstEngine(catalog, carUuid, type, engineClass, resolved);
+            if (engineClass.isInstance(engine)) {
+                result.put(carUuid, engineClass.cast(engine));
+            }
+        }
+        return result;
     }
 
-    private static <T> Optional<T> createEngineInstance(String json, String schemaType, Class<T> engineClass) {
-        try {
-            Class<?> targetClass = engineClass;
-            if (targetClass == null) {
-                for (Map.Entry<Class<?>, String> entry : SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.entrySet()) {
-                    if (entry.getValue().equals(schemaType)) {
-                        targetClass = entry.getKey();
-                        break;
-                    }
+    /**
+     * Resolves the engines of several classes for each car in one pass over the relationship index.
+     * Each of {@code engineClasses} maps, in order, to what {@link #getEnginesForCars(Collection, Class)}
+     * returns for it: the cars with an engine of that class, each to an instance of the class, in
+     * the order of {@code carUuids}. A class no car has an engine of maps to an empty map, so every
+     * class has an entry. Engines shared between cars are deserialized once per call.
+     */
+    public static Map<Class<?>, Map<String, ?>> getEnginesForCars(Collection<String> carUuids,
+                                                                  Collection<Class<?>> engineClasses) {
+        List<Class<?>> classes = List.copyOf(engineClasses);
+        int[] types = classes.stream()
+                .mapToInt(engineClass -> engineSchemaTypes.indexOf(getEngineSchemaType(engineClass)))
+                .toArray();
+        List<Map<String, Object>> enginesByClass = new ArrayList<>(classes.size());
+        Map<Class<?>, Map<String, ?>> result = new LinkedHashMap<>();
+        for (Class<?> engineClass : classes) {
+            Map<String, Object> engines = new LinkedHashMap<>();
+            enginesByClass.add(engines);
+            result.put(engineClass, engines);
+        }
+        EngineCatalog catalog = getCatalog();
+        Map<CacheKey, Object> resolved = new HashMap<>();
+        for (String carUuid : carUuids) {
+            for (int i = 0; i < types.length; i++) {
+                Object engine = resolveFirstEngine(catalog, carUuid, types[i], classes.get(i), resolved);
+                if (classes.get(i).isInstance(engine)) {
+                    enginesByClass.get(i).put(carUuid, engine);
                 }
             }
-            if (targetClass == null) {
-                throw new IllegalArgumentException("No class found for schema type: " + schemaType);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the UUIDs of all cars the engine lists in its {@code carUuids}, or an empty list for
+     * an unknown engine.
+     */
+    public static List<String> getCarsForEngine(String engineUuid) {
+        return getCarsForEngine(engineUuid, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns one page of the cars the engine lists in its {@code carUuids}: up to {@code limit}
+     * car UUIDs after skipping the first {@code offset}. Pages come from the reverse adjacency index,
+     * so their cost depends on the page size rather than on the engine's fan-out or the fleet size.
+     */
+    public static List<String> getCarsForEngine(String engineUuid, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid page: offset " + offset + ", limit " + limit);
+        }
+        EngineCatalog catalog = getCatalog();
+        int engineId = catalog.findEngine(engineUuid);
+        if (engineId < 0) {
+            return List.of();
+        }
+        int[] carIds = catalog.carIdsForEngine(engineId, offset, limit);
+        List<String> carUuids = new ArrayList<>(carIds.length);
+        for (int carId : carIds) {
+            carUuids.add(catalog.carUuid(carId).toString());
+        }
+        return carUuids;
+    }
+
+    /**
+     * Returns the number of cars the engine lists in its {@code carUuids}, for paging through
+     * {@link #getCarsForEngine(String, int, int)}.
+     */
+    public static int getCarCountForEngine(String engineUuid) {
+        EngineCatalog catalog = getCatalog();
+        int engineId = catalog.findEngine(engineUuid);
+        return engineId < 0 ? 0 : catalog.carCountForEngine(engineId);
+    }
+
+    public static InstanceCache.Stats getCacheStats() {
+        return instanceCache.stats();
+    }
+
+    /**
+     * Returns the phase timings of the catalog load, loading the catalog first if needed.
+     */
+    public static CatalogLoader.PhaseTimings getLoadTimings() {
+        getCatalog();
+        return loadTimings;
+    }
+
+    /**
+     * Loads the catalog from {@code instancesDir} and {@code relationshipsFile} on disk and keeps
+     * it up to date as files are added, changed or removed. Lookups never block on a reload; they
+     * see either the previous snapshot or the new one.
+     */
+    public static CatalogWatcher watch(Path instancesDir, Path relationshipsFile) throws IOException {
+        synchronized (EngineService.class) {
+            // Continue the generations of the catalog being replaced, so its cache keys are not reused
+            long generation = catalog == null ? 0 : catalog.generation() + 1;
+            CatalogWatcher watcher = CatalogWatcher.start(instancesDir, relationshipsFile, generation, EngineService::publish);
+            loadTimings = watcher.getInitialTimings();
+            return watcher;
+        }
+    }
+
+    /**
+     * Loads the catalog from {@code instancesDir} and {@code relationshipsFile} on disk once, like
+     * {@link #watch} but without following later changes, so nothing runs beside the lookups.
+     */
+    public static void load(Path instancesDir, Path relationshipsFile) {
+        synchronized (EngineService.class) {
+            long generation = catalog == null ? 0 : catalog.generation() + 1;
+            CatalogLoader.Result result = CatalogLoader.loadFromDirectory(instancesDir, relationshipsFile, generation);
+            loadTimings = result.timings();
+            catalog = result.catalog();
+        }
+    }
+
+    private static void publish(EngineCatalog next, Collection<UUID> changedEngines) {
+        EngineCatalog previous;
+        synchronized (EngineService.class) {
+            previous = catalog;
+            catalog = next;
+        }
+        // Changed engines get a new revision and so a new cache key; drop the entries of the old one
+        if (previous != null) {
+            for (UUID engineUuid : changedEngines) {
+                int engineId = previous.findEngine(engineUuid.toString());
+                if (engineId >= 0) {
+                    instanceCache.invalidate(getCacheKey(previous, engineId, false));
+                    instanceCache.invalidate(getCacheKey(previous, engineId, true));
+                }
             }
+        }
+    }
 
-            switch (schemaType) {
-                case "engine-gas":
-                    if (targetClass.equals(EngineGas.class)) {
-                        return Optional.of(targetClass.cast(objectMapper.readValue(json, EngineGas.class)));
-                    }
-                    break;
-                case "engine-electric":
-                    if (targetClass.equals(EngineElectric.class)) {
-                        return Optional.of(targetClass.cast(objectMapper.readValue(json, EngineElectric.class)));
-                    }
-                    break;
-                case "engine-hybrid":
-                    if (targetClass.equals(EngineHybrid.class)) {
-                        return Optional.of(targetClass.cast(objectMapper.readValue(json, EngineHybrid.class)));
+    private static EngineCatalog getCatalog() {
+        EngineCatalog current = catalog;
+        if (current == null) {
+            synchronized (EngineService.class) {
+                current = catalog;
+                if (current == null) {
+                    String watchDir = System.getProperty("engine.watchDir");
+                    if (watchDir != null) {
+                        Path instancesDir = Paths.get(watchDir);
+                        Path relationshipsFile = Paths.get(System.getProperty("engine.watchRelationships",
+                                instancesDir.resolveSibling("generated").resolve("relationships.json").toString()));
+                        try {
+                            watch(instancesDir, relationshipsFile);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Failed to watch engine instances in " + watchDir, e);
+                        }
+                        current = catalog;
+                    } else {
+                        CatalogLoader.Result result = CatalogLoader.load();
+                        loadTimings = result.timings();
+                        catalog = current = result.catalog();
                     }
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown schema type: " + schemaType);
+                }
             }
-            return Optional.empty();
-        } catch (Exception e) {
+        }
+        return current;
+    }
+
+    private static String getEngineSchemaType(Class<?> engineClass) {
+        String schemaType = SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.get(engineClass);
+        if (schemaType == null || !schemaType.startsWith("engine-")) {
+            throw new IllegalArgumentException("Unknown or invalid engine class: " + engineClass.getName());
+        }
+        return schemaType;
+    }
+
+    private static Object resolveFirstEngine(EngineCatalog catalog, String carUuid, int type, Class<?> engineClass,
+                                             Map<CacheKey, Object> resolved) {
+        for (int engineId : catalog.engineIdsForCar(carUuid)) {
+            if (catalog.engineType(engineId) == type) {
+                Object engine = resolved.computeIfAbsent(getCacheKey(catalog, engineId, isCompact(engineClass)),
+                        key -> loadSharedInstance(catalog, engineId, engineClass));
+                if (engine != null) {
+                    return copyIfMutable(engine);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the engine as an instance the caller may keep and modify.
+     */
+    private static Object loadEngineInstance(EngineCatalog catalog, int engineId, Class<?> engineClass) {
+        Object engine = loadSharedInstance(catalog, engineId, engineClass);
+        return engine == null ? null : copyIfMutable(engine);
+    }
+
+    /**
+     * Returns the cached engine instance, which must not be modified or handed out.
+     */
+    private static Object loadSharedInstance(EngineCatalog catalog, int engineId, Class<?> engineClass) {
+        int type = catalog.engineType(engineId);
+        return instanceCache.get(getCacheKey(catalog, engineId, isCompact(engineClass)),
+                key -> createEngineInstance(catalog.engineDocument(engineId), type, engineClass));
+    }
+
+    private static Object copyIfMutable(Object engine) {
+        // A copy costs a few field stores and a collection copy per set, far less than a parse
+        return isCompact(engine.getClass()) ? engine : ModelCopies.copy(engine);
+    }
+
+    private static CacheKey getCacheKey(EngineCatalog catalog, int engineId, boolean compact) {
+        // Include the revision so a reader still holding an older snapshot cannot cache a stale instance
+        return new CacheKey(catalog.engineMostSignificantBits(engineId), catalog.engineLeastSignificantBits(engineId),
+                catalog.engineRevision(engineId), compact);
+    }
+
+    private static boolean isCompact(Class<?> engineClass) {
+        return CompactModels.SCHEMA_TYPES.containsKey(engineClass);
+    }
+
+    /**
+     * Identifies one deserialized engine: its UUID, the revision of its document, and whether it
+     * is the compact model, since an engine may be cached both as its jsonschema2pojo class and as
+     * its compact model. Keys hash a few longs rather than a UUID string.
+     */
+    private record CacheKey(long msb, long lsb, long revision, boolean compact) {
+    }
+
+    private static ObjectReader[] createEngineReaders() {
+        ObjectReader[] readers = new ObjectReader[engineSchemaTypes.size()];
+        for (Map.Entry<Class<?>, String> entry : SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.entrySet()) {
+            int type = engineSchemaTypes.indexOf(entry.getValue());
+            if (type >= 0 && !isCompact(entry.getKey())) {
+                readers[type] = objectMapper.readerFor(entry.getKey());
+            }
+        }
+        return readers;
+    }
+
+    private static Object createEngineInstance(byte[] json, int type, Class<?> engineClass) {
+        String schemaType = engineSchemaTypes.get(type);
+        if (isCompact(engineClass)) {
+            try (JsonParser parser = CompactReader.parser(json)) {
+                return CompactModels.read(engineClass, parser);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse JSON for schema type " + schemaType, e);
+            }
+        }
+        ObjectReader reader = engineReaders[type];
+        if (reader == null) {
+            throw new IllegalArgumentException("Unknown schema type: " + schemaType);
+        }
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
             throw new RuntimeException("Failed to parse JSON for schema type " + schemaType, e);
         }
     }
@@ -1,82 +1,889 @@
  package com.example.engine;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.networknt.schema.JsonSchema;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
-import com.networknt.schema.ValidationMessage;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Validates the engine and car instances against their schemas and generates relationships.json,
+ * relationship-intervals.json and engines.catalog from them. Instances are read, parsed, validated
+ * and mined for relationships in parallel; results are then merged in path order, so the generated
+ * files and the error report do not depend on thread scheduling.
+ *
+ * <p>Once every instance is valid, an {@link IntegrityCheck} of the links between cars and engines
+ * runs over all of them; its errors fail the run like schema errors.
+ *
+ * <p>Runs are incremental: a {@link ValidationManifest} next to relationships.json records what
+ * each valid instance contributed, and instances whose content and schema are unchanged reuse that
+ * instead of being validated again. Generated files are only rewritten when their content changes.
+ */
 public class EngineValidation {
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String[] SUB_DIRS = {"engines", "cars"};
+    // Field naming each bulk instance's schema type
+    public static final String TYPE_FIELD = "schemaType";
+    public static final int BULK_WINDOW = 4096;
+
     public static void validate(File schemasDir, File instancesDir, File relationshipsFile) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
-        Map<String, Set<String>> carUuidToEngineUuids = new HashMap<>();
-        Map<String, String> uuidToSchemaType = new HashMap<>();
-
-        // Validate instances and build relationships
-        for (String subDir : new String[]{"engines", "cars"}) {
-            Path subDirPath = instancesDir.toPath().resolve(subDir);
+        validate(schemasDir, instancesDir, relationshipsFile, true);
+    }
+
+    /**
+     * Validates the instances and generates the relationship files and engine catalog. With
+     * {@code incremental} false every instance is validated again, ignoring the manifest.
+     */
+    public static void validate(File schemasDir, File instancesDir, File relationshipsFile, boolean incremental) throws Exception {
+        validate(schemasDir, instancesDir, relationshipsFile, incremental, ValidationProfile.DISABLED);
+    }
+
+    /**
+     * Like {@link #validate(File, File, File, boolean)}, recording where the time goes in
+     * {@code profile}. An enabled profile is written to validation-profile.json next to
+     * relationships.json, also when validation fails.
+     */
+    public static void validate(File schemasDir, File instancesDir, File relationshipsFile, boolean incremental,
+                                ValidationProfile profile) throws Exception {
+        try {
+            validateInstances(schemasDir, instancesDir, relationshipsFile, incremental, profile);
+        } finally {
+            writeProfile(profile, relationshipsFile);
+        }
+    }
+
+    private static void validateInstances(File schemasDir, File instancesDir, File relationshipsFile, boolean incremental,
+                                          ValidationProfile profile) throws Exception {
+        Path generatedDir = relationshipsFile.toPath().toAbsolutePath().getParent();
+        Path manifestFile = manifestFileFor(relationshipsFile.toPath());
+        Path catalogFile = generatedDir.resolve("engines.catalog");
+        ValidationProfile.Phase listing = profile.phase("list");
+        Run run = new Run(new SchemaRegistry(schemasDir.toPath(), JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7), true, profile),
+                hashSchemas(schemasDir.toPath()),
+                incremental ? ValidationManifest.read(manifestFile) : ValidationManifest.EMPTY,
+                incremental ? openPreviousCatalog(catalogFile) : null, profile);
+        List<InstanceFile> files = listInstances(instancesDir.toPath());
+        listing.close();
+
+        // An ordered parallel stream keeps results in file order, whichever thread finishes first
+        ValidationProfile.Phase validating = profile.phase("instances");
+        List<InstanceResult> results = files.parallelStream()
+                .map(file -> validateInstance(file, run))
+                .toList();
+        validating.close();
+
+        // Report every invalid instance, not just the first one found
+        List<String> errors = new ArrayList<>(results.stream()
+                .filter(result -> result.error() != null)
+                .sorted(Comparator.comparing(InstanceResult::path))
+                .map(InstanceResult::error)
+                .toList());
+
+        // Links are checked once every instance is valid, unchanged ones included; an invalid
+        // instance would show up as the target of dangling references
+        if (errors.isEmpty()) {
+            IntegrityCheck integrity = new IntegrityCheck();
+            for (InstanceResult result : results) {
+                integrity.add(result.key(), result.entry().uuid(), result.file().subDir().equals("engines"), result.entry().links());
+            }
+            errors.addAll(reportIntegrity(integrity, profile));
+        }
+        if (!errors.isEmpty()) {
+            throw new Exception("Validation failed: " + errors.size() + " error(s) in " + results.size() + " instances:\n"
+                    + String.join("\n", errors));
+        }
+
+        Map<String, ValidationManifest.Entry> manifestEntries = new TreeMap<>();
+        int reused = 0;
+        boolean enginesChanged = false;
+        ValidationProfile.Phase writing;
+        try (GeneratedFiles generated = new GeneratedFiles(relationshipsFile.toPath())) {
+            for (InstanceResult result : results) {
+                ValidationManifest.Entry entry = result.entry();
+                manifestEntries.put(result.key(), entry);
+                reused += result.reused() ? 1 : 0;
+                enginesChanged |= result.catalogEntry() != null && !result.reused();
+                generated.add(entry.uuid(), result.catalogEntry(), entry.engineUuids(), entry.intervals());
+            }
+            System.out.println("Validated " + (results.size() - reused) + " instances, " + reused + " unchanged");
+
+            // Removed engines change the catalog's size
+            writing = profile.phase("write");
+            BinaryCatalog previousCatalog = run.previousCatalog();
+            generated.write(previousCatalog == null || enginesChanged || generated.engineCount() != previousCatalog.size());
+        }
+
+        // Written last, so an interrupted run is redone rather than trusted
+        writeIfChanged(manifestFile, new ValidationManifest(ValidationManifest.VERSION, run.schemaHashes(), manifestEntries).toBytes());
+        writing.close();
+    }
+
+    /**
+     * Validates the instances in one bulk file instead of one file per instance, and generates the
+     * same files {@link #validate} does. The file holds either newline-delimited JSON or a single
+     * JSON array of instances; each instance names its schema type, e.g. {@code engine-gas}, in a
+     * {@value #TYPE_FIELD} field that is removed before validation. The file is read with a
+     * streaming parser and at most {@code windowSize} instances are held in memory at a time; each
+     * window is validated in parallel and merged in input order. Bulk runs are not incremental, and
+     * remove the manifest of a previous {@link #validate} run, so the next one revalidates everything.
+     */
+    public static void validateBulk(File schemasDir, File bulkFile, File relationshipsFile, int windowSize,
+                                    ValidationProfile profile) throws Exception {
+        try {
+            validateRecords(schemasDir, bulkFile, relationshipsFile, windowSize, profile);
+        } finally {
+            writeProfile(profile, relationshipsFile);
+        }
+    }
+
+    public static void validateBulk(File schemasDir, File bulkFile, File relationshipsFile, int windowSize) throws Exception {
+        validateBulk(schemasDir, bulkFile, relationshipsFile, windowSize, ValidationProfile.DISABLED);
+    }
+
+    public static void validateBulk(File schemasDir, File bulkFile, File relationshipsFile) throws Exception {
+        validateBulk(schemasDir, bulkFile, relationshipsFile, BULK_WINDOW, ValidationProfile.DISABLED);
+    }
+
+    private static void validateRecords(File schemasDir, File bulkFile, File relationshipsFile, int windowSize,
+                                        ValidationProfile profile) throws Exception {
+        SchemaRegistry schemas = new SchemaRegistry(schemasDir.toPath(), JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7), true, profile);
+        try (GeneratedFiles generated = new GeneratedFiles(relationshipsFile.toPath())) {
+            validateRecords(schemas, bulkFile, windowSize, generated, manifestFileFor(relationshipsFile.toPath()), profile);
+        }
+    }
+
+    private static void validateRecords(SchemaRegistry schemas, File bulkFile, int windowSize, GeneratedFiles generated,
+                                        Path manifestFile, ValidationProfile profile) throws Exception {
+        IntegrityCheck integrity = new IntegrityCheck();
+        List<String> errors = new ArrayList<>();
+        long count = 0;
+        String parseError = null;
+
+        try (JsonParser parser = mapper.getFactory().createParser(bulkFile)) {
+            boolean array = parser.nextToken() == JsonToken.START_ARRAY;
+            if (array) {
+                parser.nextToken();
+            }
+            List<BulkRecord> window = new ArrayList<>(windowSize);
+            while (parser.currentToken() != null && !(array && parser.currentToken() == JsonToken.END_ARRAY)) {
+                long line = parser.currentTokenLocation().getLineNr();
+                JsonNode record;
+                long start = profile.start();
+                try {
+                    record = mapper.readTree(parser);
+                    profile.add("parse", start);
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronize after malformed input, so stop here
+                    parseError = "Failed to process: record " + count++ + " (line " + line + ") - " + e.getOriginalMessage();
+                    break;
+                }
+                window.add(new BulkRecord(count++, line, record));
+                if (window.size() == windowSize) {
+                    checkWindow(window, schemas, generated, integrity, errors, profile);
+                    window.clear();
+                }
+                parser.nextToken();
+            }
+            checkWindow(window, schemas, generated, integrity, errors, profile);
+        }
+        if (parseError != null) {
+            errors.add(parseError);
+        }
+        if (errors.isEmpty()) {
+            errors.addAll(reportIntegrity(integrity, profile));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new Exception("Validation failed: " + errors.size() + " error(s) in " + count + " instances in " + bulkFile + ":\n"
+                    + String.join("\n", errors));
+        }
+        System.out.println("Validated " + count + " instances from " + bulkFile);
+        try (ValidationProfile.Phase writing = profile.phase("write")) {
+            // The generated files no longer hold what a previous directory run recorded in its
+            // manifest; drop it first, so the next incremental run reuses nothing from them
+            Files.deleteIfExists(manifestFile);
+            generated.write(true);
+        }
+    }
+
+    private static void checkWindow(List<BulkRecord> window, SchemaRegistry schemas, GeneratedFiles generated,
+                                     IntegrityCheck integrity, List<String> errors, ValidationProfile profile) throws IOException {
+        List<Checked> results = window.parallelStream()
+                .map(record -> checkRecord(record, schemas, profile))
+                .toList();
+        for (int i = 0; i < results.size(); i++) {
+            Checked checked = results.get(i);
+            if (checked.error() != null) {
+                errors.add(checked.error());
+            } else {
+                generated.add(checked.uuid(), checked.catalogEntry(), checked.engineUuids(), checked.intervals());
+                integrity.add(window.get(i).source(), checked.uuid(), checked.catalogEntry() != null, checked.links());
+            }
+        }
+    }
+
+    /**
+     * Runs the integrity check, prints its warnings and returns its errors.
+     */
+    private static List<String> reportIntegrity(IntegrityCheck integrity, ValidationProfile profile) {
+        IntegrityCheck.Result result;
+        try (ValidationProfile.Phase checking = profile.phase("integrity")) {
+            result = integrity.check();
+        }
+        result.warnings().forEach(warning -> System.err.println("Warning: " + warning));
+        return result.errors();
+    }
+
+    private static void writeProfile(ValidationProfile profile, File relationshipsFile) throws IOException {
+        if (profile.enabled()) {
+            Path profileFile = relationshipsFile.toPath().toAbsolutePath().resolveSibling("validation-profile.json");
+            Files.createDirectories(profileFile.getParent());
+            profile.write(profileFile);
+            System.out.println("Generated validation profile: " + profileFile);
+        }
+    }
+
+    private static Checked checkRecord(BulkRecord record, SchemaRegistry schemas, ValidationProfile profile) {
+        ValidationProfile.InstanceEvent event = ValidationProfile.instanceStarted();
+        Checked checked = checkTyped(record.document(), record.source(), schemas, profile);
+        ValidationProfile.instanceDone(event, record.source(), checked.schemaType(), checked.error() == null, false);
+        return checked;
+    }
+
+    /**
+     * Checks one instance that names its schema type in {@value #TYPE_FIELD}, as bulk files and
+     * daemon requests do. The field is removed from {@code instance}.
+     */
+    static Checked checkTyped(JsonNode instance, String source, SchemaRegistry schemas, ValidationProfile profile) {
+        try {
+            if (!(instance instanceof ObjectNode document) || !document.path(TYPE_FIELD).isTextual()) {
+                return Checked.failed("Invalid instance: " + source + " - Missing " + TYPE_FIELD);
+            }
+            String schemaType = document.remove(TYPE_FIELD).asText();
+            String subDir = schemaType.startsWith("engine-") ? "engines" : schemaType.startsWith("car-") ? "cars" : null;
+            if (subDir == null) {
+                return Checked.failed("Invalid instance: " + source + " - Unknown schema type " + schemaType);
+            }
+            return checkDocument(subDir, schemaType, source, document, schemas, profile);
+        } catch (Exception e) {
+            return Checked.failed("Failed to process: " + source + " - " + e.getMessage());
+        }
+    }
+
+    private static boolean writeIfChanged(Path file, byte[] content) throws IOException {
+        if (Files.exists(file) && Arrays.equals(Files.readAllBytes(file), content)) {
+            return false;
+        }
+        Files.write(file, content);
+        return true;
+    }
+
+    private static BinaryCatalog openPreviousCatalog(Path catalogFile) {
+        if (!Files.exists(catalogFile)) {
+            return null;
+        }
+        try {
+            return BinaryCatalog.open(catalogFile);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable engine catalog " + catalogFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, String> hashSchemas(Path schemasDir) throws IOException {
+        Map<String, String> hashes = new TreeMap<>();
+        for (String subDir : SUB_DIRS) {
+            Path subDirPath = schemasDir.resolve(subDir);
             if (Files.exists(subDirPath)) {
-                Files.walk(subDirPath)
-                        .filter(path -> path.toString().endsWith(".json"))
-                        .forEach(path -> {
-                            try {
-                                String jsonContent = Files.readString(path);
-                                JsonNode jsonNode = mapper.readTree(jsonContent);
-                                String name = jsonNode.get("name") != null ? jsonNode.get("name").asText() : null;
-                                String uuid = jsonNode.get("uuid") != null ? jsonNode.get("uuid").asText() : null;
-                                String fileName = path.getFileName().toString();
-                                String schemaType = fileName.substring(0, fileName.lastIndexOf('-'));
-
-                                if (name == null || uuid == null) {
-                                    throw new Exception("Invalid instance: " + fileName + " - Missing name or uuid");
-                                }
-
-                                // Validate against schema
-                                Path schemaPath = schemasDir.toPath().resolve(subDir).resolve(schemaType + ".json");
-                                if (!Files.exists(schemaPath)) {
-                                    throw new Exception("Schema not found for: " + schemaType + " at " + fileName);
-                                }
-                                JsonSchema schema = factory.getSchema(Files.newInputStream(schemaPath));
-                                Set<ValidationMessage> errors = schema.validate(jsonNode);
-                                if (!errors.isEmpty()) {
-                                    StringBuilder errorMsg = new StringBuilder("Validation errors for: " + fileName + "\n");
-                                    errors.forEach(error -> errorMsg.append("  - ").append(error.getMessage()).append("\n"));
-                                    throw new Exception(errorMsg.toString());
-                                }
-
-                                // Store schema type for relationship validation
-                                uuidToSchemaType.put(uuid, schemaType);
-
-                                // Collect relationships from Car instances only (updated requirement)
-                                if (subDir.equals("cars")) {
-                                    JsonNode engineRelationshipsNode = jsonNode.get("engineRelationships");
-                                    if (engineRelationshipsNode != null && engineRelationshipsNode.isArray()) {
-                                        engineRelationshipsNode.forEach(node -> {
-                                            String engineUuid = node.get("engineUuid").asText();
-                                            carUuidToEngineUuids.computeIfAbsent(uuid, k -> new HashSet<>()).add(engineUuid);
-                                        });
-                                    }
-                                }
-                            } catch (Exception e) {
-                                throw new RuntimeException("Failed to process: " + path, e);
+                try (Stream<Path> paths = Files.list(subDirPath)) {
+                    for (Path path : paths.filter(path -> path.toString().endsWith(".json")).toList()) {
+                        String fileName = path.getFileName().toString();
+                        hashes.put(subDir + "/" + fileName.substring(0, fileName.length() - ".json".length()),
+                                ValidationManifest.hash(Files.readAllBytes(path)));
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static Path manifestFileFor(Path relationshipsFile) {
+        return relationshipsFile.toAbsolutePath().resolveSibling("validation-manifest.json");
+    }
+
+    private static List<InstanceFile> listInstances(Path instancesDir) throws IOException {
+        List<InstanceFile> files = new ArrayList<>();
+        for (String subDir : SUB_DIRS) {
+            Path subDirPath = instancesDir.resolve(subDir);
+            if (Files.exists(subDirPath)) {
+                try (Stream<Path> paths = Files.walk(subDirPath)) {
+                    paths.filter(path -> path.toString().endsWith(".json"))
+                            .sorted()
+                            .forEach(path -> files.add(new InstanceFile(subDir, path,
+                                    instancesDir.relativize(path).toString().replace('\\', '/'))));
+                }
+            }
+        }
+        return files;
+    }
+
+    private static InstanceResult validateInstance(InstanceFile file, Run run) {
+        ValidationProfile.InstanceEvent event = ValidationProfile.instanceStarted();
+        InstanceResult result = checkInstance(file, run);
+        ValidationProfile.instanceDone(event, file.key(), result.entry() == null ? null : result.entry().schemaType(),
+                result.error() == null, result.reused());
+        return result;
+    }
+
+    private static InstanceResult checkInstance(InstanceFile file, Run run) {
+        ValidationProfile profile = run.profile();
+        Path path = file.path();
+        String subDir = file.subDir();
+        String fileName = path.getFileName().toString();
+        try {
+            String schemaType = fileName.substring(0, Math.max(0, fileName.lastIndexOf('-')));
+            String schemaHash = run.schemaHashes().get(subDir + "/" + schemaType);
+            ValidationManifest.Entry previous = run.previous().instances().get(file.key());
+            boolean schemaUnchanged = previous != null && schemaHash != null
+                    && schemaHash.equals(run.previous().schemas().get(subDir + "/" + schemaType));
+
+            // Same size and modification time is taken as unchanged without reading the file
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (schemaUnchanged && previous.size() == attributes.size() && previous.modified() == modified) {
+                InstanceResult result = reuse(file, previous, previous, run);
+                if (result != null) {
+                    return result;
+                }
+            }
+            long start = profile.start();
+            byte[] content = Files.readAllBytes(path);
+            profile.add("read", start);
+            start = profile.start();
+            String hash = ValidationManifest.hash(content);
+            profile.add("hash", start);
+            if (schemaUnchanged && previous.hash().equals(hash)) {
+                InstanceResult result = reuse(file, previous, new ValidationManifest.Entry(hash, attributes.size(), modified,
+                        previous.uuid(), previous.schemaType(), previous.engineUuids(), previous.intervals(), previous.links()), run);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            start = profile.start();
+            JsonNode jsonNode = mapper.readTree(content);
+            profile.add("parse", start);
+            Checked checked = checkDocument(subDir, schemaType, fileName, jsonNode, run.schemas(), profile);
+            if (checked.error() != null) {
+                return InstanceResult.failed(file, checked.error());
+            }
+            return new InstanceResult(file, null, new ValidationManifest.Entry(hash, attributes.size(), modified, checked.uuid(),
+                    checked.schemaType(), checked.engineUuids(), checked.intervals(), checked.links()), checked.catalogEntry(), false);
+        } catch (Exception e) {
+            return InstanceResult.failed(file, "Failed to process: " + path + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks one parsed instance against the schema of its type and extracts what it contributes
+     * to the generated files. {@code source} names the instance in error messages.
+     */
+    private static Checked checkDocument(String subDir, String schemaType, String source, JsonNode jsonNode,
+                                         SchemaRegistry schemas, ValidationProfile profile) throws Exception {
+        String name = jsonNode.get("name") != null ? jsonNode.get("name").asText() : null;
+        String uuid = jsonNode.get("uuid") != null ? jsonNode.get("uuid").asText() : null;
+
+        if (name == null || uuid == null) {
+            return Checked.failed("Invalid instance: " + source + " - Missing name or uuid");
+        }
+
+        // Validate against schema, compiled once per type
+        InstanceValidator schema = schemas.get(subDir, schemaType);
+        if (schema == null) {
+            return Checked.failed("Schema not found for: " + schemaType + " at " + source);
+        }
+        long start = profile.start();
+        List<InstanceValidator.Violation> errors = schema.validate(jsonNode);
+        profile.validated(subDir + "/" + schemaType, start, errors);
+        if (!errors.isEmpty()) {
+            StringBuilder errorMsg = new StringBuilder("Validation errors for: " + source);
+            errors.stream()
+                    .map(InstanceValidator.Violation::message)
+                    .sorted()
+                    .forEach(message -> errorMsg.append("\n  - ").append(message));
+            return Checked.failed(errorMsg.toString());
+        }
+
+        // Validated engines go into the binary catalog, stored minified
+        start = profile.start();
+        BinaryCatalog.Entry catalogEntry = null;
+        if (subDir.equals("engines")) {
+            UUID parsedUuid = UuidIndex.parse(uuid);
+            if (parsedUuid == null) {
+                return Checked.failed("Invalid instance: " + source + " - uuid is not a UUID");
+            }
+            catalogEntry = new BinaryCatalog.Entry(parsedUuid, schemaType, mapper.writeValueAsBytes(jsonNode),
+                    CatalogLoader.carUuids(jsonNode.path("carUuids")));
+        }
+
+        // Collect relationships from Car instances only (updated requirement)
+        List<String> engineUuids = null;
+        List<Map<String, String>> intervals = new ArrayList<>();
+        if (subDir.equals("cars")) {
+            JsonNode engineRelationshipsNode = jsonNode.get("engineRelationships");
+            if (engineRelationshipsNode != null && engineRelationshipsNode.isArray()) {
+                engineUuids = new ArrayList<>();
+                for (JsonNode node : engineRelationshipsNode) {
+                    String engineUuid = node.get("engineUuid").asText();
+                    engineUuids.add(engineUuid);
+                    if (node.hasNonNull("validFrom")) {
+                        intervals.add(toInterval(source, engineUuid, node));
+                    }
+                }
+            }
+        }
+        List<String> links = links(subDir, jsonNode);
+        profile.add("extract", start);
+        return new Checked(null, uuid, schemaType, catalogEntry, engineUuids, intervals, links);
+    }
+
+    /**
+     * Returns the links an instance in {@code subDir} contributes to the integrity check: an
+     * engine's carUuids, or every engine a car names.
+     */
+    static List<String> links(String subDir, JsonNode jsonNode) {
+        List<String> links = new ArrayList<>();
+        if (subDir.equals("cars")) {
+            jsonNode.path("engineRelationships").forEach(node -> links.add(node.path("engineUuid").asText()));
+            jsonNode.path("engineUuids").forEach(engineUuid -> links.add(engineUuid.asText()));
+        } else {
+            jsonNode.path("carUuids").forEach(carUuid -> links.add(carUuid.asText()));
+        }
+        return links;
+    }
+
+    private static Map<String, String> toInterval(String fileName, String engineUuid, JsonNode relationship) throws Exception {
+        Map<String, String> interval = new LinkedHashMap<>();
+        interval.put("engineUuid", engineUuid);
+        String validFrom = relationship.get("validFrom").asText();
+        interval.put("validFrom", validFrom);
+        if (relationship.hasNonNull("validTo")) {
+            String validTo = relationship.get("validTo").asText();
+            try {
+                if (!ZonedDateTime.parse(validTo).isAfter(ZonedDateTime.parse(validFrom))) {
+                    throw new Exception("Invalid instance: " + fileName + " - validTo " + validTo
+                            + " is not after validFrom " + validFrom + " for engine " + engineUuid);
+                }
+            } catch (DateTimeParseException e) {
+                throw new Exception("Invalid instance: " + fileName + " - " + e.getMessage());
+            }
+            interval.put("validTo", validTo);
+        }
+        return interval;
+    }
+
+    /**
+     * Returns the recorded contribution of an unchanged instance, or null if it cannot be reused
+     * because the previous engine catalog no longer holds the engine's document.
+     */
+    private static InstanceResult reuse(InstanceFile file, ValidationManifest.Entry previous, ValidationManifest.Entry entry, Run run) {
+        BinaryCatalog.Entry catalogEntry = null;
+        if (file.subDir().equals("engines")) {
+            UUID uuid = UuidIndex.parse(previous.uuid());
+            int position = run.previousCatalog() == null || uuid == null ? -1 : run.previousCatalog().find(uuid);
+            if (position < 0) {
+                return null;
+            }
+            catalogEntry = new BinaryCatalog.Entry(uuid, previous.schemaType(), run.previousCatalog().documentBytes(position),
+                    run.previousCatalog().carUuids(position));
+        }
+        return new InstanceResult(file, null, entry, catalogEntry, true);
+    }
+
+    /**
+     * Accumulates what valid instances contribute, in merge order, and writes relationships.json,
+     * relationship-intervals.json and engines.catalog from it. Memory stays bounded however many
+     * instances are added: engine documents stream into a {@link BinaryCatalog.Writer}, which only
+     * keeps a small index record per engine, and car relationships are spilled to a temporary file
+     * in sorted runs of at most {@value #RUN_SIZE} cars, which {@link #write} merges into the
+     * sorted relationship files.
+     */
+    private static class GeneratedFiles implements Closeable {
+        private static final int RUN_SIZE = 16384;
+
+        private final Path relationshipsFile;
+        private final Path generatedDir;
+        private final BinaryCatalog.Writer catalog;
+        private final Path runsFile;
+        private final OutputStream runs;
+        // Start offset and car count of each run spilled so far
+        private final List<long[]> runBounds = new ArrayList<>();
+        private long runsLength;
+        private final TreeMap<String, CarRelationships> pending = new TreeMap<>();
+
+        GeneratedFiles(Path relationshipsFile) throws IOException {
+            this.relationshipsFile = relationshipsFile.toAbsolutePath();
+            this.generatedDir = relationshipsFile.toAbsolutePath().getParent();
+            Files.createDirectories(generatedDir);
+            this.catalog = BinaryCatalog.writer(generatedDir.resolve("engines.catalog"));
+            this.runsFile = Files.createTempFile(generatedDir, "relationships", ".runs.tmp");
+            this.runs = new BufferedOutputStream(Files.newOutputStream(runsFile));
+        }
+
+        void add(String uuid, BinaryCatalog.Entry catalogEntry, List<String> engineUuids,
+                 List<Map<String, String>> intervals) throws IOException {
+            if (catalogEntry != null) {
+                catalog.add(catalogEntry);
+            }
+            boolean hasIntervals = intervals != null && !intervals.isEmpty();
+            if (engineUuids == null && !hasIntervals) {
+                return;
+            }
+            CarRelationships car = pending.computeIfAbsent(uuid, k -> new CarRelationships());
+            if (engineUuids != null) {
+                car.addEngines(engineUuids);
+            }
+            if (hasIntervals) {
+                car.intervals().addAll(intervals);
+            }
+            if (pending.size() >= RUN_SIZE) {
+                spill();
+            }
+        }
+
+        int engineCount() {
+            return catalog.size();
+        }
+
+        /**
+         * Writes the relationship files, when their content changed, and the engine catalog when
+         * {@code writeCatalog} is set.
+         */
+        void write(boolean writeCatalog) throws IOException {
+            spill();
+            runs.close();
+            // Validity intervals go in a separate file so relationships.json keeps its flat format
+            Path intervalsFile = generatedDir.resolve("relationship-intervals.json");
+            Path relationshipsTemp = relationshipsFile.resolveSibling(relationshipsFile.getFileName() + ".tmp");
+            Path intervalsTemp = intervalsFile.resolveSibling(intervalsFile.getFileName() + ".tmp");
+            try {
+                mergeRuns(relationshipsTemp, intervalsTemp);
+                // Generate relationships.json
+                if (replaceIfChanged(relationshipsTemp, relationshipsFile)) {
+                    System.out.println("Generated relationships file: " + relationshipsFile);
+                }
+                if (replaceIfChanged(intervalsTemp, intervalsFile)) {
+                    System.out.println("Generated relationship intervals file: " + intervalsFile);
+                }
+            } finally {
+                Files.deleteIfExists(relationshipsTemp);
+                Files.deleteIfExists(intervalsTemp);
+            }
+
+            // Generate the memory-mapped engine catalog next to it
+            if (writeCatalog) {
+                catalog.finish();
+                System.out.println("Generated engine catalog: " + generatedDir.resolve("engines.catalog"));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            catalog.close();
+            runs.close();
+            Files.deleteIfExists(runsFile);
+        }
+
+        private void spill() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ByteArrayOutputStream run = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(run);
+            for (Map.Entry<String, CarRelationships> car : pending.entrySet()) {
+                car.getValue().write(car.getKey(), out);
+            }
+            runBounds.add(new long[]{runsLength, pending.size()});
+            run.writeTo(runs);
+            runsLength += run.size();
+            pending.clear();
+        }
+
+        /**
+         * Merges the sorted runs into the two relationship files. A car in several runs gets the
+         * union of its engines, and its intervals in the order they were added.
+         */
+        private void mergeRuns(Path relationshipsTemp, Path intervalsTemp) throws IOException {
+            try (FileChannel channel = FileChannel.open(runsFile, StandardOpenOption.READ);
+                 JsonGenerator relationships = mapper.getFactory().createGenerator(relationshipsTemp.toFile(), JsonEncoding.UTF8);
+                 JsonGenerator intervals = mapper.getFactory().createGenerator(intervalsTemp.toFile(), JsonEncoding.UTF8)) {
+                PriorityQueue<RunReader> readers = new PriorityQueue<>(
+                        Comparator.comparing(RunReader::carUuid).thenComparingInt(RunReader::index));
+                for (int i = 0; i < runBounds.size(); i++) {
+                    RunReader reader = new RunReader(i, channel, runBounds.get(i)[0], runBounds.get(i)[1]);
+                    if (reader.next()) {
+                        readers.add(reader);
+                    }
+                }
+                relationships.writeStartObject();
+                intervals.writeStartObject();
+                while (!readers.isEmpty()) {
+                    String carUuid = readers.peek().carUuid();
+                    CarRelationships car = new CarRelationships();
+                    while (!readers.isEmpty() && readers.peek().carUuid().equals(carUuid)) {
+                        RunReader reader = readers.poll();
+                        car.merge(reader.car());
+                        if (reader.next()) {
+                            readers.add(reader);
+                        }
+                    }
+                    if (car.engineUuids() != null) {
+                        relationships.writeArrayFieldStart(carUuid);
+                        for (String engineUuid : car.engineUuids()) {
+                            relationships.writeString(engineUuid);
+                        }
+                        relationships.writeEndArray();
+                    }
+                    if (!car.intervals().isEmpty()) {
+                        intervals.writeArrayFieldStart(carUuid);
+                        for (Map<String, String> interval : car.intervals()) {
+                            intervals.writeStartObject();
+                            for (Map.Entry<String, String> field : interval.entrySet()) {
+                                intervals.writeStringField(field.getKey(), field.getValue());
                             }
-                        });
+                            intervals.writeEndObject();
+                        }
+                        intervals.writeEndArray();
+                    }
+                }
+                relationships.writeEndObject();
+                intervals.writeEndObject();
+            }
+        }
+
+        private static boolean replaceIfChanged(Path temp, Path file) throws IOException {
+            if (Files.exists(file) && Files.mismatch(temp, file) == -1) {
+                return false;
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    /**
+     * One car's relationships as spilled to and read back from a run: its engines, null when no
+     * instance named any, and its validity intervals in the order they were added.
+     */
+    private static final class CarRelationships {
+        private Set<String> engineUuids;
+        private final List<Map<String, String>> intervals = new ArrayList<>();
+
+        Set<String> engineUuids() {
+            return engineUuids;
+        }
+
+        List<Map<String, String>> intervals() {
+            return intervals;
+        }
+
+        void addEngines(Collection<String> engines) {
+            if (engineUuids == null) {
+                engineUuids = new TreeSet<>();
+            }
+            engineUuids.addAll(engines);
+        }
+
+        void merge(CarRelationships other) {
+            if (other.engineUuids != null) {
+                addEngines(other.engineUuids);
+            }
+            intervals.addAll(other.intervals);
+        }
+
+        void write(String carUuid, DataOutputStream out) throws IOException {
+            out.writeUTF(carUuid);
+            out.writeInt(engineUuids == null ? -1 : engineUuids.size());
+            if (engineUuids != null) {
+                for (String engineUuid : engineUuids) {
+                    out.writeUTF(engineUuid);
+                }
+            }
+            out.writeInt(intervals.size());
+            for (Map<String, String> interval : intervals) {
+                out.writeInt(interval.size());
+                for (Map.Entry<String, String> field : interval.entrySet()) {
+                    out.writeUTF(field.getKey());
+                    out.writeUTF(field.getValue());
+                }
             }
         }
 
-        // Generate relationships.json
-        Files.createDirectories(relationshipsFile.getParentFile().toPath());
-        mapper.writeValue(relationshipsFile, carUuidToEngineUuids);
-        System.out.println("Generated relationships file: " + relationshipsFile);
+        static CarRelationships read(DataInputStream in) throws IOException {
+            CarRelationships car = new CarRelationships();
+            int engineCount = in.readInt();
+            if (engineCount >= 0) {
+                car.engineUuids = new TreeSet<>();
+                for (int i = 0; i < engineCount; i++) {
+                    car.engineUuids.add(in.readUTF());
+                }
+            }
+            int intervalCount = in.readInt();
+            for (int i = 0; i < intervalCount; i++) {
+                int fieldCount = in.readInt();
+                Map<String, String> interval = new LinkedHashMap<>();
+                for (int field = 0; field < fieldCount; field++) {
+                    interval.put(in.readUTF(), in.readUTF());
+                }
+                car.intervals.add(interval);
+            }
+            return car;
+        }
+    }
+
+    /**
+     * Reads one spilled run back in car order. Reads are positional, so every run of the merge
+     * shares one channel.
+     */
+    private static final class RunReader {
+        private final int index;
+        private final DataInputStream in;
+        private long remaining;
+        private String carUuid;
+        private CarRelationships car;
+
+        RunReader(int index, FileChannel channel, long start, long carCount) {
+            this.index = index;
+            this.remaining = carCount;
+            this.in = new DataInputStream(new BufferedInputStream(new InputStream() {
+                private long position = start;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = channel.read(ByteBuffer.wrap(buffer, offset, length), position);
+                    if (read > 0) {
+                        position += read;
+                    }
+                    return read;
+                }
+            }));
+        }
+
+        int index() {
+            return index;
+        }
+
+        String carUuid() {
+            return carUuid;
+        }
+
+        CarRelationships car() {
+            return car;
+        }
+
+        /**
+         * Advances to the run's next car; returns false once the run is exhausted.
+         */
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            carUuid = in.readUTF();
+            car = CarRelationships.read(in);
+            return true;
+        }
+    }
+
+    /**
+     * Outcome of checking one parsed instance: either an error, or what it contributes.
+     */
+    record Checked(String error, String uuid, String schemaType, BinaryCatalog.Entry catalogEntry,
+            List<String> engineUuids, List<Map<String, String>> intervals, List<String> links) {
+        static Checked failed(String error) {
+            return new Checked(error, null, null, null, null, List.of(), List.of());
+        }
+    }
+
+    private record BulkRecord(long index, long line, JsonNode document) {
+        String source() {
+            return "record " + index + " (line " + line + ")";
+        }
+    }
+
+    /**
+     * Inputs shared by every instance of one run: the compiled schemas, the current schema hashes,
+     * the manifest and engine catalog of the previous run, and the profile to record into.
+     */
+    private record Run(SchemaRegistry schemas, Map<String, String> schemaHashes, ValidationManifest previous,
+                       BinaryCatalog previousCatalog, ValidationProfile profile) {
+    }
+
+    /**
+     * An instance file and its manifest key, the path relative to the instances directory.
+     */
+    private record InstanceFile(String subDir, Path path, String key) {
+    }
+
+    /**
+     * Outcome of validating one instance: either an error, or the manifest entry recording what
+     * the instance contributes to the generated files.
+     */
+    private record InstanceResult(InstanceFile file, String error, ValidationManifest.Entry entry,
+                                  BinaryCatalog.Entry catalogEntry, boolean reused) {
+        static InstanceResult failed(InstanceFile file, String error) {
+            return new InstanceResult(file, error, null, null, false);
+        }
+
+        String key() {
+            return file.key();
+        }
+
+        Path path() {
+            return file.path();
+        }
     }
 }
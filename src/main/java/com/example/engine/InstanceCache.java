@@ -0,0 +1,127 @@
+package com.example.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of deserialized catalog instances. Entries are populated lazily on first lookup. Keys
+ * are whatever identifies an instance's content, e.g. its UUID and revision; a key type with cheap
+ * {@code hashCode} and {@code equals} keeps lookups from hashing strings. A cache created with
+ * {@link #bounded(int)} evicts the least recently used entry once it is full;
+ * {@link #unbounded()} keeps every instance it has loaded.
+ *
+ * <p>Cached instances are shared between callers and must be treated as read-only.
+ */
+public class InstanceCache<K, V> {
+    private final Map<K, V> entries;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private InstanceCache(Map<K, V> entries, int maxSize) {
+        this.entries = entries;
+        this.maxSize = maxSize;
+    }
+
+    public static <K, V> InstanceCache<K, V> unbounded() {
+        return new InstanceCache<>(new ConcurrentHashMap<>(), 0);
+    }
+
+    public static <K, V> InstanceCache<K, V> bounded(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        return new InstanceCache<>(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        }, maxSize);
+    }
+
+    /**
+     * Creates a cache from the {@code engine.cache.maxSize} system property: unbounded when the
+     * property is absent or zero, otherwise bounded to that many entries.
+     */
+    public static <K, V> InstanceCache<K, V> fromSystemProperties() {
+        int maxSize = Integer.getInteger("engine.cache.maxSize", 0);
+        return maxSize > 0 ? bounded(maxSize) : unbounded();
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = lookup(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        // Load outside any lock; concurrent misses for the same key may both parse, the last one wins
+        value = loader.apply(key);
+        if (value != null) {
+            store(key, value);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        if (maxSize > 0) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        if (maxSize > 0) {
+            synchronized (entries) {
+                entries.clear();
+            }
+        } else {
+            entries.clear();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        if (maxSize > 0) {
+            synchronized (entries) {
+                size = entries.size();
+            }
+        } else {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), size, maxSize);
+    }
+
+    private V lookup(K key) {
+        if (maxSize > 0) {
+            // Access-ordered LinkedHashMap mutates on get, so reads need the lock too
+            synchronized (entries) {
+                return entries.get(key);
+            }
+        }
+        return entries.get(key);
+    }
+
+    private void store(K key, V value) {
+        if (maxSize > 0) {
+            synchronized (entries) {
+                entries.put(key, value);
+            }
+        } else {
+            entries.put(key, value);
+        }
+    }
+
+    public record Stats(long hits, long misses, int size, int maxSize) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Validates instances against one schema. Messages use the networknt format, e.g.
+ * {@code $.horsepower: must have a minimum value of 100}, whichever implementation produced them.
+ */
+@FunctionalInterface
+public interface InstanceValidator {
+    /**
+     * Returns the violations found, or an empty list if {@code instance} is valid.
+     */
+    List<Violation> validate(JsonNode instance);
+
+    /**
+     * One violation: the keyword that failed, e.g. {@code minimum}, and the message.
+     */
+    record Violation(String keyword, String message) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the links between instances once each instance has passed its schema. It finds
+ * duplicate UUIDs, references to instances that do not exist (dangling references), and links
+ * listed on only one side. A car lists its engines in {@code engineRelationships} or
+ * {@code engineUuids}, and an engine lists its cars in {@code carUuids}.
+ *
+ * <p>Instances are hashed by UUID as they are added, and every link is then probed once. The whole
+ * check is therefore linear in the number of instances plus links. Duplicates and dangling
+ * references are errors. Asymmetric links are warnings, because relationships are generated from
+ * the car side and engines' {@code carUuids} only mirror them.
+ *
+ * <p>A check may be layered over a base check that is no longer added to, such as the index a
+ * {@link ValidationDaemon} keeps of the instances directory. Links then resolve against both, an
+ * instance added to the layer replaces a base instance with the same UUID, and only the layer's
+ * instances are checked, so checking a few instances against a large base costs their links only.
+ */
+final class IntegrityCheck {
+    private final IntegrityCheck base;
+    // Insertion ordered, so findings come out in the order instances were added
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final List<Duplicate> duplicates = new ArrayList<>();
+
+    IntegrityCheck() {
+        this(null);
+    }
+
+    IntegrityCheck(IntegrityCheck base) {
+        this.base = base;
+    }
+
+    /**
+     * Adds a valid instance. {@code source} names it in findings.
+     */
+    void add(String source, String uuid, boolean engine, List<String> links) {
+        Node node = new Node(source, uuid, engine, links == null ? Set.of() : new LinkedHashSet<>(links));
+        Node existing = nodes.putIfAbsent(uuid, node);
+        if (existing != null) {
+            duplicates.add(new Duplicate(source, "Duplicate uuid: " + uuid + " in " + existing.source() + " and " + source));
+        }
+    }
+
+    /**
+     * The number of instances added, not counting the base.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    Result check() {
+        List<String> errors = new ArrayList<>();
+        duplicates.forEach(duplicate -> errors.add(duplicate.message()));
+        List<String> warnings = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            checkLinks(node, errors, warnings);
+        }
+        return new Result(errors, warnings);
+    }
+
+    /**
+     * Runs the same check, keeping the findings of each source apart. A duplicate is reported
+     * against the instance added second. Sources without findings are left out.
+     */
+    Map<String, Result> checkEach() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Duplicate duplicate : duplicates) {
+            result(results, duplicate.source()).errors().add(duplicate.message());
+        }
+        for (Node node : nodes.values()) {
+            List<String> errors = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+            checkLinks(node, errors, warnings);
+            if (!errors.isEmpty() || !warnings.isEmpty()) {
+                Result result = result(results, node.source());
+                result.errors().addAll(errors);
+                result.warnings().addAll(warnings);
+            }
+        }
+        return results;
+    }
+
+    private void checkLinks(Node node, List<String> errors, List<String> warnings) {
+        String kind = node.engine() ? "engine " : "car ";
+        String otherKind = node.engine() ? "car " : "engine ";
+        for (String link : node.links()) {
+            Node target = node(link);
+            if (target == null || target.engine() == node.engine()) {
+                errors.add("Dangling reference: " + node.source() + " - " + kind + node.uuid()
+                        + " links " + otherKind + link + ", which does not exist");
+            } else if (!target.links().contains(node.uuid())) {
+                warnings.add("Asymmetric link: " + node.source() + " - " + kind + node.uuid() + " links "
+                        + otherKind + link + ", but " + target.source() + " does not link it back");
+            }
+        }
+    }
+
+    private Node node(String uuid) {
+        Node node = nodes.get(uuid);
+        return node != null || base == null ? node : base.node(uuid);
+    }
+
+    private static Result result(Map<String, Result> results, String source) {
+        return results.computeIfAbsent(source, k -> new Result(new ArrayList<>(), new ArrayList<>()));
+    }
+
+    record Result(List<String> errors, List<String> warnings) {
+    }
+
+    private record Node(String source, String uuid, boolean engine, Set<String> links) {
+    }
+
+    private record Duplicate(String source, String message) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs tables of numbers into string constants for generated code, and unpacks them again at
+ * run time. Each value is written as a fixed number of hex digits, and the digits are split into
+ * chunks that each fit one class-file string constant. A generated class can therefore hold a
+ * table of any size as a few constants: its initializer runs a few instructions per chunk rather
+ * than per value, and unpacking is a single pass over the digits.
+ */
+public final class PackedTable {
+    // A string constant may take at most 65535 bytes; hex digits take one byte each, and the
+    // chunk size is a multiple of every width used so no value straddles two chunks
+    private static final int CHUNK_DIGITS = 65_520;
+
+    private PackedTable() {
+    }
+
+    /**
+     * Packs {@code values}, each as {@code digits} hex digits (a divisor of 16), into chunks.
+     */
+    public static List<String> pack(long[] values, int digits) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (long value : values) {
+            if (chunk.length() + digits > CHUNK_DIGITS) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+            }
+            String hex = Long.toHexString(value);
+            if (hex.length() > digits) {
+                throw new IllegalArgumentException(value + " does not fit in " + digits + " hex digits");
+            }
+            chunk.append("0".repeat(digits - hex.length())).append(hex);
+        }
+        chunks.add(chunk.toString());
+        return chunks;
+    }
+
+    public static List<String> pack(int[] values, int digits) {
+        long[] longs = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            longs[i] = Integer.toUnsignedLong(values[i]);
+        }
+        return pack(longs, digits);
+    }
+
+    /**
+     * Unpacks {@code count} values of {@code digits} hex digits each from {@code chunks}.
+     */
+    public static long[] unpackLongs(String[] chunks, int digits, int count) {
+        long[] values = new long[count];
+        int next = 0;
+        for (String chunk : chunks) {
+            for (int start = 0; start < chunk.length() && next < count; start += digits) {
+                values[next++] = Long.parseUnsignedLong(chunk, start, start + digits, 16);
+            }
+        }
+        if (next != count) {
+            throw new IllegalArgumentException("Expected " + count + " values, found " + next);
+        }
+        return values;
+    }
+
+    public static int[] unpackInts(String[] chunks, int digits, int count) {
+        long[] longs = unpackLongs(chunks, digits, count);
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = (int) longs[i];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.engine;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write array indexed by dense id and stored in fixed-size pages. {@link #copy} shares
+ * every page with the original, and a page is cloned the first time the copy writes to it, so
+ * updating k elements of an n-element copy costs the page table (n / {@value #PAGE_SIZE}
+ * references) plus at most k pages instead of the whole array. This is what lets an
+ * {@link EngineCatalog} update share everything it does not touch with the previous snapshot.
+ *
+ * <p>Arrays grow on writes past their capacity. Like {@link UuidIndex}, an instance is not
+ * thread-safe while being written; once published it may be read concurrently, and is then only
+ * copied, never written.
+ */
+abstract class PagedArray<P> {
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // Typed by the subclass; an array smaller than one page is a single page of its own length
+    Object[] pages = new Object[0];
+    // Pages this instance may write without cloning them first
+    private boolean[] owned = new boolean[0];
+    private int capacity;
+
+    PagedArray() {
+    }
+
+    PagedArray(PagedArray<P> source) {
+        pages = source.pages.clone();
+        owned = new boolean[pages.length];
+        capacity = source.capacity;
+        // The original shares its pages from now on too, so neither may write to them in place
+        Arrays.fill(source.owned, false);
+    }
+
+    abstract P newPage(int length);
+
+    abstract P copyPage(P page, int length);
+
+    /**
+     * Returns an independent copy sharing every page with this array until either is written.
+     */
+    abstract PagedArray<P> copy();
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the page holding {@code index}, growing the array and cloning a shared page as needed.
+     */
+    @SuppressWarnings("unchecked")
+    final P writablePage(int index) {
+        if (index >= capacity) {
+            grow(index + 1);
+        }
+        int page = index >>> PAGE_BITS;
+        if (!owned[page]) {
+            pages[page] = copyPage((P) pages[page], capacity < PAGE_SIZE ? capacity : PAGE_SIZE);
+            owned[page] = true;
+        }
+        return (P) pages[page];
+    }
+
+    final void grow(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        if (minCapacity <= PAGE_SIZE) {
+            // Still a single page; double it so filling it one element at a time stays linear
+            int length = Math.min(PAGE_SIZE, Math.max(minCapacity, capacity * 2));
+            resizeFirstPage(length);
+            return;
+        }
+        resizeFirstPage(PAGE_SIZE);
+        int pageCount = (minCapacity + PAGE_MASK) >>> PAGE_BITS;
+        int oldCount = pages.length;
+        // Grow the page table geometrically too, so adding ids one at a time stays linear
+        int newCount = Math.max(pageCount, oldCount + (oldCount >> 1));
+        pages = Arrays.copyOf(pages, newCount);
+        owned = Arrays.copyOf(owned, newCount);
+        for (int page = oldCount; page < newCount; page++) {
+            pages[page] = newPage(PAGE_SIZE);
+            owned[page] = true;
+        }
+        capacity = newCount * PAGE_SIZE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resizeFirstPage(int length) {
+        if (capacity >= length) {
+            return;
+        }
+        if (pages.length == 0) {
+            pages = new Object[]{newPage(length)};
+            owned = new boolean[]{true};
+        } else {
+            pages[0] = copyPage((P) pages[0], length);
+            owned[0] = true;
+        }
+        capacity = length;
+    }
+
+    static final class Longs extends PagedArray<long[]> {
+        Longs(int capacity) {
+            grow(capacity);
+        }
+
+        private Longs(Longs source) {
+            super(source);
+        }
+
+        static Longs of(long[] values) {
+            Longs longs = new Longs(values.length);
+            for (int i = 0; i < values.length; i++) {
+                longs.set(i, values[i]);
+            }
+            return longs;
+        }
+
+        long get(int index) {
+            return ((long[]) pages[index >>> PAGE_BITS])[index & PAGE_MASK];
+        }
+
+        void set(int index, long value) {
+            writablePage(index)[index & PAGE_MASK] = value;
+        }
+
+        @Override
+        Longs copy() {
+            return new Longs(this);
+        }
+
+        @Override
+        long[] newPage(int length) {
+            return new long[length];
+        }
+
+        @Override
+        long[] copyPage(long[] page, int length) {
+            return Arrays.copyOf(page, length);
+        }
+    }
+
+    static final class Ints extends PagedArray<int[]> {
+        // Value of elements never written, so a fresh page need not be filled by the caller
+        private final int fill;
+
+        Ints(int capacity, int fill) {
+            this.fill = fill;
+            grow(capacity);
+        }
+
+        private Ints(Ints source) {
+            super(source);
+            this.fill = source.fill;
+        }
+
+        int get(int index) {
+            return ((int[]) pages[index >>> PAGE_BITS])[index & PAGE_MASK];
+        }
+
+        void set(int index, int value) {
+            writablePage(index)[index & PAGE_MASK] = value;
+        }
+
+        @Override
+        Ints copy() {
+            return new Ints(this);
+        }
+
+        @Override
+        int[] newPage(int length) {
+            int[] page = new int[length];
+            if (fill != 0) {
+                Arrays.fill(page, fill);
+            }
+            return page;
+        }
+
+        @Override
+        int[] copyPage(int[] page, int length) {
+            int[] copy = Arrays.copyOf(page, length);
+            if (fill != 0 && length > page.length) {
+                Arrays.fill(copy, page.length, length, fill);
+            }
+            return copy;
+        }
+    }
+
+    static final class Bytes extends PagedArray<byte[]> {
+        Bytes(int capacity) {
+            grow(capacity);
+        }
+
+        private Bytes(Bytes source) {
+            super(source);
+        }
+
+        static Bytes of(byte[] values) {
+            Bytes bytes = new Bytes(values.length);
+            for (int i = 0; i < values.length; i++) {
+                bytes.set(i, values[i]);
+            }
+            return bytes;
+        }
+
+        byte get(int index) {
+            return ((byte[]) pages[index >>> PAGE_BITS])[index & PAGE_MASK];
+        }
+
+        void set(int index, byte value) {
+            writablePage(index)[index & PAGE_MASK] = value;
+        }
+
+        @Override
+        Bytes copy() {
+            return new Bytes(this);
+        }
+
+        @Override
+        byte[] newPage(int length) {
+            return new byte[length];
+        }
+
+        @Override
+        byte[] copyPage(byte[] page, int length) {
+            return Arrays.copyOf(page, length);
+        }
+    }
+
+    static final class Objects<T> extends PagedArray<Object[]> {
+        Objects(int capacity) {
+            grow(capacity);
+        }
+
+        private Objects(Objects<T> source) {
+            super(source);
+        }
+
+        static <T> Objects<T> of(T[] values) {
+            Objects<T> objects = new Objects<>(values.length);
+            for (int i = 0; i < values.length; i++) {
+                objects.set(i, values[i]);
+            }
+            return objects;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) ((Object[]) pages[index >>> PAGE_BITS])[index & PAGE_MASK];
+        }
+
+        void set(int index, T value) {
+            writablePage(index)[index & PAGE_MASK] = value;
+        }
+
+        @Override
+        Objects<T> copy() {
+            return new Objects<>(this);
+        }
+
+        @Override
+        Object[] newPage(int length) {
+            return new Object[length];
+        }
+
+        @Override
+        Object[] copyPage(Object[] page, int length) {
+            return Arrays.copyOf(page, length);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.engine;
+
+import com.example.engine.InstanceValidator.Violation;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a draft-07 schema into a tree of checks specialized to that schema: each property's
+ * checks are resolved once, limits are parsed once and patterns are compiled once, so validating
+ * an instance is a walk over the fields the schema names rather than an interpretation of the
+ * schema's keywords.
+ *
+ * <p>Only the subset our schemas use is supported: {@code type}, {@code properties},
+ * {@code required}, {@code items}, {@code minimum}/{@code maximum} and their exclusive forms,
+ * {@code minLength}/{@code maxLength}, {@code pattern}, {@code format} ({@code uuid} and
+ * {@code date-time}) and {@code uniqueItems}. For any other keyword {@link #compile} returns null
+ * and the caller falls back to the networknt validator. Messages match networknt's, so the two
+ * are interchangeable.
+ */
+final class SchemaCompiler {
+    // Keywords that never affect validation
+    private static final Set<String> ANNOTATIONS = Set.of("$schema", "$id", "$comment", "title", "description", "default", "examples");
+    // Keywords that only apply subschemas, which are timed on their own
+    private static final Set<String> STRUCTURAL = Set.of("properties", "items");
+    private static final Pattern DATE_TIME = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[Tt]\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?([Zz]|[+-]\\d{2}:\\d{2})");
+
+    private SchemaCompiler() {
+    }
+
+    /**
+     * Returns a validator for {@code schema}, or null if it uses a keyword this compiler does not
+     * support. When {@code profile} is enabled a sample of each keyword's checks is timed into it.
+     */
+    static InstanceValidator compile(JsonNode schema, ValidationProfile profile) {
+        Check check = compileSchema(schema, profile);
+        if (check == null) {
+            return null;
+        }
+        return instance -> {
+            List<Violation> errors = new ArrayList<>(0);
+            check.apply(instance, Location.ROOT, errors);
+            return errors;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        void apply(JsonNode node, Location at, List<Violation> errors);
+    }
+
+    private static Check compileSchema(JsonNode schema, ValidationProfile profile) {
+        if (!schema.isObject()) {
+            return null;
+        }
+        List<Check> checks = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            Check check = switch (field.getKey()) {
+                case "type" -> typeCheck(value);
+                case "properties" -> propertiesCheck(value, profile);
+                case "required" -> requiredCheck(value);
+                case "items" -> itemsCheck(value, profile);
+                case "minimum" -> numberCheck("minimum", value, false, false, "must have a minimum value of ");
+                case "maximum" -> numberCheck("maximum", value, true, false, "must have a maximum value of ");
+                case "exclusiveMinimum" -> numberCheck("exclusiveMinimum", value, false, true, "must have an exclusive minimum value of ");
+                case "exclusiveMaximum" -> numberCheck("exclusiveMaximum", value, true, true, "must have an exclusive maximum value of ");
+                case "minLength" -> lengthCheck(value, false);
+                case "maxLength" -> lengthCheck(value, true);
+                case "pattern" -> patternCheck(value);
+                case "format" -> formatCheck(value);
+                case "uniqueItems" -> uniqueItemsCheck(value);
+                default -> ANNOTATIONS.contains(field.getKey()) ? (node, at, errors) -> { } : null;
+            };
+            if (check == null) {
+                return null;
+            }
+            checks.add(profile.enabled() && !STRUCTURAL.contains(field.getKey()) && !ANNOTATIONS.contains(field.getKey())
+                    ? timed(check, profile.keywordTimer(field.getKey())) : check);
+        }
+        Check[] all = checks.toArray(new Check[0]);
+        return switch (all.length) {
+            case 0 -> (node, at, errors) -> { };
+            case 1 -> all[0];
+            default -> (node, at, errors) -> {
+                for (Check check : all) {
+                    check.apply(node, at, errors);
+                }
+            };
+        };
+    }
+
+    /**
+     * Times a sample of the check's calls; the others run it without touching the clock.
+     */
+    private static Check timed(Check check, ValidationProfile.KeywordTimer timer) {
+        return (node, at, errors) -> {
+            if (!timer.sample()) {
+                check.apply(node, at, errors);
+                return;
+            }
+            long start = System.nanoTime();
+            check.apply(node, at, errors);
+            timer.add(System.nanoTime() - start);
+        };
+    }
+
+    private static Check typeCheck(JsonNode value) {
+        List<String> types = new ArrayList<>();
+        if (value.isTextual()) {
+            types.add(value.asText());
+        } else if (value.isArray()) {
+            value.forEach(type -> types.add(type.asText()));
+        } else {
+            return null;
+        }
+        for (String type : types) {
+            if (!Set.of("object", "array", "string", "integer", "number", "boolean", "null").contains(type)) {
+                return null;
+            }
+        }
+        String expected = String.join(", ", types);
+        return (node, at, errors) -> {
+            String found = typeOf(node);
+            for (String type : types) {
+                if (type.equals(found) || type.equals("number") && found.equals("integer")) {
+                    return;
+                }
+            }
+            errors.add(new Violation("type", at + ": " + found + " found, " + expected + " expected"));
+        };
+    }
+
+    private static String typeOf(JsonNode node) {
+        return switch (node.getNodeType()) {
+            case OBJECT -> "object";
+            case ARRAY -> "array";
+            case STRING -> "string";
+            case NUMBER -> node.isIntegralNumber() ? "integer" : "number";
+            case BOOLEAN -> "boolean";
+            case NULL -> "null";
+            default -> "unknown";
+        };
+    }
+
+    private static Check propertiesCheck(JsonNode value, ValidationProfile profile) {
+        if (!value.isObject()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        List<Check> checks = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> properties = value.fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> property = properties.next();
+            Check check = compileSchema(property.getValue(), profile);
+            if (check == null) {
+                return null;
+            }
+            names.add(property.getKey());
+            checks.add(check);
+        }
+        String[] propertyNames = names.toArray(new String[0]);
+        Check[] propertyChecks = checks.toArray(new Check[0]);
+        return (node, at, errors) -> {
+            if (!node.isObject()) {
+                return;
+            }
+            for (int i = 0; i < propertyNames.length; i++) {
+                JsonNode child = node.get(propertyNames[i]);
+                if (child != null) {
+                    propertyChecks[i].apply(child, at.property(propertyNames[i]), errors);
+                }
+            }
+        };
+    }
+
+    private static Check requiredCheck(JsonNode value) {
+        if (!value.isArray()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        value.forEach(name -> names.add(name.asText()));
+        String[] required = names.toArray(new String[0]);
+        return (node, at, errors) -> {
+            if (!node.isObject()) {
+                return;
+            }
+            for (String name : required) {
+                if (!node.has(name)) {
+                    errors.add(new Violation("required", at + ": required property '" + name + "' not found"));
+                }
+            }
+        };
+    }
+
+    private static Check itemsCheck(JsonNode value, ValidationProfile profile) {
+        // The tuple form (an array of schemas) is left to networknt
+        Check items = compileSchema(value, profile);
+        if (items == null) {
+            return null;
+        }
+        return (node, at, errors) -> {
+            if (!node.isArray()) {
+                return;
+            }
+            for (int i = 0; i < node.size(); i++) {
+                items.apply(node.get(i), at.index(i), errors);
+            }
+        };
+    }
+
+    private static Check numberCheck(String keyword, JsonNode value, boolean upper, boolean exclusive, String message) {
+        if (!value.isNumber()) {
+            return null;
+        }
+        double limit = value.doubleValue();
+        String text = message + value.asText();
+        return (node, at, errors) -> {
+            if (!node.isNumber()) {
+                return;
+            }
+            double number = node.doubleValue();
+            boolean valid = upper
+                    ? exclusive ? number < limit : number <= limit
+                    : exclusive ? number > limit : number >= limit;
+            if (!valid) {
+                errors.add(new Violation(keyword, at + ": " + text));
+            }
+        };
+    }
+
+    private static Check lengthCheck(JsonNode value, boolean upper) {
+        if (!value.canConvertToInt()) {
+            return null;
+        }
+        int limit = value.intValue();
+        String keyword = upper ? "maxLength" : "minLength";
+        String text = (upper ? "must be at most " : "must be at least ") + limit + " characters long";
+        return (node, at, errors) -> {
+            if (!node.isTextual()) {
+                return;
+            }
+            String string = node.textValue();
+            int length = string.codePointCount(0, string.length());
+            if (upper ? length > limit : length < limit) {
+                errors.add(new Violation(keyword, at + ": " + text));
+            }
+        };
+    }
+
+    private static Check patternCheck(JsonNode value) {
+        if (!value.isTextual()) {
+            return null;
+        }
+        Pattern pattern = Pattern.compile(value.textValue());
+        return (node, at, errors) -> {
+            if (node.isTextual() && !pattern.matcher(node.textValue()).find()) {
+                errors.add(new Violation("pattern", at + ": does not match the regex pattern " + pattern.pattern()));
+            }
+        };
+    }
+
+    private static Check formatCheck(JsonNode value) {
+        String format = value.asText();
+        return switch (format) {
+            case "uuid" -> (node, at, errors) -> {
+                if (node.isTextual() && !isUuid(node.textValue())) {
+                    errors.add(new Violation("format", at + ": does not match the uuid pattern"));
+                }
+            };
+            case "date-time" -> (node, at, errors) -> {
+                if (node.isTextual() && !isDateTime(node.textValue())) {
+                    errors.add(new Violation("format", at + ": does not match the date-time pattern"));
+                }
+            };
+            default -> null;
+        };
+    }
+
+    private static boolean isUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            boolean valid = i == 8 || i == 13 || i == 18 || i == 23
+                    ? c == '-'
+                    : c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDateTime(String value) {
+        if (!DATE_TIME.matcher(value).matches()) {
+            return false;
+        }
+        try {
+            OffsetDateTime.parse(value.toUpperCase());
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static Check uniqueItemsCheck(JsonNode value) {
+        if (!value.isBoolean()) {
+            return null;
+        }
+        if (!value.booleanValue()) {
+            return (node, at, errors) -> { };
+        }
+        return (node, at, errors) -> {
+            if (!node.isArray() || node.size() < 2) {
+                return;
+            }
+            // Pairwise comparison beats hashing for the short arrays our instances hold
+            if (node.size() <= 8) {
+                for (int i = 1; i < node.size(); i++) {
+                    for (int j = 0; j < i; j++) {
+                        if (node.get(i).equals(node.get(j))) {
+                            errors.add(new Violation("uniqueItems", at + ": must have only unique items in the array"));
+                            return;
+                        }
+                    }
+                }
+                return;
+            }
+            Set<JsonNode> seen = new HashSet<>();
+            for (JsonNode item : node) {
+                if (!seen.add(item)) {
+                    errors.add(new Violation("uniqueItems", at + ": must have only unique items in the array"));
+                    return;
+                }
+            }
+        };
+    }
+
+    /**
+     * Where in the instance a check applies, rendered as a JSON path such as {@code $.carUuids[0]}
+     * only when a message needs it.
+     */
+    private record Location(Location parent, String property, int index) {
+        static final Location ROOT = new Location(null, null, -1);
+
+        Location property(String name) {
+            return new Location(this, name, -1);
+        }
+
+        Location index(int i) {
+            return new Location(this, null, i);
+        }
+
+        @Override
+        public String toString() {
+            if (parent == null) {
+                return "$";
+            }
+            return parent + (property != null ? "." + property : "[" + index + "]");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles each schema under a schemas directory once, on first use, and hands out the compiled
+ * validator for every instance of that type. Schemas are keyed by subdirectory and schema type,
+ * e.g. {@code engines/engine-gas}. Schemas within the subset {@link SchemaCompiler} supports get a
+ * specialized validator; the rest, or all of them when compiling is off, get networknt's
+ * {@link JsonSchema}. Safe for concurrent use.
+ */
+public class SchemaRegistry {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path schemasDir;
+    private final JsonSchemaFactory factory;
+    private final boolean compile;
+    private final ValidationProfile profile;
+    // Missing schemas are cached too, so a bad type is only looked up once
+    private final Map<String, Optional<InstanceValidator>> schemas = new ConcurrentHashMap<>();
+
+    public SchemaRegistry(Path schemasDir) {
+        this(schemasDir, JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7), true);
+    }
+
+    public SchemaRegistry(Path schemasDir, JsonSchemaFactory factory) {
+        this(schemasDir, factory, true);
+    }
+
+    public SchemaRegistry(Path schemasDir, JsonSchemaFactory factory, boolean compile) {
+        this(schemasDir, factory, compile, ValidationProfile.DISABLED);
+    }
+
+    /**
+     * Records compile times, and the keyword timings of compiled validators, in {@code profile}.
+     */
+    public SchemaRegistry(Path schemasDir, JsonSchemaFactory factory, boolean compile, ValidationProfile profile) {
+        this.schemasDir = schemasDir;
+        this.factory = factory;
+        this.compile = compile;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the validator for {@code schemaType} in {@code subDir}, or null if there is no such
+     * schema file.
+     */
+    public InstanceValidator get(String subDir, String schemaType) {
+        return schemas.computeIfAbsent(subDir + "/" + schemaType, key -> compile(key, schemaPath(subDir, schemaType))).orElse(null);
+    }
+
+    public Path schemaPath(String subDir, String schemaType) {
+        return schemasDir.resolve(subDir).resolve(schemaType + ".json");
+    }
+
+    private Optional<InstanceValidator> compile(String key, Path schemaPath) {
+        if (!Files.exists(schemaPath)) {
+            return Optional.empty();
+        }
+        long start = profile.start();
+        JsonNode schemaNode;
+        try {
+            schemaNode = mapper.readTree(schemaPath.toFile());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read schema: " + schemaPath, e);
+        }
+        InstanceValidator compiled = compile ? SchemaCompiler.compile(schemaNode, profile) : null;
+        if (compiled != null) {
+            profile.compiled(key, start, true);
+            return Optional.of(compiled);
+        }
+        JsonSchema schema = factory.getSchema(schemaNode);
+        profile.compiled(key, start, false);
+        return Optional.of(instance -> schema.validate(instance).stream()
+                .map(message -> new InstanceValidator.Violation(message.getType(), message.getMessage()))
+                .toList());
+    }
+}
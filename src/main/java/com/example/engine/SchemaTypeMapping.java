@@ -1,11 +1,21 @@
 package com.example.engine;
 
+import com.example.engine.generated.compact.CompactModels;
+
+import java.util.HashMap;
 import java.util.Map;
 
 public class SchemaTypeMapping {
-    public static final Map<Class<?>, String> CLASS_TO_SCHEMA_TYPE = Map.of(
-            com.example.engine.generated.engines.EngineGas.class, "engine-gas",
-            com.example.engine.generated.engines.EngineElectric.class, "engine-electric",
-            com.example.engine.generated.engines.EngineHybrid.class, "engine-hybrid"
-    );
+    public static final Map<Class<?>, String> CLASS_TO_SCHEMA_TYPE;
+
+    static {
+        Map<Class<?>, String> classToSchemaType = new HashMap<>(Map.of(
+                com.example.engine.generated.engines.EngineGas.class, "engine-gas",
+                com.example.engine.generated.engines.EngineElectric.class, "engine-electric",
+                com.example.engine.generated.engines.EngineHybrid.class, "engine-hybrid"
+        ));
+        // Compact models stand for the same schema types as the jsonschema2pojo classes
+        classToSchemaType.putAll(CompactModels.SCHEMA_TYPES);
+        CLASS_TO_SCHEMA_TYPE = Map.copyOf(classToSchemaType);
+    }
 }
@@ -0,0 +1,141 @@
+package com.example.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-car index of the time intervals in which each car-engine relationship is valid. The
+ * intervals of all cars are stored in flat arrays, grouped by car id and sorted by start within a
+ * car. Each car's slice is read as an implicit balanced search tree (the middle element is the
+ * root) augmented with the largest end time in every subtree, so point and range queries skip
+ * whole subtrees that end too early or start too late and answer in O(log n + k) for typical
+ * relationship histories.
+ *
+ * <p>Intervals are half-open: an engine is valid from {@code validFrom} inclusive until
+ * {@code validTo} exclusive. Times are epoch milliseconds; an open-ended interval ends at
+ * {@link Long#MAX_VALUE}. Engines are stored by UUID rather than id so the index stays valid
+ * when engines are added or removed.
+ */
+public class TemporalIndex {
+    public static final TemporalIndex EMPTY = new TemporalIndex(new int[1], new long[0], new long[0], new long[0], new long[0], new long[0]);
+
+    // Car id -> start of the car's slice; a car id past the end has no intervals
+    private final int[] carOffsets;
+    private final long[] starts;
+    private final long[] ends;
+    // Largest end in the implicit subtree rooted at each position
+    private final long[] maxEnds;
+    private final long[] engineMsb;
+    private final long[] engineLsb;
+
+    private TemporalIndex(int[] carOffsets, long[] starts, long[] ends, long[] maxEnds, long[] engineMsb, long[] engineLsb) {
+        this.carOffsets = carOffsets;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = maxEnds;
+        this.engineMsb = engineMsb;
+        this.engineLsb = engineLsb;
+    }
+
+    public static TemporalIndex build(UuidIndex carIndex, Map<String, List<Interval>> intervalsByCar) {
+        List<List<Interval>> byCarId = new ArrayList<>(carIndex.size());
+        for (int i = 0; i < carIndex.size(); i++) {
+            byCarId.add(List.of());
+        }
+        int total = 0;
+        for (Map.Entry<String, List<Interval>> entry : intervalsByCar.entrySet()) {
+            int carId = carIndex.get(entry.getKey());
+            if (carId >= 0) {
+                List<Interval> sorted = new ArrayList<>(entry.getValue());
+                sorted.sort(Comparator.comparingLong(Interval::validFrom).thenComparingLong(Interval::validTo));
+                byCarId.set(carId, sorted);
+                total += sorted.size();
+            }
+        }
+
+        int[] carOffsets = new int[byCarId.size() + 1];
+        long[] starts = new long[total];
+        long[] ends = new long[total];
+        long[] engineMsb = new long[total];
+        long[] engineLsb = new long[total];
+        int position = 0;
+        for (int carId = 0; carId < byCarId.size(); carId++) {
+            carOffsets[carId] = position;
+            for (Interval interval : byCarId.get(carId)) {
+                starts[position] = interval.validFrom();
+                ends[position] = interval.validTo();
+                engineMsb[position] = interval.engineUuid().getMostSignificantBits();
+                engineLsb[position] = interval.engineUuid().getLeastSignificantBits();
+                position++;
+            }
+        }
+        carOffsets[byCarId.size()] = position;
+
+        long[] maxEnds = new long[total];
+        for (int carId = 0; carId < byCarId.size(); carId++) {
+            computeMaxEnds(ends, maxEnds, carOffsets[carId], carOffsets[carId + 1]);
+        }
+        return new TemporalIndex(carOffsets, starts, ends, maxEnds, engineMsb, engineLsb);
+    }
+
+    public boolean hasIntervals(int carId) {
+        return carId >= 0 && carId + 1 < carOffsets.length && carOffsets[carId] < carOffsets[carId + 1];
+    }
+
+    /**
+     * Calls {@code consumer} for each of the car's engines valid at {@code at}, in order of start.
+     */
+    public void forEachValidAt(int carId, long at, IntervalConsumer consumer) {
+        forEachOverlapping(carId, at, at + 1, consumer);
+    }
+
+    /**
+     * Calls {@code consumer} for each of the car's engines valid at any time in [{@code from},
+     * {@code to}), in order of start.
+     */
+    public void forEachOverlapping(int carId, long from, long to, IntervalConsumer consumer) {
+        if (hasIntervals(carId) && from < to) {
+            query(carOffsets[carId], carOffsets[carId + 1], from, to, consumer);
+        }
+    }
+
+    private void query(int low, int high, long from, long to, IntervalConsumer consumer) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        // Nothing in this subtree is still valid at or after from
+        if (maxEnds[mid] <= from) {
+            return;
+        }
+        query(low, mid, from, to, consumer);
+        // Starts are sorted, so if this one starts too late so does everything to its right
+        if (starts[mid] < to) {
+            if (ends[mid] > from) {
+                consumer.accept(engineMsb[mid], engineLsb[mid], starts[mid], ends[mid]);
+            }
+            query(mid + 1, high, from, to, consumer);
+        }
+    }
+
+    private static long computeMaxEnds(long[] ends, long[] maxEnds, int low, int high) {
+        if (low >= high) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (low + high) >>> 1;
+        long max = Math.max(ends[mid], Math.max(computeMaxEnds(ends, maxEnds, low, mid), computeMaxEnds(ends, maxEnds, mid + 1, high)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    @FunctionalInterface
+    public interface IntervalConsumer {
+        void accept(long engineMsb, long engineLsb, long validFrom, long validTo);
+    }
+
+    public record Interval(UUID engineUuid, long validFrom, long validTo) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.engine;
+
+import java.util.UUID;
+
+/**
+ * Open-addressing hash index from 128-bit UUIDs to dense int ids. Keys are stored as two
+ * {@code long}s (most/least significant bits) in parallel arrays, so no {@code String} or
+ * {@code UUID} object is retained per entry and lookups never hash a 36-character string.
+ *
+ * <p>Ids are assigned in insertion order starting at 0, which lets callers keep per-instance data
+ * in plain arrays indexed by id. Instances are not thread-safe while being built; once fully
+ * populated they may be read concurrently.
+ *
+ * <p>Slots and ids are kept in {@link PagedArray}s, so {@link #copy} shares them page by page and
+ * adding k UUIDs to a copy clones at most k pages of each. Only when a copy outgrows its load
+ * factor does it rehash into fresh pages, once per doubling.
+ */
+public class UuidIndex {
+    private static final int EMPTY = -1;
+
+    // Msb and lsb of each slot's key side by side, at 2 * slot and 2 * slot + 1
+    private PagedArray.Longs slotKeys;
+    private PagedArray.Ints slotIds;
+    private int slotCount;
+    // Msb and lsb of each id's UUID, at 2 * id and 2 * id + 1
+    private PagedArray.Longs idKeys;
+    private int size;
+
+    public UuidIndex() {
+        this(16);
+    }
+
+    public UuidIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocateSlots(capacity);
+        idKeys = new PagedArray.Longs(2 * Math.max(4, expectedSize));
+    }
+
+    private UuidIndex(UuidIndex source) {
+        slotKeys = source.slotKeys.copy();
+        slotIds = source.slotIds.copy();
+        slotCount = source.slotCount;
+        idKeys = source.idKeys.copy();
+        size = source.size;
+    }
+
+    /**
+     * Returns an independent copy with the same ids, for building an updated index without
+     * disturbing readers of this one. The copy shares this index's pages until it writes to them,
+     * so copying costs a page table rather than the whole index.
+     */
+    public UuidIndex copy() {
+        return new UuidIndex(this);
+    }
+
+    /**
+     * Returns the id of the given UUID, assigning the next free id if it is not indexed yet.
+     */
+    public int add(long msb, long lsb) {
+        int slot = findSlot(msb, lsb);
+        int existing = slotIds.get(slot);
+        if (existing != EMPTY) {
+            return existing;
+        }
+        int id = size++;
+        idKeys.set(2 * id, msb);
+        idKeys.set(2 * id + 1, lsb);
+        setSlot(slot, msb, lsb, id);
+        // Keep the load factor at or below one half so probe sequences stay short
+        if (size * 2 > slotCount) {
+            rehash(slotCount * 2);
+        }
+        return id;
+    }
+
+    public int add(UUID uuid) {
+        return add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public int add(String uuid) {
+        return add(UUID.fromString(uuid));
+    }
+
+    /**
+     * Returns the id of the given UUID, or -1 if it is not indexed.
+     */
+    public int get(long msb, long lsb) {
+        return slotIds.get(findSlot(msb, lsb));
+    }
+
+    public int get(UUID uuid) {
+        return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns the id of the given UUID string, or -1 if it is not indexed or is not a valid UUID.
+     */
+    public int get(String uuid) {
+        UUID parsed = parse(uuid);
+        return parsed == null ? EMPTY : get(parsed);
+    }
+
+    public UUID uuid(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No UUID with id " + id);
+        }
+        return new UUID(mostSignificantBits(id), leastSignificantBits(id));
+    }
+
+    public long mostSignificantBits(int id) {
+        return idKeys.get(2 * id);
+    }
+
+    public long leastSignificantBits(int id) {
+        return idKeys.get(2 * id + 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses a UUID string, returning null instead of throwing for malformed input.
+     */
+    public static UUID parse(String uuid) {
+        if (uuid == null || uuid.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int findSlot(long msb, long lsb) {
+        int mask = slotCount - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (slotIds.get(slot) != EMPTY && (slotKeys.get(2 * slot) != msb || slotKeys.get(2 * slot + 1) != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void setSlot(int slot, long msb, long lsb, int id) {
+        slotKeys.set(2 * slot, msb);
+        slotKeys.set(2 * slot + 1, lsb);
+        slotIds.set(slot, id);
+    }
+
+    private void rehash(int capacity) {
+        // Ids are dense, so reinsert them from the id arrays rather than scanning the old slots
+        allocateSlots(capacity);
+        for (int id = 0; id < size; id++) {
+            long msb = mostSignificantBits(id);
+            long lsb = leastSignificantBits(id);
+            setSlot(findSlot(msb, lsb), msb, lsb, id);
+        }
+    }
+
+    private void allocateSlots(int capacity) {
+        slotKeys = new PagedArray.Longs(2 * capacity);
+        slotIds = new PagedArray.Ints(capacity, EMPTY);
+        slotCount = capacity;
+    }
+
+    private static int hash(long msb, long lsb) {
+        // Random UUIDs are already well distributed, but time-based and hand-written ones are not
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
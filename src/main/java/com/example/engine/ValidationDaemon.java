@@ -0,0 +1,241 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Validates documents over HTTP on the loopback interface, so hooks that validate many times a
+ * day pay JVM startup and schema compilation once. The daemon keeps the compiled schemas and an
+ * {@link IntegrityCheck} index of the instances directory, and answers every request on its own
+ * virtual thread.
+ *
+ * <ul>
+ *   <li>{@code POST /validate} takes one instance or a JSON array of instances. Each instance names
+ *   its schema type in {@value EngineValidation#TYPE_FIELD}, or the request names it for all of
+ *   them with {@code ?type=engine-gas}. Once every instance passes its schema, the request is
+ *   checked like {@link EngineValidation#validate} checks a directory: its instances are layered
+ *   over the index, replacing indexed instances with the same UUID, and their duplicates, dangling
+ *   references and asymmetric links are reported. The response lists errors and warnings per
+ *   instance, in request order.</li>
+ *   <li>{@code POST /reload} recompiles the schemas and rebuilds the index after files change.</li>
+ *   <li>{@code GET /health} reports the number of indexed instances, and the instance files left
+ *   out of the index because they could not be read or parsed.</li>
+ * </ul>
+ */
+public class ValidationDaemon implements AutoCloseable {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final File schemasDir;
+    private final File instancesDir;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile State state;
+
+    private ValidationDaemon(File schemasDir, File instancesDir, HttpServer server) throws IOException {
+        this.schemasDir = schemasDir;
+        this.instancesDir = instancesDir;
+        this.server = server;
+        this.state = load();
+    }
+
+    /**
+     * Starts a daemon on {@code port} of the loopback address; port 0 picks a free one.
+     */
+    public static ValidationDaemon start(File schemasDir, File instancesDir, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ValidationDaemon daemon = new ValidationDaemon(schemasDir, instancesDir, server);
+        server.createContext("/validate", exchange -> daemon.handle(exchange, "POST", daemon::validate));
+        server.createContext("/reload", exchange -> daemon.handle(exchange, "POST", daemon::reload));
+        server.createContext("/health", exchange -> daemon.handle(exchange, "GET", daemon::health));
+        server.setExecutor(daemon.executor);
+        server.start();
+        return daemon;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private State load() throws IOException {
+        IntegrityCheck index = new IntegrityCheck();
+        Map<String, String> skipped = new TreeMap<>();
+        for (String subDir : new String[]{"engines", "cars"}) {
+            Path subDirPath = instancesDir.toPath().resolve(subDir);
+            if (!Files.exists(subDirPath)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.walk(subDirPath)) {
+                for (Path path : paths.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+                    // Named like validate names the file, so findings read the same
+                    String source = instancesDir.toPath().relativize(path).toString().replace('\\', '/');
+                    JsonNode instance;
+                    try {
+                        instance = mapper.readTree(path.toFile());
+                    } catch (IOException e) {
+                        // validate reports the file itself; one bad file must not take down the daemon
+                        skipped.put(source, e.getMessage());
+                        continue;
+                    }
+                    JsonNode uuid = instance == null ? null : instance.get("uuid");
+                    if (uuid != null) {
+                        index.add(source, uuid.asText(), subDir.equals("engines"), EngineValidation.links(subDir, instance));
+                    }
+                }
+            }
+        }
+        return new State(new SchemaRegistry(schemasDir.toPath()), index, skipped);
+    }
+
+    private Response validate(HttpExchange exchange) throws IOException {
+        String type = queryParameter(exchange, "type");
+        JsonNode body;
+        try (InputStream is = exchange.getRequestBody()) {
+            body = mapper.readTree(is);
+        } catch (IOException e) {
+            return new Response(400, Map.of("error", "Malformed JSON: " + e.getMessage()));
+        }
+        List<JsonNode> instances = new ArrayList<>();
+        if (body != null && body.isArray()) {
+            body.forEach(instances::add);
+        } else if (body != null) {
+            instances.add(body);
+        }
+
+        State state = this.state;
+        List<EngineValidation.Checked> checked = IntStream.range(0, instances.size()).parallel()
+                .mapToObj(i -> {
+                    JsonNode instance = instances.get(i);
+                    if (type != null && instance instanceof ObjectNode document && !document.has(EngineValidation.TYPE_FIELD)) {
+                        document.put(EngineValidation.TYPE_FIELD, type);
+                    }
+                    return EngineValidation.checkTyped(instance, source(i), state.schemas(), ValidationProfile.DISABLED);
+                })
+                .toList();
+
+        // As in validate, links are only checked once every instance is valid; an invalid instance
+        // would show up as the target of dangling references
+        Map<String, IntegrityCheck.Result> findings = Map.of();
+        if (checked.stream().allMatch(result -> result.error() == null)) {
+            IntegrityCheck integrity = new IntegrityCheck(state.index());
+            for (int i = 0; i < checked.size(); i++) {
+                EngineValidation.Checked result = checked.get(i);
+                integrity.add(source(i), result.uuid(), result.catalogEntry() != null, result.links());
+            }
+            findings = integrity.checkEach();
+        }
+        List<InstanceReport> reports = new ArrayList<>(checked.size());
+        boolean valid = true;
+        for (int i = 0; i < checked.size(); i++) {
+            EngineValidation.Checked result = checked.get(i);
+            List<String> errors = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+            if (result.error() != null) {
+                errors.add(result.error());
+            } else if (findings.containsKey(source(i))) {
+                errors.addAll(findings.get(source(i)).errors());
+                warnings.addAll(findings.get(source(i)).warnings());
+            }
+            valid &= errors.isEmpty();
+            reports.add(new InstanceReport(i, result.uuid(), errors, warnings));
+        }
+        return new Response(200, new ValidationReport(valid, reports));
+    }
+
+    private Response reload(HttpExchange exchange) throws IOException {
+        state = load();
+        return health(exchange);
+    }
+
+    private Response health(HttpExchange exchange) {
+        State state = this.state;
+        return new Response(200, Map.of("status", "ok", "instances", state.index().size(), "skipped", state.skipped()));
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            Response response;
+            if (!exchange.getRequestMethod().equals(method)) {
+                response = new Response(405, Map.of("error", "Use " + method));
+            } else {
+                try {
+                    response = handler.handle(exchange);
+                } catch (Exception e) {
+                    response = new Response(500, Map.of("error", String.valueOf(e.getMessage())));
+                }
+            }
+            byte[] json = mapper.writeValueAsBytes(response.body());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status(), json.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(json);
+            }
+        }
+    }
+
+    private static String source(int index) {
+        return "instance " + index;
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * The compiled schemas, the instances directory's links and, per instance file left out of
+     * them, why; replaced as a whole on reload.
+     */
+    private record State(SchemaRegistry schemas, IntegrityCheck index, Map<String, String> skipped) {
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    public record ValidationReport(boolean valid, List<InstanceReport> instances) {
+    }
+
+    public record InstanceReport(int index, String uuid, List<String> errors, List<String> warnings) {
+    }
+}
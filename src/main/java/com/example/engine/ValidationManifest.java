@@ -0,0 +1,66 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the last validation run saw: a content hash per schema and, per valid instance, its hash,
+ * size and modification time plus everything the instance contributed to the generated files.
+ * An instance whose content and schema are unchanged since then does not need to be parsed or
+ * validated again; its recorded contribution is reused instead.
+ *
+ * <p>Instances are keyed by their path relative to the instances directory, e.g.
+ * {@code engines/engine-gas-prod.json}; schemas by subdirectory and type, e.g. {@code engines/engine-gas}.
+ */
+public record ValidationManifest(int version, Map<String, String> schemas, Map<String, Entry> instances) {
+    // Bump whenever the recorded contribution changes shape, so old manifests are ignored
+    static final int VERSION = 2;
+    static final ValidationManifest EMPTY = new ValidationManifest(VERSION, Map.of(), Map.of());
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Reads the manifest at {@code file}, or returns an empty one if it is missing, unreadable or
+     * from another version, which makes the next run a full validation.
+     */
+    public static ValidationManifest read(Path file) {
+        if (!Files.exists(file)) {
+            return EMPTY;
+        }
+        try {
+            ValidationManifest manifest = mapper.readValue(file.toFile(), ValidationManifest.class);
+            return manifest.version() == VERSION && manifest.schemas() != null && manifest.instances() != null ? manifest : EMPTY;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable validation manifest " + file + ": " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    public byte[] toBytes() throws IOException {
+        return mapper.writeValueAsBytes(this);
+    }
+
+    static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A validated instance: how to recognise it unchanged, and what it contributed. {@code links}
+     * are the UUIDs it names on the other side of a relationship, for the integrity check.
+     */
+    public record Entry(String hash, long size, long modified, String uuid, String schemaType,
+                        List<String> engineUuids, List<Map<String, String>> intervals, List<String> links) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.engine;
+
+import com.example.engine.InstanceValidator.Violation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where a validation run spends its time: nanoseconds and counts per phase (listing, reading,
+ * parsing, schema compilation, validation, integrity check, writing), per schema type and per
+ * keyword, plus which keywords failed how often. Times of per-instance phases are summed over the
+ * threads that validate in parallel, so they can add up to more than the run's wall time. Keyword
+ * times are only recorded for schemas {@link SchemaCompiler} compiled, and are estimated from a
+ * sample of one in {@value #KEYWORD_SAMPLE_INTERVAL} checks.
+ *
+ * <p>{@link #DISABLED} records nothing and costs a branch per call. Independently of profiling,
+ * every run emits JFR events ({@code com.example.engine.ValidationPhase} and
+ * {@code com.example.engine.InstanceValidation}), which a recording started with
+ * {@code -XX:StartFlightRecording} picks up for JDK Mission Control.
+ */
+public class ValidationProfile {
+    public static final ValidationProfile DISABLED = new ValidationProfile(false);
+
+    // A keyword check takes tens of nanoseconds, about what reading the clock twice does, so only
+    // one in this many is timed and the counts and times are scaled up from the sample
+    static final int KEYWORD_SAMPLE_INTERVAL = 16;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final boolean enabled;
+    private final long started = System.nanoTime();
+    private final LongAdder instances = new LongAdder();
+    private final Map<String, Timing> phases = new ConcurrentHashMap<>();
+    private final Map<String, SchemaCounters> schemas = new ConcurrentHashMap<>();
+    private final Map<String, KeywordCounters> keywords = new ConcurrentHashMap<>();
+
+    public ValidationProfile() {
+        this(true);
+    }
+
+    private ValidationProfile(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a per-instance phase; pass the result to {@link #add}.
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void add(String phase, long start) {
+        if (enabled) {
+            phases.computeIfAbsent(phase, k -> new Timing()).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Times a run-level phase until the returned handle is closed, and emits it as a JFR event.
+     */
+    Phase phase(String name) {
+        PhaseEvent event = new PhaseEvent();
+        event.phase = name;
+        event.begin();
+        long start = start();
+        return () -> {
+            event.commit();
+            add(name, start);
+        };
+    }
+
+    void compiled(String schema, long start, boolean specialized) {
+        if (enabled) {
+            add("compile", start);
+            SchemaCounters counters = schemas.computeIfAbsent(schema, k -> new SchemaCounters());
+            counters.compileNanos.add(System.nanoTime() - start);
+            counters.specialized = specialized;
+        }
+    }
+
+    void validated(String schema, long start, List<Violation> violations) {
+        if (enabled) {
+            add("validate", start);
+            instances.increment();
+            SchemaCounters counters = schemas.computeIfAbsent(schema, k -> new SchemaCounters());
+            counters.validate.add(System.nanoTime() - start);
+            if (!violations.isEmpty()) {
+                counters.failed.increment();
+            }
+            for (Violation violation : violations) {
+                keywords.computeIfAbsent(violation.keyword(), k -> new KeywordCounters()).failures.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns a timer for one compiled check of {@code keyword}, so the check looks its counters up
+     * once rather than per call.
+     */
+    KeywordTimer keywordTimer(String keyword) {
+        return new KeywordTimer(keywords.computeIfAbsent(keyword, k -> new KeywordCounters()).checks);
+    }
+
+    /**
+     * Starts the JFR event for one instance; finish it with {@link #instanceDone}.
+     */
+    static InstanceEvent instanceStarted() {
+        InstanceEvent event = new InstanceEvent();
+        event.begin();
+        return event;
+    }
+
+    static void instanceDone(InstanceEvent event, String source, String schemaType, boolean valid, boolean reused) {
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.schemaType = schemaType;
+            event.valid = valid;
+            event.reused = reused;
+            event.commit();
+        }
+    }
+
+    public Summary summary() {
+        Map<String, PhaseSummary> phaseSummaries = new TreeMap<>();
+        phases.forEach((name, timing) -> phaseSummaries.put(name, new PhaseSummary(timing.count.sum(), timing.nanos.sum())));
+        Map<String, SchemaSummary> schemaSummaries = new TreeMap<>();
+        schemas.forEach((name, counters) -> schemaSummaries.put(name, new SchemaSummary(counters.specialized,
+                counters.compileNanos.sum(), counters.validate.count.sum(), counters.failed.sum(), counters.validate.nanos.sum())));
+        Map<String, KeywordSummary> keywordSummaries = new TreeMap<>();
+        keywords.forEach((name, counters) -> keywordSummaries.put(name, new KeywordSummary(counters.checks.count.sum(),
+                counters.checks.nanos.sum(), counters.failures.sum())));
+        return new Summary(instances.sum(), System.nanoTime() - started, phaseSummaries, schemaSummaries, keywordSummaries);
+    }
+
+    public void write(Path file) throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), summary());
+    }
+
+    /**
+     * Samples the calls of one compiled keyword check: {@link #sample} selects one call in
+     * {@value #KEYWORD_SAMPLE_INTERVAL} to time, and {@link #add} records it on behalf of all of
+     * them. Threads share the call counter without synchronization; a lost update only shifts
+     * which call is sampled.
+     */
+    static final class KeywordTimer {
+        private final Timing timing;
+        private int calls;
+
+        private KeywordTimer(Timing timing) {
+            this.timing = timing;
+        }
+
+        boolean sample() {
+            return calls++ % KEYWORD_SAMPLE_INTERVAL == 0;
+        }
+
+        void add(long nanos) {
+            timing.count.add(KEYWORD_SAMPLE_INTERVAL);
+            timing.nanos.add(nanos * KEYWORD_SAMPLE_INTERVAL);
+        }
+    }
+
+    /**
+     * A run-level phase being timed.
+     */
+    interface Phase extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public record Summary(long instances, long wallNanos, Map<String, PhaseSummary> phases,
+                          Map<String, SchemaSummary> schemas, Map<String, KeywordSummary> keywords) {
+    }
+
+    public record PhaseSummary(long count, long nanos) {
+    }
+
+    /**
+     * {@code compiled} is false for schemas that fell back to networknt.
+     */
+    public record SchemaSummary(boolean compiled, long compileNanos, long instances, long failed, long validateNanos) {
+    }
+
+    /**
+     * {@code checks} and {@code nanos} are extrapolated from the sampled checks; {@code failures}
+     * is exact.
+     */
+    public record KeywordSummary(long checks, long nanos, long failures) {
+    }
+
+    private static class Timing {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        void add(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+        }
+    }
+
+    private static class SchemaCounters {
+        final LongAdder compileNanos = new LongAdder();
+        final Timing validate = new Timing();
+        final LongAdder failed = new LongAdder();
+        volatile boolean specialized;
+    }
+
+    private static class KeywordCounters {
+        final Timing checks = new Timing();
+        final LongAdder failures = new LongAdder();
+    }
+
+    @Name("com.example.engine.ValidationPhase")
+    @Label("Validation Phase")
+    @Category("Engine Validation")
+    @Description("A phase of a validation run")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("com.example.engine.InstanceValidation")
+    @Label("Instance Validation")
+    @Category("Engine Validation")
+    @Description("Reading, parsing and validating one instance")
+    static class InstanceEvent extends Event {
+        @Label("Source")
+        String source;
+
+        @Label("Schema Type")
+        String schemaType;
+
+        @Label("Valid")
+        boolean valid;
+
+        @Label("Reused")
+        @Description("Unchanged since the previous run, so not validated again")
+        boolean reused;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deduplicates the values loaded models and documents hold, so equal strings, UUIDs and text
+ * nodes share one instance however many instances repeat them. Enumerated values such as fuel
+ * and charging types, and UUIDs linking engines and cars, repeat across most instances.
+ *
+ * <p>The pool only holds its values weakly: a value no model or document references any more is
+ * dropped from the table, so replacing or reloading the catalog does not pin the old values. The
+ * table is safe for concurrent use by loader and deserializer threads. Pooling a value that is
+ * unique costs a table entry for as long as the value lives, so callers pool the properties that
+ * repeat, and leave out each instance's {@link #IDENTIFIERS}.
+ */
+public final class ValuePool {
+    /**
+     * The pool shared by everything that loads the catalog.
+     */
+    public static final ValuePool CATALOG = new ValuePool();
+    /**
+     * Top-level properties unique to their instance, which are not worth pooling.
+     */
+    public static final Set<String> IDENTIFIERS = Set.of("name", "uuid");
+
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+
+    public String string(String value) {
+        return value == null ? null : intern(value);
+    }
+
+    public UUID uuid(UUID value) {
+        return value == null ? null : intern(value);
+    }
+
+    /**
+     * Replaces the text values of a parsed instance, at any depth, with pooled text nodes, except
+     * the values of its {@link #IDENTIFIERS}; returns the instance.
+     */
+    public JsonNode values(JsonNode instance) {
+        if (instance instanceof ObjectNode object) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = object.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!IDENTIFIERS.contains(field.getKey())) {
+                    field.setValue(pooledNode(field.getValue()));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The number of values pooled, including ones collected but not yet removed.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T intern(T value) {
+        expungeCleared();
+        Entry existing = entries.get(new Lookup(value));
+        Object pooled = existing != null ? existing.get() : null;
+        if (pooled != null) {
+            return (T) pooled;
+        }
+        Entry entry = new Entry(value, cleared);
+        while (true) {
+            existing = entries.putIfAbsent(entry, entry);
+            if (existing == null) {
+                return value;
+            }
+            pooled = existing.get();
+            if (pooled != null) {
+                return (T) pooled;
+            }
+            // Collected but not expunged yet; replace it
+            entries.remove(existing, existing);
+        }
+    }
+
+    private JsonNode pooledNode(JsonNode node) {
+        if (node.isTextual()) {
+            return intern(node);
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, pooledNode(array.get(i)));
+            }
+        } else if (node instanceof ObjectNode object) {
+            object.fields().forEachRemaining(field -> field.setValue(pooledNode(field.getValue())));
+        }
+        return node;
+    }
+
+    private void expungeCleared() {
+        for (Object entry; (entry = cleared.poll()) != null; ) {
+            entries.remove(entry, entry);
+        }
+    }
+
+    /**
+     * A table key holding its value weakly. Two live entries are equal when their values are;
+     * once cleared, an entry only equals itself, so it can still be removed.
+     */
+    private static final class Entry extends WeakReference<Object> {
+        private final int hash;
+
+        Entry(Object value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            Object value = get();
+            return value != null && other instanceof Entry entry && value.equals(entry.get());
+        }
+    }
+
+    /**
+     * Probes the table for a value without allocating a weak reference.
+     */
+    private static final class Lookup {
+        private final Object value;
+
+        Lookup(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && value.equals(entry.get());
+        }
+    }
+}
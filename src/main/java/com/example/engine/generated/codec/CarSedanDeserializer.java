@@ -0,0 +1,79 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.ValuePool;
+import com.example.engine.generated.cars.CarSedan;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Reads {@link CarSedan} field by field from the token stream.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class CarSedanDeserializer extends StdDeserializer<CarSedan> {
+    public CarSedanDeserializer() {
+        super(CarSedan.class);
+    }
+
+    @Override
+    public CarSedan deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (CarSedan) ctxt.handleUnexpectedToken(CarSedan.class, p);
+        }
+        CarSedan value = new CarSedan();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String property = p.currentName();
+            boolean isNull = p.nextToken() == JsonToken.VALUE_NULL;
+            switch (property) {
+                case "name" -> value.name = isNull ? null : readString(p, ctxt);
+                case "uuid" -> value.uuid = isNull ? null : readUuid(p, ctxt);
+                case "model" -> value.model = isNull ? null : ValuePool.CATALOG.string(readString(p, ctxt));
+                case "maxSpeed" -> value.maxSpeed = isNull ? null : readLong(p, ctxt);
+                case "features" -> value.features = isNull ? null : readStringSet(p, ctxt);
+                case "engineUuids" -> value.engineUuids = isNull ? null : readStringSet(p, ctxt);
+                default -> ctxt.handleUnknownProperty(p, this, CarSedan.class, property);
+            }
+        }
+        return value;
+    }
+
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class);
+    }
+
+    private static UUID readUuid(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() == 36) {
+            String text = p.getText();
+            try {
+                return UUID.fromString(text);
+            } catch (IllegalArgumentException e) {
+                throw ctxt.weirdStringException(text, UUID.class, e.getMessage());
+            }
+        }
+        return ctxt.readValue(p, UUID.class);
+    }
+
+    private static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : ctxt.readValue(p, Long.class);
+    }
+
+    private static Set<String> readStringSet(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(Set.class, String.class));
+        }
+        Set<String> values = new LinkedHashSet<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(p.currentToken() == JsonToken.VALUE_NULL ? null : ValuePool.CATALOG.string(readString(p, ctxt)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.generated.cars.CarSuv;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import javax.annotation.processing.Generated;
+
+/**
+ * Writes {@link CarSuv} field by field, nulls included, in declaration order.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class CarSuvSerializer extends StdSerializer<CarSuv> {
+    public CarSuvSerializer() {
+        super(CarSuv.class);
+    }
+
+    @Override
+    public void serialize(CarSuv value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName("name");
+        if (value.name == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.name);
+        }
+        gen.writeFieldName("uuid");
+        if (value.uuid == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.uuid.toString());
+        }
+        gen.writeFieldName("model");
+        if (value.model == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.model);
+        }
+        gen.writeFieldName("maxSpeed");
+        if (value.maxSpeed == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.maxSpeed.longValue());
+        }
+        gen.writeFieldName("features");
+        if (value.features == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (String element : value.features) {
+                if (element == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(element);
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeFieldName("engineUuids");
+        if (value.engineUuids == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (String element : value.engineUuids) {
+                if (element == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(element);
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
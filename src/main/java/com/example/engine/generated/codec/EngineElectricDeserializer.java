@@ -0,0 +1,90 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.ValuePool;
+import com.example.engine.generated.engines.EngineElectric;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Reads {@link EngineElectric} field by field from the token stream.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class EngineElectricDeserializer extends StdDeserializer<EngineElectric> {
+    public EngineElectricDeserializer() {
+        super(EngineElectric.class);
+    }
+
+    @Override
+    public EngineElectric deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (EngineElectric) ctxt.handleUnexpectedToken(EngineElectric.class, p);
+        }
+        EngineElectric value = new EngineElectric();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String property = p.currentName();
+            boolean isNull = p.nextToken() == JsonToken.VALUE_NULL;
+            switch (property) {
+                case "name" -> value.name = isNull ? null : readString(p, ctxt);
+                case "uuid" -> value.uuid = isNull ? null : readUuid(p, ctxt);
+                case "batteryCapacity" -> value.batteryCapacity = isNull ? null : readLong(p, ctxt);
+                case "rangeMiles" -> value.rangeMiles = isNull ? null : readLong(p, ctxt);
+                case "chargingTypes" -> value.chargingTypes = isNull ? null : readStringSet(p, ctxt);
+                case "carUuids" -> value.carUuids = isNull ? null : readUuidSet(p, ctxt);
+                default -> ctxt.handleUnknownProperty(p, this, EngineElectric.class, property);
+            }
+        }
+        return value;
+    }
+
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class);
+    }
+
+    private static UUID readUuid(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() == 36) {
+            String text = p.getText();
+            try {
+                return UUID.fromString(text);
+            } catch (IllegalArgumentException e) {
+                throw ctxt.weirdStringException(text, UUID.class, e.getMessage());
+            }
+        }
+        return ctxt.readValue(p, UUID.class);
+    }
+
+    private static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : ctxt.readValue(p, Long.class);
+    }
+
+    private static Set<String> readStringSet(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(Set.class, String.class));
+        }
+        Set<String> values = new LinkedHashSet<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(p.currentToken() == JsonToken.VALUE_NULL ? null : ValuePool.CATALOG.string(readString(p, ctxt)));
+        }
+        return values;
+    }
+
+    private static Set<UUID> readUuidSet(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(Set.class, UUID.class));
+        }
+        Set<UUID> values = new LinkedHashSet<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(p.currentToken() == JsonToken.VALUE_NULL ? null : ValuePool.CATALOG.uuid(readUuid(p, ctxt)));
+        }
+        return values;
+    }
+}
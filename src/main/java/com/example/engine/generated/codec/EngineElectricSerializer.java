@@ -0,0 +1,77 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.generated.engines.EngineElectric;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Writes {@link EngineElectric} field by field, nulls included, in declaration order.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class EngineElectricSerializer extends StdSerializer<EngineElectric> {
+    public EngineElectricSerializer() {
+        super(EngineElectric.class);
+    }
+
+    @Override
+    public void serialize(EngineElectric value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName("name");
+        if (value.name == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.name);
+        }
+        gen.writeFieldName("uuid");
+        if (value.uuid == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.uuid.toString());
+        }
+        gen.writeFieldName("batteryCapacity");
+        if (value.batteryCapacity == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.batteryCapacity.longValue());
+        }
+        gen.writeFieldName("rangeMiles");
+        if (value.rangeMiles == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.rangeMiles.longValue());
+        }
+        gen.writeFieldName("chargingTypes");
+        if (value.chargingTypes == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (String element : value.chargingTypes) {
+                if (element == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(element);
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeFieldName("carUuids");
+        if (value.carUuids == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (UUID element : value.carUuids) {
+                if (element == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(element.toString());
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
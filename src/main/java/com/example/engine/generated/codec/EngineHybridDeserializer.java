@@ -0,0 +1,84 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.ValuePool;
+import com.example.engine.generated.engines.EngineHybrid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Reads {@link EngineHybrid} field by field from the token stream.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class EngineHybridDeserializer extends StdDeserializer<EngineHybrid> {
+    public EngineHybridDeserializer() {
+        super(EngineHybrid.class);
+    }
+
+    @Override
+    public EngineHybrid deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (EngineHybrid) ctxt.handleUnexpectedToken(EngineHybrid.class, p);
+        }
+        EngineHybrid value = new EngineHybrid();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String property = p.currentName();
+            boolean isNull = p.nextToken() == JsonToken.VALUE_NULL;
+            switch (property) {
+                case "name" -> value.name = isNull ? null : readString(p, ctxt);
+                case "uuid" -> value.uuid = isNull ? null : readUuid(p, ctxt);
+                case "horsepower" -> value.horsepower = isNull ? null : readLong(p, ctxt);
+                case "batteryCapacity" -> value.batteryCapacity = isNull ? null : readLong(p, ctxt);
+                case "fuelEfficiency" -> value.fuelEfficiency = isNull ? null : readDecimal(p, ctxt);
+                case "carUuids" -> value.carUuids = isNull ? null : readUuidSet(p, ctxt);
+                default -> ctxt.handleUnknownProperty(p, this, EngineHybrid.class, property);
+            }
+        }
+        return value;
+    }
+
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class);
+    }
+
+    private static UUID readUuid(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() == 36) {
+            String text = p.getText();
+            try {
+                return UUID.fromString(text);
+            } catch (IllegalArgumentException e) {
+                throw ctxt.weirdStringException(text, UUID.class, e.getMessage());
+            }
+        }
+        return ctxt.readValue(p, UUID.class);
+    }
+
+    private static Long readLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NUMBER_INT ? p.getLongValue() : ctxt.readValue(p, Long.class);
+    }
+
+    private static BigDecimal readDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken().isNumeric() ? p.getDecimalValue() : ctxt.readValue(p, BigDecimal.class);
+    }
+
+    private static Set<UUID> readUuidSet(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, ctxt.getTypeFactory().constructCollectionType(Set.class, UUID.class));
+        }
+        Set<UUID> values = new LinkedHashSet<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            values.add(p.currentToken() == JsonToken.VALUE_NULL ? null : ValuePool.CATALOG.uuid(readUuid(p, ctxt)));
+        }
+        return values;
+    }
+}
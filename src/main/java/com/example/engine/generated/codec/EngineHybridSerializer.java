@@ -0,0 +1,69 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.generated.engines.EngineHybrid;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Writes {@link EngineHybrid} field by field, nulls included, in declaration order.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class EngineHybridSerializer extends StdSerializer<EngineHybrid> {
+    public EngineHybridSerializer() {
+        super(EngineHybrid.class);
+    }
+
+    @Override
+    public void serialize(EngineHybrid value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName("name");
+        if (value.name == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.name);
+        }
+        gen.writeFieldName("uuid");
+        if (value.uuid == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.uuid.toString());
+        }
+        gen.writeFieldName("horsepower");
+        if (value.horsepower == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.horsepower.longValue());
+        }
+        gen.writeFieldName("batteryCapacity");
+        if (value.batteryCapacity == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.batteryCapacity.longValue());
+        }
+        gen.writeFieldName("fuelEfficiency");
+        if (value.fuelEfficiency == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.fuelEfficiency);
+        }
+        gen.writeFieldName("carUuids");
+        if (value.carUuids == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (UUID element : value.carUuids) {
+                if (element == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(element.toString());
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.generated.engines.EngineElectric;
+import com.example.engine.generated.engines.EngineGas;
+import com.example.engine.generated.engines.EngineHybrid;
+import com.example.engine.generated.cars.CarSedan;
+import com.example.engine.generated.cars.CarSuv;
+import java.util.LinkedHashSet;
+import javax.annotation.processing.Generated;
+
+/**
+ * Copies models field by field. Scalar values are immutable and shared; collections are copied, so
+ * nothing done to a copy is visible through the original.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class ModelCopies {
+    private ModelCopies() {
+    }
+
+    /**
+     * Copies any generated model; other values are not supported.
+     */
+    public static Object copy(Object model) {
+        return switch (model) {
+            case EngineElectric value -> copy(value);
+            case EngineGas value -> copy(value);
+            case EngineHybrid value -> copy(value);
+            case CarSedan value -> copy(value);
+            case CarSuv value -> copy(value);
+            default -> throw new IllegalArgumentException("Not a generated model: " + model.getClass().getName());
+        };
+    }
+
+    public static EngineElectric copy(EngineElectric value) {
+        EngineElectric copy = new EngineElectric();
+        copy.name = value.name;
+        copy.uuid = value.uuid;
+        copy.batteryCapacity = value.batteryCapacity;
+        copy.rangeMiles = value.rangeMiles;
+        copy.chargingTypes = value.chargingTypes == null ? null : new LinkedHashSet<>(value.chargingTypes);
+        copy.carUuids = value.carUuids == null ? null : new LinkedHashSet<>(value.carUuids);
+        return copy;
+    }
+
+    public static EngineGas copy(EngineGas value) {
+        EngineGas copy = new EngineGas();
+        copy.name = value.name;
+        copy.uuid = value.uuid;
+        copy.horsepower = value.horsepower;
+        copy.fuelEfficiency = value.fuelEfficiency;
+        copy.fuelTypes = value.fuelTypes == null ? null : new LinkedHashSet<>(value.fuelTypes);
+        copy.carUuids = value.carUuids == null ? null : new LinkedHashSet<>(value.carUuids);
+        return copy;
+    }
+
+    public static EngineHybrid copy(EngineHybrid value) {
+        EngineHybrid copy = new EngineHybrid();
+        copy.name = value.name;
+        copy.uuid = value.uuid;
+        copy.horsepower = value.horsepower;
+        copy.batteryCapacity = value.batteryCapacity;
+        copy.fuelEfficiency = value.fuelEfficiency;
+        copy.carUuids = value.carUuids == null ? null : new LinkedHashSet<>(value.carUuids);
+        return copy;
+    }
+
+    public static CarSedan copy(CarSedan value) {
+        CarSedan copy = new CarSedan();
+        copy.name = value.name;
+        copy.uuid = value.uuid;
+        copy.model = value.model;
+        copy.maxSpeed = value.maxSpeed;
+        copy.features = value.features == null ? null : new LinkedHashSet<>(value.features);
+        copy.engineUuids = value.engineUuids == null ? null : new LinkedHashSet<>(value.engineUuids);
+        return copy;
+    }
+
+    public static CarSuv copy(CarSuv value) {
+        CarSuv copy = new CarSuv();
+        copy.name = value.name;
+        copy.uuid = value.uuid;
+        copy.model = value.model;
+        copy.maxSpeed = value.maxSpeed;
+        copy.features = value.features == null ? null : new LinkedHashSet<>(value.features);
+        copy.engineUuids = value.engineUuids == null ? null : new LinkedHashSet<>(value.engineUuids);
+        return copy;
+    }
+}
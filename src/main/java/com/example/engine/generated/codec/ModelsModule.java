@@ -0,0 +1,29 @@
+package com.example.engine.generated.codec;
+
+import com.example.engine.generated.engines.EngineElectric;
+import com.example.engine.generated.engines.EngineGas;
+import com.example.engine.generated.engines.EngineHybrid;
+import com.example.engine.generated.cars.CarSedan;
+import com.example.engine.generated.cars.CarSuv;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import javax.annotation.processing.Generated;
+
+/**
+ * Registers the generated deserializer and serializer of every model.
+ */
+@Generated("com.example.ModelCodecGenerator")
+public final class ModelsModule extends SimpleModule {
+    public ModelsModule() {
+        super("ModelsModule");
+        addDeserializer(EngineElectric.class, new EngineElectricDeserializer());
+        addSerializer(EngineElectric.class, new EngineElectricSerializer());
+        addDeserializer(EngineGas.class, new EngineGasDeserializer());
+        addSerializer(EngineGas.class, new EngineGasSerializer());
+        addDeserializer(EngineHybrid.class, new EngineHybridDeserializer());
+        addSerializer(EngineHybrid.class, new EngineHybridSerializer());
+        addDeserializer(CarSedan.class, new CarSedanDeserializer());
+        addSerializer(CarSedan.class, new CarSedanSerializer());
+        addDeserializer(CarSuv.class, new CarSuvDeserializer());
+        addSerializer(CarSuv.class, new CarSuvSerializer());
+    }
+}
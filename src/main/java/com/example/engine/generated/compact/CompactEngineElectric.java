@@ -0,0 +1,218 @@
+package com.example.engine.generated.compact;
+
+import com.example.engine.CompactReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Compact, immutable model of one {@code engine-electric} instance.
+ */
+@Generated("com.example.CompactModelGenerator")
+public final class CompactEngineElectric {
+    public static final String SCHEMA_TYPE = "engine-electric";
+
+    // Bit i of present is set when the instance has property i
+    private static final int HAS_NAME = 1 << 0;
+    private static final int HAS_UUID = 1 << 1;
+    private static final int HAS_BATTERY_CAPACITY = 1 << 2;
+    private static final int HAS_RANGE_MILES = 1 << 3;
+    private static final int HAS_CHARGING_TYPES = 1 << 4;
+    private static final int HAS_CAR_UUIDS = 1 << 5;
+    private static final int REQUIRED = HAS_NAME | HAS_UUID | HAS_BATTERY_CAPACITY | HAS_CAR_UUIDS;
+    private static final String[] PROPERTIES = {"name", "uuid", "batteryCapacity", "rangeMiles", "chargingTypes", "carUuids"};
+
+    private final String name;
+    private final long uuidMsb;
+    private final long uuidLsb;
+    private final long batteryCapacity;
+    private final long rangeMiles;
+    private final String[] chargingTypes;
+    // Most and least significant bits of each UUID in turn
+    private final long[] carUuids;
+    private final int present;
+
+    private CompactEngineElectric(String name, long uuidMsb, long uuidLsb, long batteryCapacity, long rangeMiles, String[] chargingTypes, long[] carUuids, int present) {
+        this.name = name;
+        this.uuidMsb = uuidMsb;
+        this.uuidLsb = uuidLsb;
+        this.batteryCapacity = batteryCapacity;
+        this.rangeMiles = rangeMiles;
+        this.chargingTypes = chargingTypes;
+        this.carUuids = carUuids;
+        this.present = present;
+    }
+
+    public static CompactEngineElectric read(byte[] json) throws IOException {
+        try (JsonParser parser = CompactReader.parser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads one instance, starting at its {@code START_OBJECT} token or before it. Unknown properties are
+     * skipped, and a null value counts as absent.
+     */
+    public static CompactEngineElectric read(JsonParser parser) throws IOException {
+        CompactReader.startObject(parser, SCHEMA_TYPE);
+        String name = null;
+        long uuidMsb = 0;
+        long uuidLsb = 0;
+        long batteryCapacity = 0;
+        long rangeMiles = 0;
+        String[] chargingTypes = CompactReader.noStrings();
+        long[] carUuids = CompactReader.noUuids();
+        int present = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String property = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (property) {
+                case "name" -> {
+                    name = CompactReader.string(parser, "name");
+                    present |= HAS_NAME;
+                }
+                case "uuid" -> {
+                    long[] bits = CompactReader.uuid(parser, "uuid");
+                    uuidMsb = bits[0];
+                    uuidLsb = bits[1];
+                    present |= HAS_UUID;
+                }
+                case "batteryCapacity" -> {
+                    batteryCapacity = CompactReader.integer(parser, "batteryCapacity");
+                    present |= HAS_BATTERY_CAPACITY;
+                }
+                case "rangeMiles" -> {
+                    rangeMiles = CompactReader.integer(parser, "rangeMiles");
+                    present |= HAS_RANGE_MILES;
+                }
+                case "chargingTypes" -> {
+                    chargingTypes = CompactReader.strings(parser, "chargingTypes");
+                    present |= HAS_CHARGING_TYPES;
+                }
+                case "carUuids" -> {
+                    carUuids = CompactReader.uuids(parser, "carUuids");
+                    present |= HAS_CAR_UUIDS;
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        CompactReader.checkRequired(parser, SCHEMA_TYPE, present, REQUIRED, PROPERTIES);
+        return new CompactEngineElectric(name, uuidMsb, uuidLsb, batteryCapacity, rangeMiles, chargingTypes, carUuids, present);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public UUID uuid() {
+        return (present & HAS_UUID) != 0 ? new UUID(uuidMsb, uuidLsb) : null;
+    }
+
+    public long batteryCapacity() {
+        return batteryCapacity;
+    }
+
+    public boolean hasRangeMiles() {
+        return (present & HAS_RANGE_MILES) != 0;
+    }
+
+    public long rangeMiles() {
+        if ((present & HAS_RANGE_MILES) == 0) {
+            throw new NoSuchElementException("rangeMiles is not set");
+        }
+        return rangeMiles;
+    }
+
+    public boolean hasChargingTypes() {
+        return (present & HAS_CHARGING_TYPES) != 0;
+    }
+
+    public List<String> chargingTypes() {
+        return List.of(chargingTypes);
+    }
+
+    public int carUuidsCount() {
+        return carUuids.length / 2;
+    }
+
+    public UUID carUuids(int index) {
+        Objects.checkIndex(index, carUuids.length / 2);
+        return new UUID(carUuids[2 * index], carUuids[2 * index + 1]);
+    }
+
+    /**
+     * Materializes the UUIDs; prefer {@link #carUuids(int)} to avoid the allocations.
+     */
+    public List<UUID> carUuids() {
+        List<UUID> uuids = new ArrayList<>(carUuids.length / 2);
+        for (int i = 0; i < carUuids.length; i += 2) {
+            uuids.add(new UUID(carUuids[i], carUuids[i + 1]));
+        }
+        return uuids;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CompactEngineElectric[");
+        if ((present & HAS_NAME) != 0) {
+            sb.append("name=").append(name()).append(',');
+        }
+        if ((present & HAS_UUID) != 0) {
+            sb.append("uuid=").append(uuid()).append(',');
+        }
+        if ((present & HAS_BATTERY_CAPACITY) != 0) {
+            sb.append("batteryCapacity=").append(batteryCapacity()).append(',');
+        }
+        if ((present & HAS_RANGE_MILES) != 0) {
+            sb.append("rangeMiles=").append(rangeMiles()).append(',');
+        }
+        if ((present & HAS_CHARGING_TYPES) != 0) {
+            sb.append("chargingTypes=").append(chargingTypes()).append(',');
+        }
+        if ((present & HAS_CAR_UUIDS) != 0) {
+            sb.append("carUuids=").append(carUuids()).append(',');
+        }
+        if (sb.charAt(sb.length() - 1) == ',') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof CompactEngineElectric other)) {
+            return false;
+        }
+        return present == other.present
+                && Objects.equals(name, other.name)
+                && uuidMsb == other.uuidMsb && uuidLsb == other.uuidLsb
+                && batteryCapacity == other.batteryCapacity
+                && rangeMiles == other.rangeMiles
+                && Arrays.equals(chargingTypes, other.chargingTypes)
+                && Arrays.equals(carUuids, other.carUuids);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Integer.hashCode(present);
+        result = 31 * result + Objects.hashCode(name);
+        result = 31 * result + Long.hashCode(uuidMsb ^ uuidLsb);
+        result = 31 * result + Long.hashCode(batteryCapacity);
+        result = 31 * result + Long.hashCode(rangeMiles);
+        result = 31 * result + Arrays.hashCode(chargingTypes);
+        result = 31 * result + Arrays.hashCode(carUuids);
+        return result;
+    }
+}
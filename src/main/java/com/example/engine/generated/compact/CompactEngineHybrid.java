@@ -0,0 +1,214 @@
+package com.example.engine.generated.compact;
+
+import com.example.engine.CompactReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import javax.annotation.processing.Generated;
+
+/**
+ * Compact, immutable model of one {@code engine-hybrid} instance.
+ */
+@Generated("com.example.CompactModelGenerator")
+public final class CompactEngineHybrid {
+    public static final String SCHEMA_TYPE = "engine-hybrid";
+
+    // Bit i of present is set when the instance has property i
+    private static final int HAS_NAME = 1 << 0;
+    private static final int HAS_UUID = 1 << 1;
+    private static final int HAS_HORSEPOWER = 1 << 2;
+    private static final int HAS_BATTERY_CAPACITY = 1 << 3;
+    private static final int HAS_FUEL_EFFICIENCY = 1 << 4;
+    private static final int HAS_CAR_UUIDS = 1 << 5;
+    private static final int REQUIRED = HAS_NAME | HAS_UUID | HAS_HORSEPOWER | HAS_BATTERY_CAPACITY | HAS_CAR_UUIDS;
+    private static final String[] PROPERTIES = {"name", "uuid", "horsepower", "batteryCapacity", "fuelEfficiency", "carUuids"};
+
+    private final String name;
+    private final long uuidMsb;
+    private final long uuidLsb;
+    private final long horsepower;
+    private final long batteryCapacity;
+    private final double fuelEfficiency;
+    // Most and least significant bits of each UUID in turn
+    private final long[] carUuids;
+    private final int present;
+
+    private CompactEngineHybrid(String name, long uuidMsb, long uuidLsb, long horsepower, long batteryCapacity, double fuelEfficiency, long[] carUuids, int present) {
+        this.name = name;
+        this.uuidMsb = uuidMsb;
+        this.uuidLsb = uuidLsb;
+        this.horsepower = horsepower;
+        this.batteryCapacity = batteryCapacity;
+        this.fuelEfficiency = fuelEfficiency;
+        this.carUuids = carUuids;
+        this.present = present;
+    }
+
+    public static CompactEngineHybrid read(byte[] json) throws IOException {
+        try (JsonParser parser = CompactReader.parser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads one instance, starting at its {@code START_OBJECT} token or before it. Unknown properties are
+     * skipped, and a null value counts as absent.
+     */
+    public static CompactEngineHybrid read(JsonParser parser) throws IOException {
+        CompactReader.startObject(parser, SCHEMA_TYPE);
+        String name = null;
+        long uuidMsb = 0;
+        long uuidLsb = 0;
+        long horsepower = 0;
+        long batteryCapacity = 0;
+        double fuelEfficiency = 0;
+        long[] carUuids = CompactReader.noUuids();
+        int present = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String property = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (property) {
+                case "name" -> {
+                    name = CompactReader.string(parser, "name");
+                    present |= HAS_NAME;
+                }
+                case "uuid" -> {
+                    long[] bits = CompactReader.uuid(parser, "uuid");
+                    uuidMsb = bits[0];
+                    uuidLsb = bits[1];
+                    present |= HAS_UUID;
+                }
+                case "horsepower" -> {
+                    horsepower = CompactReader.integer(parser, "horsepower");
+                    present |= HAS_HORSEPOWER;
+                }
+                case "batteryCapacity" -> {
+                    batteryCapacity = CompactReader.integer(parser, "batteryCapacity");
+                    present |= HAS_BATTERY_CAPACITY;
+                }
+                case "fuelEfficiency" -> {
+                    fuelEfficiency = CompactReader.number(parser, "fuelEfficiency");
+                    present |= HAS_FUEL_EFFICIENCY;
+                }
+                case "carUuids" -> {
+                    carUuids = CompactReader.uuids(parser, "carUuids");
+                    present |= HAS_CAR_UUIDS;
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        CompactReader.checkRequired(parser, SCHEMA_TYPE, present, REQUIRED, PROPERTIES);
+        return new CompactEngineHybrid(name, uuidMsb, uuidLsb, horsepower, batteryCapacity, fuelEfficiency, carUuids, present);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public UUID uuid() {
+        return (present & HAS_UUID) != 0 ? new UUID(uuidMsb, uuidLsb) : null;
+    }
+
+    public long horsepower() {
+        return horsepower;
+    }
+
+    public long batteryCapacity() {
+        return batteryCapacity;
+    }
+
+    public boolean hasFuelEfficiency() {
+        return (present & HAS_FUEL_EFFICIENCY) != 0;
+    }
+
+    public double fuelEfficiency() {
+        if ((present & HAS_FUEL_EFFICIENCY) == 0) {
+            throw new NoSuchElementException("fuelEfficiency is not set");
+        }
+        return fuelEfficiency;
+    }
+
+    public int carUuidsCount() {
+        return carUuids.length / 2;
+    }
+
+    public UUID carUuids(int index) {
+        Objects.checkIndex(index, carUuids.length / 2);
+        return new UUID(carUuids[2 * index], carUuids[2 * index + 1]);
+    }
+
+    /**
+     * Materializes the UUIDs; prefer {@link #carUuids(int)} to avoid the allocations.
+     */
+    public List<UUID> carUuids() {
+        List<UUID> uuids = new ArrayList<>(carUuids.length / 2);
+        for (int i = 0; i < carUuids.length; i += 2) {
+            uuids.add(new UUID(carUuids[i], carUuids[i + 1]));
+        }
+        return uuids;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CompactEngineHybrid[");
+        if ((present & HAS_NAME) != 0) {
+            sb.append("name=").append(name()).append(',');
+        }
+        if ((present & HAS_UUID) != 0) {
+            sb.append("uuid=").append(uuid()).append(',');
+        }
+        if ((present & HAS_HORSEPOWER) != 0) {
+            sb.append("horsepower=").append(horsepower()).append(',');
+        }
+        if ((present & HAS_BATTERY_CAPACITY) != 0) {
+            sb.append("batteryCapacity=").append(batteryCapacity()).append(',');
+        }
+        if ((present & HAS_FUEL_EFFICIENCY) != 0) {
+            sb.append("fuelEfficiency=").append(fuelEfficiency()).append(',');
+        }
+        if ((present & HAS_CAR_UUIDS) != 0) {
+            sb.append("carUuids=").append(carUuids()).append(',');
+        }
+        if (sb.charAt(sb.length() - 1) == ',') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof CompactEngineHybrid other)) {
+            return false;
+        }
+        return present == other.present
+                && Objects.equals(name, other.name)
+                && uuidMsb == other.uuidMsb && uuidLsb == other.uuidLsb
+                && horsepower == other.horsepower
+                && batteryCapacity == other.batteryCapacity
+                && Double.compare(fuelEfficiency, other.fuelEfficiency) == 0
+                && Arrays.equals(carUuids, other.carUuids);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Integer.hashCode(present);
+        result = 31 * result + Objects.hashCode(name);
+        result = 31 * result + Long.hashCode(uuidMsb ^ uuidLsb);
+        result = 31 * result + Long.hashCode(horsepower);
+        result = 31 * result + Long.hashCode(batteryCapacity);
+        result = 31 * result + Double.hashCode(fuelEfficiency);
+        result = 31 * result + Arrays.hashCode(carUuids);
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.engine.generated.compact;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.Map;
+import javax.annotation.processing.Generated;
+
+/**
+ * The compact models and their schema types.
+ */
+@Generated("com.example.CompactModelGenerator")
+public final class CompactModels {
+    public static final Map<Class<?>, String> SCHEMA_TYPES = Map.ofEntries(
+            Map.entry(CompactEngineElectric.class, CompactEngineElectric.SCHEMA_TYPE),
+            Map.entry(CompactEngineGas.class, CompactEngineGas.SCHEMA_TYPE),
+            Map.entry(CompactEngineHybrid.class, CompactEngineHybrid.SCHEMA_TYPE));
+
+    private CompactModels() {
+    }
+
+    public static Object read(Class<?> modelClass, JsonParser parser) throws IOException {
+        if (modelClass == CompactEngineElectric.class) {
+            return CompactEngineElectric.read(parser);
+        }
+        if (modelClass == CompactEngineGas.class) {
+            return CompactEngineGas.read(parser);
+        }
+        if (modelClass == CompactEngineHybrid.class) {
+            return CompactEngineHybrid.read(parser);
+        }
+        throw new IllegalArgumentException("Not a compact model: " + modelClass.getName());
+    }
+}
@@ -1,6 +1,27 @@
 
 package com.example;
 
+import com.example.engine.BinaryCatalog;
+import com.example.engine.CarEngineGraph;
+import com.example.engine.CatalogLoader;
+import com.example.engine.CatalogWatcher;
+import com.example.engine.EngineCatalog;
+import com.example.engine.EngineService;
+import com.example.engine.EngineValidation;
+import com.example.engine.InstanceCache;
+import com.example.engine.PackedTable;
+import com.example.engine.SchemaRegistry;
+import com.example.engine.ValidationDaemon;
+import com.example.engine.ValuePool;
+import com.example.engine.SchemaTypeMapping;
+import com.example.engine.TemporalIndex;
+import com.example.engine.ValidationProfile;
+import com.example.engine.UuidIndex;
+import com.example.engine.generated.codec.ModelsModule;
+import com.example.engine.generated.compact.CompactEngineGas;
+import com.example.engine.generated.compact.CompactEngineHybrid;
+import com.example.engine.generated.engines.EngineGas;
+import com.example.engine.generated.engines.EngineHybrid;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
@@ -8,22 +29,48 @@ import com.networknt.schema.ValidationMessage;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -225,5 +272,712 @@ public class AppTest {
         }
     }
 
+    @Test
+    public void testBoundedInstanceCacheEvictsAndCountsHits() {
+        InstanceCache<String, String> cache = InstanceCache.bounded(2);
+        cache.get("a", uuid -> "A");
+        cache.get("b", uuid -> "B");
+        assertEquals("A", cache.get("a", uuid -> "reloaded"));
+        cache.get("c", uuid -> "C");
+        assertEquals("reloaded", cache.get("b", uuid -> "reloaded"));
+
+        InstanceCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    public void testUuidIndexAssignsDenseIdsAcrossGrowth() {
+        UuidIndex index = new UuidIndex(4);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, index.add(new UUID(i * 31L, ~i)));
+        }
+        assertEquals(5000, index.size());
+        assertEquals(1234, index.add(new UUID(1234 * 31L, ~1234)));
+        assertEquals(4999, index.get(new UUID(4999 * 31L, ~4999)));
+        assertEquals(new UUID(77 * 31L, ~77), index.uuid(77));
+        assertEquals(-1, index.get(new UUID(1, 1)));
+
+        // Adding to a copy leaves the original as it was
+        UuidIndex copy = index.copy();
+        assertEquals(5000, copy.add(new UUID(1, 1)));
+        assertEquals(-1, index.get(new UUID(1, 1)));
+        assertEquals(5000, index.size());
+
+        String uuid = "123e4567-e89b-12d3-a456-426614174000";
+        assertEquals(UUID.fromString(uuid), UuidIndex.parse(uuid));
+        assertNull(UuidIndex.parse(null));
+        assertNull(UuidIndex.parse("123e4567-e89b-12d3-a456"));
+        assertNull(UuidIndex.parse("123e4567-e89b-12d3-a456-42661417400z"));
+        assertEquals(-1, index.get("not-a-uuid"));
+    }
+
+    @Test
+    public void testBinaryCatalogRoundTrip() throws IOException {
+        Path file = Files.createTempDirectory("catalog").resolve("engines.catalog");
+        UUID gas = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        UUID electric = UUID.fromString("f87fcdeb-12d3-4e5a-b678-426614174001");
+        UUID car = UUID.fromString("abcdef12-3456-7890-abcd-ef1234567890");
+        BinaryCatalog.write(file, List.of(
+                new BinaryCatalog.Entry(gas, "engine-gas", "{\"horsepower\":300}".getBytes(), new UUID[]{car}),
+                new BinaryCatalog.Entry(electric, "engine-electric", "{}".getBytes(), new UUID[0])));
+
+        BinaryCatalog catalog = BinaryCatalog.open(file);
+        assertEquals(2, catalog.size());
+        // Sorted like UUID.compareTo, so the negative most significant bits come first
+        assertEquals(electric, catalog.uuid(0));
+        int position = catalog.find(gas);
+        assertEquals("engine-gas", catalog.schemaType(position));
+        assertEquals("{\"horsepower\":300}", catalog.document(position));
+        assertEquals(List.of(car), List.of(catalog.carUuids(position)));
+        assertEquals(0, catalog.carUuids(catalog.find(electric)).length);
+        assertEquals(-1, catalog.find(car));
+
+        try {
+            BinaryCatalog.write(file, List.of(new BinaryCatalog.Entry(gas, "engine-gas", "{}".getBytes(), new UUID[0]),
+                    new BinaryCatalog.Entry(gas, "engine-gas", "{}".getBytes(), new UUID[0])));
+            fail("Duplicate UUIDs were written");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(2, BinaryCatalog.open(file).size());
+        }
+    }
+
+    @Test
+    public void testCatalogLoadsAreDeterministicAndTimed() {
+        Path relationshipsFile = Paths.get("src/main/resources/generated/relationships.json");
+        CatalogLoader.Result first = CatalogLoader.loadFromDirectory(Paths.get(INSTANCES_DIR), relationshipsFile);
+        CatalogLoader.Result second = CatalogLoader.loadFromDirectory(Paths.get(INSTANCES_DIR), relationshipsFile);
+        EngineCatalog catalog = first.catalog();
+        assertEquals(3, catalog.engineCount());
+        assertEquals(2, catalog.carCount());
+        assertEquals(first.sources(), second.sources());
+        // Documents are parsed in parallel, but ids follow the sorted file order on every load
+        for (int engineId = 0; engineId < catalog.engineCount(); engineId++) {
+            assertEquals(catalog.engineUuid(engineId), second.catalog().engineUuid(engineId));
+            assertEquals(catalog.carCountForEngine(engineId), second.catalog().carCountForEngine(engineId));
+        }
+        for (int carId = 0; carId < catalog.carCount(); carId++) {
+            assertEquals(catalog.carUuid(carId), second.catalog().carUuid(carId));
+        }
+
+        CatalogLoader.PhaseTimings timings = first.timings();
+        for (long phase : new long[]{timings.scanNanos(), timings.readNanos(), timings.parseNanos(),
+                timings.indexNanos(), timings.relationshipsNanos()}) {
+            assertTrue(phase >= 0);
+        }
+        assertEquals(timings.scanNanos() + timings.readNanos() + timings.parseNanos() + timings.indexNanos()
+                + timings.relationshipsNanos(), timings.totalNanos());
+    }
+
+    @Test
+    public void testTemporalIndexIntervalsAreHalfOpen() {
+        UuidIndex cars = new UuidIndex();
+        int carId = cars.add("abcdef12-3456-7890-abcd-ef1234567890");
+        int otherCarId = cars.add("789abcde-f123-4567-89ab-cdef12345678");
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        TemporalIndex index = TemporalIndex.build(cars, Map.of(
+                "abcdef12-3456-7890-abcd-ef1234567890", List.of(
+                        new TemporalIndex.Interval(second, 1000, 2000),
+                        new TemporalIndex.Interval(third, 2000, Long.MAX_VALUE),
+                        new TemporalIndex.Interval(first, 500, 1500)),
+                "00000000-0000-4000-8000-000000000000", List.of(new TemporalIndex.Interval(first, 0, 10))));
+
+        assertEquals(List.of(), engineLsbsValidAt(index, carId, 499));
+        assertEquals(List.of(1L), engineLsbsValidAt(index, carId, 999));
+        assertEquals(List.of(1L, 2L), engineLsbsValidAt(index, carId, 1000));
+        assertEquals(List.of(2L), engineLsbsValidAt(index, carId, 1999));
+        // validTo is exclusive, and an open-ended interval stays valid
+        assertEquals(List.of(3L), engineLsbsValidAt(index, carId, 2000));
+        assertEquals(List.of(3L), engineLsbsValidAt(index, carId, Long.MAX_VALUE - 1));
+
+        List<Long> overlapping = new ArrayList<>();
+        index.forEachOverlapping(carId, 1500, 2000, (msb, lsb, from, to) -> overlapping.add(lsb));
+        assertEquals(List.of(2L), overlapping);
+        assertFalse(index.hasIntervals(otherCarId));
+        assertEquals(List.of(), engineLsbsValidAt(index, otherCarId, 5));
+    }
+
+    private static List<Long> engineLsbsValidAt(TemporalIndex index, int carId, long at) {
+        List<Long> engines = new ArrayList<>();
+        index.forEachValidAt(carId, at, (msb, lsb, from, to) -> engines.add(lsb));
+        return engines;
+    }
+
+    @Test
+    public void testCarEngineGraphPagesAndCounts() {
+        // Engine 0 lists every car, and engines span several pages
+        int[][] rows = new int[3000][];
+        rows[0] = IntStream.range(0, 2500).map(car -> 2499 - car).toArray();
+        for (int engineId = 1; engineId < rows.length; engineId++) {
+            rows[engineId] = engineId % 3 == 0 ? null : new int[]{engineId % 2500, engineId % 2500};
+        }
+        CarEngineGraph graph = CarEngineGraph.build(3000, 2500, engineId -> rows[engineId]);
+
+        assertEquals(2500, graph.carCount(0));
+        assertArrayEquals(new int[]{100, 101, 102}, graph.carIds(0, 100, 3));
+        assertArrayEquals(new int[]{2498, 2499}, graph.carIds(0, 2498, 10));
+        assertEquals(0, graph.carIds(0, 2500, 10).length);
+        assertEquals(1, graph.carCount(2999));
+        assertEquals(0, graph.carCount(2997));
+        assertEquals(0, graph.carCount(3000));
+        assertArrayEquals(new int[]{0, 499, 2999}, graph.engineIds(499));
+        assertArrayEquals(new int[]{0, 2500}, graph.engineIds(0));
+
+        // Replacing rows leaves the original graph as it was
+        CarEngineGraph next = graph.withRows(3001, 2501, Map.of(499, new int[]{2500}, 3000, new int[]{499}));
+        assertArrayEquals(new int[]{0, 2999, 3000}, next.engineIds(499));
+        assertArrayEquals(new int[]{499}, next.engineIds(2500));
+        assertArrayEquals(new int[]{0, 499, 2999}, graph.engineIds(499));
+        assertEquals(2500, next.carCount(0));
+    }
+
+    @Test
+    public void testPackedTableRoundTrip() {
+        // Enough values to span several chunks, with every bit pattern a UUID half can have
+        long[] longs = new long[20_000];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = i % 3 == 0 ? -i : (long) i * 0x9E3779B97F4A7C15L;
+        }
+        List<String> longChunks = PackedTable.pack(longs, 16);
+        assertTrue(longChunks.size() > 1);
+        assertArrayEquals(longs, PackedTable.unpackLongs(longChunks.toArray(new String[0]), 16, longs.length));
+
+        int[] ints = {0, 1, 255, 65_535, Integer.MAX_VALUE, -1};
+        assertArrayEquals(ints, PackedTable.unpackInts(PackedTable.pack(ints, 8).toArray(new String[0]), 8, ints.length));
+        int[] small = {0, 7, 15};
+        assertEquals(List.of("00070f"), PackedTable.pack(small, 2));
+        assertArrayEquals(small, PackedTable.unpackInts(PackedTable.pack(small, 2).toArray(new String[0]), 2, small.length));
+        assertEquals(List.of(""), PackedTable.pack(new int[0], 4));
+        try {
+            PackedTable.pack(new int[]{256}, 2);
+            fail("A value wider than its digits was packed");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testAggregatorSplitsOversizedShards() throws Exception {
+        Path resourcesDir = Files.createTempDirectory("generator-resources");
+        // Equal halves give every UUID the same hash code, so all land in one bucket of the type
+        for (int i = 0; i < 2100; i++) {
+            String uuid = new UUID(i, i).toString();
+            writeResource(resourcesDir, "instances/engines/engine-gas-" + i + ".json",
+                    "{\"name\": \"gas-" + i + "\", \"uuid\": \"" + uuid + "\", \"horsepower\": " + i + "}");
+        }
+        Path targetDir = Files.createTempDirectory("generator-target");
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+
+        // One bucket past the most a shard may hold (2048) is split into two shards
+        Map<String, Long> casesByShard = new TreeMap<>();
+        try (Stream<Path> files = Files.list(targetDir)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith("AggregatorShard_")).toList()) {
+                casesByShard.put(file.getFileName().toString(),
+                        Files.readAllLines(file).stream().filter(line -> line.trim().startsWith("case ")).count());
+            }
+        }
+        assertEquals(2100L, casesByShard.values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(casesByShard.toString(), casesByShard.values().stream().allMatch(cases -> cases <= 2048));
+        assertEquals(2048L, casesByShard.get("AggregatorShard_engine_gas_0.java").longValue());
+        assertEquals(52L, casesByShard.get("AggregatorShard_engine_gas_0_1.java").longValue());
+    }
+
+    @Test
+    public void testIncrementalGenerationOnlyRewritesChanges() throws Exception {
+        Path resourcesDir = Files.createTempDirectory("generator-resources");
+        String gasA = "{\"name\": \"gas-a\", \"uuid\": \"123e4567-e89b-12d3-a456-426614174000\", \"horsepower\": 300}";
+        writeResource(resourcesDir, "instances/engines/engine-gas-a.json", gasA);
+        writeResource(resourcesDir, "instances/engines/engine-gas-b.json",
+                "{\"name\": \"gas-b\", \"uuid\": \"987fcdeb-12d3-4e5a-b678-426614174001\", \"horsepower\": 200}");
+        writeResource(resourcesDir, "instances/cars/car-suv-c.json",
+                "{\"name\": \"suv-c\", \"uuid\": \"789abcde-f123-4567-89ab-cdef12345678\", \"engineUuids\": [\"123e4567-e89b-12d3-a456-426614174000\"]}");
+        Path targetDir = Files.createTempDirectory("generator-target");
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+
+        // Mark every generated file, so any the rerun writes stands out
+        FileTime marked = FileTime.fromMillis(0);
+        List<Path> generated;
+        try (Stream<Path> files = Files.list(targetDir)) {
+            generated = files.filter(file -> file.toString().endsWith(".java")).toList();
+        }
+        for (Path file : generated) {
+            Files.setLastModifiedTime(file, marked);
+        }
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+        for (Path file : generated) {
+            assertEquals(file.toString(), marked, Files.getLastModifiedTime(file));
+        }
+
+        // An edit rewrites the instance's class, which builds its tree, and nothing else
+        writeResource(resourcesDir, "instances/engines/engine-gas-a.json", gasA.replace("300", "310"));
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+        Set<String> rewritten = new TreeSet<>();
+        for (Path file : generated) {
+            if (!Files.getLastModifiedTime(file).equals(marked)) {
+                rewritten.add(file.getFileName().toString());
+            }
+        }
+        assertEquals(Set.of("Instances_engines_engine_gas_a_json.java"), rewritten);
+        assertTrue(Files.readString(targetDir.resolve("Instances_engines_engine_gas_a_json.java")).contains("310"));
+
+        Files.delete(resourcesDir.resolve("instances/engines/engine-gas-b.json"));
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+        assertFalse(Files.exists(targetDir.resolve("Instances_engines_engine_gas_b_json.java")));
+        assertTrue(Files.exists(targetDir.resolve("Instances_engines_engine_gas_a_json.java")));
+    }
+
+    @Test
+    public void testGeneratedTreeMatchesTheParsedJson() throws Exception {
+        Path resourcesDir = Files.createTempDirectory("generator-resources");
+        String document = "{\"name\": \"gas \\\"a\\\" \\\\u0041 \u00e9\", \"uuid\": \"123e4567-e89b-12d3-a456-426614174000\","
+                + " \"horsepower\": -2147483648, \"fuelEfficiency\": 25.5, \"tolerance\": 1.0E-5, \"turbo\": false,"
+                + " \"notes\": null, \"fuelTypes\": [\"premium\", \"regular\"], \"ratings\": [{\"source\": \"lab\", \"score\": 4.5}]}";
+        writeResource(resourcesDir, "instances/engines/engine-gas-a.json", document);
+        Path targetDir = Files.createTempDirectory("generator-target");
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir);
+
+        Path classesDir = Files.createTempDirectory("generator-classes");
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classesDir.toString(),
+                "-cp", System.getProperty("java.class.path"), targetDir.resolve("Instances_engines_engine_gas_a_json.java").toString());
+        assertEquals(0, status);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()}, getClass().getClassLoader())) {
+            Method tree = loader.loadClass("com.example.generated.json.Instances_engines_engine_gas_a_json").getDeclaredMethod("tree");
+            tree.setAccessible(true);
+            assertEquals(mapper.readTree(document), tree.invoke(null));
+        }
+    }
+
+    @Test
+    public void testSnapshotReadsBackAsTheInstances() throws Exception {
+        Path resourcesDir = Files.createTempDirectory("generator-resources");
+        List<String> documents = List.of(
+                "{\"name\": \"suv-c\", \"uuid\": \"789abcde-f123-4567-89ab-cdef12345678\", \"features\": [\"awd\", \"tow-hitch\"]}",
+                "{\"name\": \"electric-b\", \"uuid\": \"987fcdeb-12d3-4e5a-b678-426614174001\", \"rangeMiles\": 300, \"chargingTypes\": [\"ccs\"]}",
+                "{\"name\": \"gas-a\", \"uuid\": \"123e4567-e89b-12d3-a456-426614174000\", \"fuelEfficiency\": 25.5, \"turbo\": true}");
+        // Written in path order, which is the order Aggregator ids are assigned in
+        writeResource(resourcesDir, "instances/cars/car-suv-c.json", documents.get(0));
+        writeResource(resourcesDir, "instances/engines/engine-electric-b.json", documents.get(1));
+        writeResource(resourcesDir, "instances/engines/engine-gas-a.json", documents.get(2));
+        Path targetDir = Files.createTempDirectory("generator-target");
+        Path snapshotDir = Files.createTempDirectory("generator-snapshot");
+        JsonToJavaGenerator.generate(generatorResources(resourcesDir), targetDir, true, snapshotDir);
+
+        JsonNode snapshot = new SmileMapper().readTree(Files.readAllBytes(snapshotDir.resolve(JsonToJavaGenerator.SNAPSHOT_RESOURCE)));
+        assertEquals(documents.size(), snapshot.size());
+        for (int id = 0; id < documents.size(); id++) {
+            assertEquals(mapper.readTree(documents.get(id)), snapshot.get(id));
+        }
+        // The instances are only in the snapshot, not embedded in their classes
+        assertFalse(Files.readString(targetDir.resolve("Instances_engines_engine_gas_a_json.java")).contains(" JSON = "));
+    }
+
+    private static void writeResource(Path resourcesDir, String path, String content) throws IOException {
+        Path file = resourcesDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    /**
+     * A class loader that sees only the resources under {@code resourcesDir}.
+     */
+    private static ClassLoader generatorResources(Path resourcesDir) throws IOException {
+        return new URLClassLoader(new URL[]{resourcesDir.toUri().toURL()}, null);
+    }
+
+    @Test
+    public void testCompiledSchemaMatchesNetworknt() throws IOException {
+        SchemaRegistry compiled = new SchemaRegistry(Paths.get(SCHEMAS_DIR), factory, true);
+        SchemaRegistry interpreted = new SchemaRegistry(Paths.get(SCHEMAS_DIR), factory, false);
+        String[] engines = {
+                "{\"name\": \"gas\", \"uuid\": \"123e4567-e89b-12d3-a456-426614174000\", \"horsepower\": 300, \"carUuids\": []}",
+                "{\"name\": 1, \"uuid\": \"not-a-uuid\", \"horsepower\": 50, \"fuelTypes\": [\"a\", \"a\"]}"
+        };
+        for (String engine : engines) {
+            JsonNode instance = mapper.readTree(engine);
+            assertEquals(new HashSet<>(interpreted.get("engines", "engine-gas").validate(instance)),
+                    new HashSet<>(compiled.get("engines", "engine-gas").validate(instance)));
+        }
+    }
+
+    @Test
+    public void testValidationDaemonOverLoopback() throws Exception {
+        try (ValidationDaemon daemon = ValidationDaemon.start(new File(SCHEMAS_DIR), new File(INSTANCES_DIR), 0)) {
+            HttpClient client = HttpClient.newHttpClient();
+            String engines = "[{\"name\": \"gas\", \"uuid\": \"00000000-0000-4000-8000-000000000001\", \"horsepower\": 300,"
+                    + " \"carUuids\": [\"789abcde-f123-4567-89ab-cdef12345678\"]},"
+                    + " {\"name\": \"gas\", \"uuid\": \"00000000-0000-4000-8000-000000000002\", \"horsepower\": 50, \"carUuids\": []}]";
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + daemon.port() + "/validate?type=engine-gas"))
+                    .POST(HttpRequest.BodyPublishers.ofString(engines))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+
+            JsonNode report = mapper.readTree(response.body());
+            assertFalse(report.get("valid").asBoolean());
+            assertEquals(0, report.get("instances").get(0).get("errors").size());
+            assertEquals(1, report.get("instances").get(1).get("errors").size());
+
+            // Once every instance is valid, links are checked against the indexed files as validate checks them
+            String engine = "{\"name\": \"gas\", \"uuid\": \"00000000-0000-4000-8000-000000000001\", \"horsepower\": 300,"
+                    + " \"carUuids\": [\"789abcde-f123-4567-89ab-cdef12345678\", \"00000000-0000-4000-8000-0000000000ff\"]}";
+            request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + daemon.port() + "/validate?type=engine-gas"))
+                    .POST(HttpRequest.BodyPublishers.ofString(engine))
+                    .build();
+            report = mapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            assertFalse(report.get("valid").asBoolean());
+            JsonNode instance = report.get("instances").get(0);
+            assertEquals("Dangling reference: instance 0 - engine 00000000-0000-4000-8000-000000000001 links car "
+                    + "00000000-0000-4000-8000-0000000000ff, which does not exist", instance.get("errors").get(0).asText());
+            assertEquals("Asymmetric link: instance 0 - engine 00000000-0000-4000-8000-000000000001 links car "
+                    + "789abcde-f123-4567-89ab-cdef12345678, but cars/car-suv-prod.json does not link it back",
+                    instance.get("warnings").get(0).asText());
+        }
+    }
+
+    @Test
+    public void testValidationDaemonSkipsUnreadableInstances() throws Exception {
+        Path root = copyValidCatalog("engine-daemon");
+        Files.writeString(root.resolve("instances").resolve("engines").resolve("engine-gas-broken.json"), "{\"name\": ");
+        try (ValidationDaemon daemon = ValidationDaemon.start(root.resolve("schemas").toFile(), root.resolve("instances").toFile(), 0)) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + daemon.port() + "/health")).build();
+            JsonNode health = mapper.readTree(HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).body());
+            assertEquals(5, health.get("instances").asInt());
+            assertEquals(1, health.get("skipped").size());
+            assertTrue(health.get("skipped").has("engines/engine-gas-broken.json"));
+        }
+    }
+
+    @Test
+    public void testCompactModelMatchesGeneratedModel() throws IOException {
+        byte[] json = Files.readAllBytes(Paths.get(INSTANCES_DIR, "engines", "engine-hybrid-test.json"));
+        EngineHybrid engine = mapper.readValue(json, EngineHybrid.class);
+        CompactEngineHybrid compact = CompactEngineHybrid.read(json);
+        assertEquals(engine.name, compact.name());
+        assertEquals(engine.uuid, compact.uuid());
+        assertEquals(engine.horsepower.longValue(), compact.horsepower());
+        assertEquals(engine.batteryCapacity.longValue(), compact.batteryCapacity());
+        assertEquals(engine.fuelEfficiency != null, compact.hasFuelEfficiency());
+        if (engine.fuelEfficiency != null) {
+            assertEquals(engine.fuelEfficiency.doubleValue(), compact.fuelEfficiency(), 0);
+        }
+        assertEquals(new ArrayList<>(engine.carUuids), compact.carUuids());
+        assertEquals(compact, CompactEngineHybrid.read(json));
+    }
+
+    @Test
+    public void testGeneratedCodecsMatchDatabind() throws IOException {
+        ObjectMapper codecMapper = new ObjectMapper().registerModule(new ModelsModule());
+        try (Stream<Path> paths = Files.list(Paths.get(INSTANCES_DIR, "engines"))) {
+            for (Path path : paths.filter(path -> path.toString().endsWith(".json")).toList()) {
+                byte[] json = Files.readAllBytes(path);
+                String schemaType = path.getFileName().toString().replaceFirst("-[^-]+\\.json$", "");
+                Class<?> engineClass = SchemaTypeMapping.CLASS_TO_SCHEMA_TYPE.entrySet().stream()
+                        .filter(entry -> entry.getValue().equals(schemaType) && entry.getKey().getPackageName().endsWith(".engines"))
+                        .map(Map.Entry::getKey)
+                        .findFirst().orElseThrow();
+                Object expected = mapper.readValue(json, engineClass);
+                Object actual = codecMapper.readValue(json, engineClass);
+                assertEquals(path.toString(), expected, actual);
+                // Databind fills sets as HashSets and the codecs in document order, so serialize the same instance
+                assertEquals(path.toString(), mapper.writeValueAsString(actual), codecMapper.writeValueAsString(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testValuePoolSharesRepeatedValues() throws IOException {
+        ObjectMapper codecMapper = new ObjectMapper().registerModule(new ModelsModule());
+        byte[] json = Files.readAllBytes(Paths.get(INSTANCES_DIR, "engines", "engine-gas-prod.json"));
+        EngineGas first = codecMapper.readValue(json, EngineGas.class);
+        EngineGas second = codecMapper.readValue(json, EngineGas.class);
+        assertTrue(first.carUuids.iterator().next() == second.carUuids.iterator().next());
+        assertTrue(first.fuelTypes.iterator().next() == second.fuelTypes.iterator().next());
+
+        JsonNode firstNode = ValuePool.CATALOG.values(mapper.readTree(json));
+        JsonNode secondNode = ValuePool.CATALOG.values(mapper.readTree(json));
+        assertTrue(firstNode.get("fuelTypes").get(0) == secondNode.get("fuelTypes").get(0));
+        assertFalse(firstNode.get("uuid") == secondNode.get("uuid"));
+        assertEquals(firstNode, mapper.readTree(json));
+    }
+
+    @Test
+    public void testLookupsDoNotShareMutableEngines() {
+        String carUuid = "789abcde-f123-4567-89ab-cdef12345678";
+        EngineGas first = EngineService.getEngineForCar(carUuid, EngineGas.class).orElseThrow();
+        first.carUuids.clear();
+        first.horsepower = -1L;
+        EngineGas second = EngineService.getEngineForCar(carUuid, EngineGas.class).orElseThrow();
+        assertFalse(first == second);
+        assertEquals(300L, second.horsepower.longValue());
+        assertEquals(2, second.carUuids.size());
+        // Compact models are immutable, so the cached instance itself is shared
+        assertTrue(EngineService.getEngineForCar(carUuid, CompactEngineGas.class).orElseThrow()
+                == EngineService.getEngineForCar(carUuid, CompactEngineGas.class).orElseThrow());
+    }
+
+    @Test
+    public void testBatchLookupsReturnEnginesPerClass() {
+        String sedanUuid = "abcdef12-3456-7890-abcd-ef1234567890";
+        String suvUuid = "789abcde-f123-4567-89ab-cdef12345678";
+        String unknownUuid = "00000000-0000-4000-8000-000000000000";
+        List<String> carUuids = List.of(suvUuid, unknownUuid, sedanUuid);
+
+        Map<String, EngineGas> gasEngines = EngineService.getEnginesForCars(carUuids, EngineGas.class);
+        assertEquals(List.of(suvUuid, sedanUuid), new ArrayList<>(gasEngines.keySet()));
+        assertEquals(300L, gasEngines.get(suvUuid).horsepower.longValue());
+
+        Map<Class<?>, Map<String, ?>> engines = EngineService.getEnginesForCars(carUuids,
+                List.of(EngineHybrid.class, CompactEngineGas.class));
+        assertEquals(List.of(EngineHybrid.class, CompactEngineGas.class), new ArrayList<>(engines.keySet()));
+        assertEquals(List.of(suvUuid, sedanUuid), new ArrayList<>(engines.get(EngineHybrid.class).keySet()));
+        assertTrue(engines.get(EngineHybrid.class).get(sedanUuid) instanceof EngineHybrid);
+        assertTrue(engines.get(CompactEngineGas.class).get(suvUuid) instanceof CompactEngineGas);
+        // A car with no engine of a class is absent from that class's map, which is still present
+        assertFalse(engines.get(CompactEngineGas.class).containsKey(unknownUuid));
+        Map<Class<?>, Map<String, ?>> none = EngineService.getEnginesForCars(List.of(unknownUuid), List.of(EngineGas.class));
+        assertTrue(none.get(EngineGas.class).isEmpty());
+    }
+
+    @Test
+    public void testWatchedCatalogServesEditedEngine() throws Exception {
+        Path root = Files.createTempDirectory("engine-watch");
+        Path instancesDir = root.resolve("instances");
+        try (Stream<Path> paths = Files.walk(Paths.get(INSTANCES_DIR))) {
+            for (Path path : paths.toList()) {
+                Files.copy(path, instancesDir.resolve(Paths.get(INSTANCES_DIR).relativize(path).toString()));
+            }
+        }
+        Path relationshipsFile = Files.createDirectories(root.resolve("generated")).resolve("relationships.json");
+        Files.copy(Paths.get("src/main/resources/generated/relationships.json"), relationshipsFile);
+
+        String carUuid = "789abcde-f123-4567-89ab-cdef12345678";
+        String engineUuid = "123e4567-e89b-12d3-a456-426614174000";
+        Path engineFile = instancesDir.resolve("engines").resolve("engine-gas-prod.json");
+        String original = Files.readString(engineFile);
+        try (CatalogWatcher watcher = EngineService.watch(instancesDir, relationshipsFile)) {
+            // Cache the current version before editing, so a stale cache entry would be served
+            assertEquals(300L, EngineService.getEngineForCar(carUuid, EngineGas.class).orElseThrow().horsepower.longValue());
+            assertEquals(2, EngineService.getCarCountForEngine(engineUuid));
+
+            Files.writeString(engineFile, original.replace("\"horsepower\": 300", "\"horsepower\": 310")
+                    .replace("\"carUuids\": [", "\"carUuids\": [\"00000000-0000-4000-8000-0000000000ca\", "));
+            assertTrue(awaitHorsepower(carUuid, 310));
+            assertEquals(3, EngineService.getCarCountForEngine(engineUuid));
+            assertTrue(EngineService.getCarsForEngine(engineUuid).contains("00000000-0000-4000-8000-0000000000ca"));
+
+            Files.writeString(engineFile, original);
+            assertTrue(awaitHorsepower(carUuid, 300));
+            assertEquals(2, EngineService.getCarCountForEngine(engineUuid));
+        } finally {
+            // The catalog is process-wide; serve the shipped instances again for the tests that follow
+            EngineService.load(Paths.get(INSTANCES_DIR), Paths.get("src/main/resources/generated/relationships.json"));
+        }
+    }
+
+    @Test
+    public void testValidationReportsEveryErrorInPathOrder() throws Exception {
+        Path root = Files.createTempDirectory("engine-validation");
+        Path enginesDir = Files.createDirectories(root.resolve("instances").resolve("engines"));
+        // Enough invalid files for several threads to finish them out of order
+        for (int i = 39; i >= 0; i--) {
+            Files.writeString(enginesDir.resolve(String.format("engine-gas-bad-%02d.json", i)), "{}");
+        }
+        try {
+            EngineValidation.validate(new File("src/main/resources/schemas"), root.resolve("instances").toFile(),
+                    root.resolve("generated").resolve("relationships.json").toFile());
+            fail("Invalid instances passed validation");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Validation failed: 40 error(s) in 40 instances:"));
+            List<String> errors = e.getMessage().lines().skip(1).toList();
+            assertEquals(40, errors.size());
+            assertEquals("Invalid instance: engine-gas-bad-00.json - Missing name or uuid", errors.get(0));
+            assertEquals(errors.stream().sorted().toList(), errors);
+        }
+    }
+
+    @Test
+    public void testIncrementalValidationOnlyRevalidatesChanges() throws Exception {
+        Path root = copyValidCatalog("engine-incremental");
+        Path schemasDir = root.resolve("schemas");
+        Path instancesDir = root.resolve("instances");
+
+        assertEquals(Map.of("cars/car-sedan", 1L, "cars/car-suv", 1L, "engines/engine-electric", 1L,
+                "engines/engine-gas", 1L, "engines/engine-hybrid", 1L), validateIncrementally(root));
+        Path relationshipsFile = root.resolve("generated").resolve("relationships.json");
+        byte[] relationshipsJson = Files.readAllBytes(relationshipsFile);
+        assertEquals(Map.of(), validateIncrementally(root));
+        assertTrue(Arrays.equals(relationshipsJson, Files.readAllBytes(relationshipsFile)));
+
+        Path engineFile = instancesDir.resolve("engines").resolve("engine-gas-prod.json");
+        Files.writeString(engineFile, Files.readString(engineFile).replace("\"horsepower\": 300", "\"horsepower\": 305"));
+        assertEquals(Map.of("engines/engine-gas", 1L), validateIncrementally(root));
+        // A changed schema invalidates the instances of its type
+        Path schemaFile = schemasDir.resolve("engines").resolve("engine-electric.json");
+        Files.writeString(schemaFile, Files.readString(schemaFile) + "\n");
+        assertEquals(Map.of("engines/engine-electric", 1L), validateIncrementally(root));
+    }
+
+    @Test
+    public void testBulkValidationReadsNdjsonAndArrays() throws Exception {
+        List<String> records = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(Paths.get(INSTANCES_DIR))) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                ObjectNode instance = (ObjectNode) mapper.readTree(path.toFile());
+                String fileName = path.getFileName().toString();
+                instance.put(EngineValidation.TYPE_FIELD, fileName.substring(0, fileName.lastIndexOf('-')));
+                if (fileName.startsWith("car-sedan")) {
+                    ArrayNode relationships = instance.putArray("engineRelationships");
+                    instance.get("engineUuids").forEach(engineUuid -> relationships.addObject()
+                            .put("engineUuid", engineUuid.asText()).put("validFrom", "2020-01-01T00:00:00Z"));
+                }
+                records.add(mapper.writeValueAsString(instance));
+            }
+        }
+        Path root = Files.createTempDirectory("engine-bulk");
+        File schemasDir = new File("src/main/resources/schemas");
+
+        Path ndjson = Files.writeString(root.resolve("instances.ndjson"), String.join("\n", records) + "\n");
+        File ndjsonRelationships = root.resolve("ndjson").resolve("relationships.json").toFile();
+        EngineValidation.validateBulk(schemasDir, ndjson.toFile(), ndjsonRelationships, 2);
+        Map<?, ?> relationships = mapper.readValue(ndjsonRelationships, Map.class);
+        // Only engineRelationships go into relationships.json
+        assertEquals(Set.of("abcdef12-3456-7890-abcd-ef1234567890"), relationships.keySet());
+
+        Path array = Files.writeString(root.resolve("instances.json"), "[\n" + String.join(",\n", records) + "\n]\n");
+        File arrayRelationships = root.resolve("array").resolve("relationships.json").toFile();
+        EngineValidation.validateBulk(schemasDir, array.toFile(), arrayRelationships, 2);
+        assertTrue(Arrays.equals(Files.readAllBytes(ndjsonRelationships.toPath()), Files.readAllBytes(arrayRelationships.toPath())));
+
+        records.set(2, "{\"name\": \"broken\", ");
+        Path malformed = Files.writeString(root.resolve("malformed.ndjson"), String.join("\n", records) + "\n");
+        try {
+            EngineValidation.validateBulk(schemasDir, malformed.toFile(), root.resolve("malformed").resolve("relationships.json").toFile(), 2);
+            fail("A malformed bulk file passed validation");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Failed to process: record 2 (line 3)"));
+            // Nothing is generated, and the spilled temporary files are gone
+            try (Stream<Path> generated = Files.list(root.resolve("malformed"))) {
+                assertEquals(0, generated.count());
+            }
+        }
+    }
+
+    @Test
+    public void testValidationReportsBrokenLinks() throws Exception {
+        Path root = copyValidCatalog("engine-integrity");
+        Path enginesDir = root.resolve("instances").resolve("engines");
+        Files.copy(enginesDir.resolve("engine-gas-prod.json"), enginesDir.resolve("engine-gas-copy.json"));
+        Path electricFile = enginesDir.resolve("engine-electric-dev.json");
+        Files.writeString(electricFile, Files.readString(electricFile).replace("\"carUuids\": [", "\"carUuids\": [\"00000000-0000-4000-8000-0000000000ff\", "));
+
+        PrintStream err = System.err;
+        ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(warnings, true, StandardCharsets.UTF_8));
+        try {
+            validateIncrementally(root);
+            fail("Broken links passed validation");
+        } catch (Exception e) {
+            assertEquals(List.of(
+                    "Validation failed: 2 error(s) in 6 instances:",
+                    "Duplicate uuid: 123e4567-e89b-12d3-a456-426614174000 in engines/engine-gas-copy.json and engines/engine-gas-prod.json",
+                    "Dangling reference: engines/engine-electric-dev.json - engine 987fcdeb-12d3-4e5a-b678-426614174001 links car "
+                            + "00000000-0000-4000-8000-0000000000ff, which does not exist"), e.getMessage().lines().toList());
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals(List.of(
+                "Warning: Asymmetric link: engines/engine-hybrid-test.json - engine 456789ab-cdef-1234-5678-90abcdef1234 links car "
+                        + "789abcde-f123-4567-89ab-cdef12345678, but cars/car-suv-prod.json does not link it back"),
+                warnings.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    public void testBulkValidationInvalidatesTheDirectoryManifest() throws Exception {
+        Path root = copyValidCatalog("engine-bulk-manifest");
+        Path generatedDir = root.resolve("generated");
+        String gasUuid = "123e4567-e89b-12d3-a456-426614174000";
+        validateIncrementally(root);
+        assertTrue(Files.exists(generatedDir.resolve("validation-manifest.json")));
+
+        // The same instances in a bulk file, with the gas engine changed
+        List<String> records = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root.resolve("instances"))) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                ObjectNode instance = (ObjectNode) mapper.readTree(path.toFile());
+                String fileName = path.getFileName().toString();
+                instance.put(EngineValidation.TYPE_FIELD, fileName.substring(0, fileName.lastIndexOf('-')));
+                if (instance.get("uuid").asText().equals(gasUuid)) {
+                    instance.put("horsepower", 301);
+                }
+                records.add(mapper.writeValueAsString(instance));
+            }
+        }
+        Path bulkFile = Files.writeString(root.resolve("instances.ndjson"), String.join("\n", records) + "\n");
+        EngineValidation.validateBulk(root.resolve("schemas").toFile(), bulkFile.toFile(),
+                generatedDir.resolve("relationships.json").toFile());
+        assertFalse(Files.exists(generatedDir.resolve("validation-manifest.json")));
+        BinaryCatalog bulkCatalog = BinaryCatalog.open(generatedDir.resolve("engines.catalog"));
+        assertEquals(301, mapper.readTree(bulkCatalog.document(bulkCatalog.find(UUID.fromString(gasUuid)))).get("horsepower").asInt());
+
+        // The next directory run revalidates everything rather than reusing the bulk file's engines
+        assertEquals(Map.of("cars/car-sedan", 1L, "cars/car-suv", 1L, "engines/engine-electric", 1L,
+                "engines/engine-gas", 1L, "engines/engine-hybrid", 1L), validateIncrementally(root));
+        BinaryCatalog catalog = BinaryCatalog.open(generatedDir.resolve("engines.catalog"));
+        assertEquals(300, mapper.readTree(catalog.document(catalog.find(UUID.fromString(gasUuid)))).get("horsepower").asInt());
+    }
+
+    /**
+     * Copies the shipped schemas and instances to {@code root/schemas} and {@code root/instances} of
+     * a new temporary directory, giving the sedan the relationships its schema requires.
+     */
+    private static Path copyValidCatalog(String prefix) throws IOException {
+        Path root = Files.createTempDirectory(prefix);
+        Path schemasDir = root.resolve("schemas");
+        Path instancesDir = root.resolve("instances");
+        for (Path[] copy : new Path[][]{{Paths.get("src/main/resources/schemas"), schemasDir}, {Paths.get(INSTANCES_DIR), instancesDir}}) {
+            try (Stream<Path> paths = Files.walk(copy[0])) {
+                for (Path path : paths.toList()) {
+                    Files.copy(path, copy[1].resolve(copy[0].relativize(path).toString()));
+                }
+            }
+        }
+        Path sedanFile = instancesDir.resolve("cars").resolve("car-sedan-dev.json");
+        ObjectNode sedan = (ObjectNode) mapper.readTree(sedanFile.toFile());
+        ArrayNode relationships = sedan.putArray("engineRelationships");
+        sedan.get("engineUuids").forEach(engineUuid -> relationships.addObject()
+                .put("engineUuid", engineUuid.asText()).put("validFrom", "2020-01-01T00:00:00Z"));
+        mapper.writeValue(sedanFile.toFile(), sedan);
+        return root;
+    }
+
+    /**
+     * Validates the instances under {@code root} incrementally and returns how many instances of
+     * each schema were validated rather than reused.
+     */
+    private static Map<String, Long> validateIncrementally(Path root) throws Exception {
+        ValidationProfile profile = new ValidationProfile();
+        EngineValidation.validate(root.resolve("schemas").toFile(), root.resolve("instances").toFile(),
+                root.resolve("generated").resolve("relationships.json").toFile(), true, profile);
+        Map<String, Long> validated = new TreeMap<>();
+        profile.summary().schemas().forEach((schema, summary) -> {
+            if (summary.instances() > 0) {
+                validated.put(schema, summary.instances());
+            }
+        });
+        return validated;
+    }
+
+    private static boolean awaitHorsepower(String carUuid, long horsepower) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            if (EngineService.getEngineForCar(carUuid, EngineGas.class).orElseThrow().horsepower == horsepower) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
     // Additional tests for EngineService can remain or be updated as needed
 }